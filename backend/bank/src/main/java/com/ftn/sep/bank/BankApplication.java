@@ -5,6 +5,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.web.SecurityFilterChain;
@@ -22,7 +23,10 @@ public class BankApplication {
 	public SecurityFilterChain filterChain(HttpSecurity http) {
 		http
 				.csrf(AbstractHttpConfigurer::disable)
-				.authorizeHttpRequests(auth -> auth.anyRequest().permitAll());
+				.authorizeHttpRequests(auth -> auth
+						.requestMatchers("/api/accounts/**", "/api/audit/**", "/api/qr/validate/bulk").authenticated()
+						.anyRequest().permitAll())
+				.httpBasic(Customizer.withDefaults());
 		return http.build();
 	}
 
@@ -6,6 +6,7 @@ import com.ftn.sep.bank.model.CardType;
 import com.ftn.sep.bank.repository.BankAccountRepository;
 import com.ftn.sep.bank.repository.CardInfoRepository;
 import com.ftn.sep.bank.security.EncryptionService;
+import com.ftn.sep.bank.service.LedgerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
@@ -22,6 +23,7 @@ public class DataSeeder implements CommandLineRunner {
     private final BankAccountRepository accountRepository;
     private final CardInfoRepository cardRepository;
     private final EncryptionService encryptionService;
+    private final LedgerService ledgerService;
 
     @Override
     public void run(String... args) {
@@ -106,5 +108,8 @@ public class DataSeeder implements CommandLineRunner {
         }
 
         log.info("Seeded {} bank accounts with cards (PAN encrypted, no CVV stored)", accountRepository.count());
+
+        // Seeded after the ledger opened existing accounts at startup
+        ledgerService.postOpeningBalances();
     }
 }
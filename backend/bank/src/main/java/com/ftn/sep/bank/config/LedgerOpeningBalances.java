@@ -0,0 +1,48 @@
+package com.ftn.sep.bank.config;
+
+import com.ftn.sep.bank.service.LedgerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Posts opening ledger entries for accounts created before the ledger, before
+ * the web server starts accepting payments. Accounts created later without
+ * going through the ledger (e.g. by {@link DataSeeder}) are opened by whoever
+ * creates them.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerOpeningBalances implements SmartLifecycle {
+
+    private final LedgerService ledgerService;
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        int opened = ledgerService.postOpeningBalances();
+        if (opened > 0) {
+            log.info("Posted opening ledger balances for {} accounts", opened);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Lower phases start earlier: before the web server (DEFAULT_PHASE - 2048)
+        return SmartLifecycle.DEFAULT_PHASE - 8192;
+    }
+}
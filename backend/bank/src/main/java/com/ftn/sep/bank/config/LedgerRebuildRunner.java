@@ -0,0 +1,45 @@
+package com.ftn.sep.bank.config;
+
+import com.ftn.sep.bank.service.LedgerSnapshotRebuilder;
+import com.ftn.sep.bank.service.LedgerSnapshotRebuilder.RebuildReport;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Ledger snapshot rebuild tool. Run the application with
+ * {@code --ledger.rebuild=true --spring.main.web-application-type=none};
+ * it rebuilds all snapshots and exits (non-zero if balances do not match).
+ */
+@Component
+@ConditionalOnProperty(name = "ledger.rebuild", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerRebuildRunner implements ApplicationRunner {
+
+    private final LedgerSnapshotRebuilder rebuilder;
+    private final ApplicationContext applicationContext;
+
+    @Value("${ledger.snapshot.lag-seconds:300}")
+    private long lagSeconds;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(lagSeconds).truncatedTo(ChronoUnit.MINUTES);
+        log.info("Rebuilding ledger snapshots up to {}", cutoff);
+
+        RebuildReport report = rebuilder.rebuild(cutoff);
+
+        int exitCode = report.mismatches() == 0 ? 0 : 1;
+        System.exit(SpringApplication.exit(applicationContext, () -> exitCode));
+    }
+}
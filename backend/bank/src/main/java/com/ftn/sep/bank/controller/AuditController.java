@@ -0,0 +1,132 @@
+package com.ftn.sep.bank.controller;
+
+import com.ftn.sep.bank.repository.AuditQueryRepository.AuditQuery;
+import com.ftn.sep.bank.repository.AuditQueryRepository.Cursor;
+import com.ftn.sep.bank.service.AuditQueryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/audit")
+@RequiredArgsConstructor
+@Slf4j
+public class AuditController {
+
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    private final AuditQueryService auditQueryService;
+
+    @Value("${audit.query.max-page-size:1000}")
+    private int maxPageSize;
+
+    /**
+     * Returns one page of audit entries in timestamp order; pass {@code nextCursor}
+     * of the response as {@code cursor} to get the next page. Filters must stay the
+     * same between pages. {@code from} is inclusive, {@code to} exclusive.
+     */
+    @GetMapping("/logs")
+    public ResponseEntity<?> getLogs(
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String entityType,
+            @RequestParam(required = false) String entityId,
+            @RequestParam(required = false) String result,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "asc") String order) {
+
+        if (limit < 1 || limit > maxPageSize) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + maxPageSize);
+        }
+        try {
+            AuditQuery query = toQuery(action, entityType, entityId, result, from, to, order);
+            Cursor after = cursor != null ? AuditQueryService.decodeCursor(cursor) : null;
+            return ResponseEntity.ok(auditQueryService.page(query, after, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Entries of the entity written to local audit segments but not shipped to the
+     * database yet ({@code audit.sink=SEGMENTS}); empty with the DATABASE sink.
+     */
+    @GetMapping("/logs/unshipped")
+    public ResponseEntity<?> getUnshippedLogs(
+            @RequestParam String entityId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "100") int limit) {
+
+        if (limit < 1 || limit > maxPageSize) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + maxPageSize);
+        }
+        LocalDateTime start = from != null ? from : EARLIEST;
+        LocalDateTime end = to != null ? to : LocalDateTime.now().plusDays(1);
+        if (!end.isAfter(start)) {
+            return ResponseEntity.badRequest().body("'to' must be after 'from'");
+        }
+        return ResponseEntity.ok(auditQueryService.findUnshipped(entityId, start, end, limit));
+    }
+
+    /**
+     * Streams every matching entry as NDJSON, with the same filters as {@link #getLogs}.
+     */
+    @GetMapping("/logs/export")
+    public ResponseEntity<?> exportLogs(
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String entityType,
+            @RequestParam(required = false) String entityId,
+            @RequestParam(required = false) String result,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "asc") String order) {
+
+        AuditQuery query;
+        Cursor after;
+        try {
+            query = toQuery(action, entityType, entityId, result, from, to, order);
+            after = cursor != null ? AuditQueryService.decodeCursor(cursor) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+
+        log.info("Exporting audit log: {}", query);
+        StreamingResponseBody body = out -> auditQueryService.export(query, after, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"audit-log.ndjson\"")
+                .body(body);
+    }
+
+    private static AuditQuery toQuery(String action, String entityType, String entityId, String result,
+                                      LocalDateTime from, LocalDateTime to, String order) {
+        if (entityId != null && entityType == null) {
+            // The entity index leads with entity_type
+            throw new IllegalArgumentException("entityId requires entityType");
+        }
+        if (from != null && to != null && !to.isAfter(from)) {
+            throw new IllegalArgumentException("'to' must be after 'from'");
+        }
+        boolean descending = switch (order.toLowerCase()) {
+            case "asc" -> false;
+            case "desc" -> true;
+            default -> throw new IllegalArgumentException("Unsupported order: " + order);
+        };
+        return new AuditQuery(action, entityType, entityId, result, from, to, descending);
+    }
+}
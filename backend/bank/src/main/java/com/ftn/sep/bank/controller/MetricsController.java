@@ -0,0 +1,47 @@
+package com.ftn.sep.bank.controller;
+
+import com.ftn.sep.bank.service.AuditLogWriter;
+import com.ftn.sep.bank.service.AuditSegmentStore;
+import com.ftn.sep.bank.service.BinTableService;
+import com.ftn.sep.bank.service.CardMetadataCache;
+import com.ftn.sep.bank.service.PaymentIdempotencyService;
+import com.ftn.sep.bank.service.TransactionExpiryWheel;
+import com.ftn.sep.bank.service.VelocityEngine;
+import com.ftn.sep.bank.util.QrImageCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/metrics")
+@RequiredArgsConstructor
+public class MetricsController {
+
+    private final CardMetadataCache cardMetadataCache;
+    private final AuditLogWriter auditLogWriter;
+    private final AuditSegmentStore auditSegmentStore;
+    private final QrImageCache qrImageCache;
+    private final TransactionExpiryWheel transactionExpiryWheel;
+    private final BinTableService binTableService;
+    private final VelocityEngine velocityEngine;
+    private final PaymentIdempotencyService paymentIdempotencyService;
+
+    @GetMapping
+    public ResponseEntity<?> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("cardCache", cardMetadataCache.stats());
+        metrics.put("auditQueue", auditLogWriter.stats());
+        metrics.put("auditSegments", auditSegmentStore.stats());
+        metrics.put("qrImageCache", qrImageCache.stats());
+        metrics.put("expiryWheel", transactionExpiryWheel.stats());
+        metrics.put("binTable", binTableService.stats());
+        metrics.put("velocity", velocityEngine.stats());
+        metrics.put("paymentIdempotency", paymentIdempotencyService.stats());
+        return ResponseEntity.ok(metrics);
+    }
+}
@@ -1,9 +1,7 @@
 package com.ftn.sep.bank.controller;
 
 import com.ftn.sep.bank.dto.*;
-import com.ftn.sep.bank.model.BankAccount;
 import com.ftn.sep.bank.model.BankTransaction;
-import com.ftn.sep.bank.model.CardInfo;
 import com.ftn.sep.bank.model.TransactionStatus;
 import com.ftn.sep.bank.security.HmacUtil;
 import com.ftn.sep.bank.service.*;
@@ -14,9 +12,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
 @RestController
 @RequestMapping("/api/payment")
 @RequiredArgsConstructor
@@ -24,16 +29,19 @@ import org.springframework.web.bind.annotation.*;
 public class PaymentController {
 
     private final TransactionService transactionService;
-    private final CardValidationService cardValidationService;
-    private final CardService cardService;
-    private final BankAccountService bankAccountService;
-    private final PSPService pspService;
+    private final AuthorizationEngine authorizationEngine;
+    private final PspNotificationOutbox pspNotificationOutbox;
     private final HmacUtil hmacUtil;
     private final AuditService auditService;
+    private final VelocityEngine velocityEngine;
+    private final PaymentIdempotencyService paymentIdempotencyService;
 
     @Value("${psp.merchant.bank.id}")
     private String merchantId;
 
+    @Value("${payment.batch.max-items:1000}")
+    private int maxBatchItems;
+
     @PostMapping("/create")
     public ResponseEntity<CreatePaymentResponse> createPayment(
             @RequestBody CreatePaymentRequest request,
@@ -48,7 +56,8 @@ public class PaymentController {
                             "Missing authentication signature"));
         }
 
-        String payload = hmacUtil.createPayload(
+        boolean signatureValid = hmacUtil.validateSignature(
+                signature,
                 request.getMerchantId(),
                 request.getAmount().toString(),
                 request.getCurrency(),
@@ -56,7 +65,7 @@ public class PaymentController {
                 request.getPspTimestamp().toString()
         );
 
-        if (!hmacUtil.validateSignature(payload, signature)) {
+        if (!signatureValid) {
             log.error("Invalid HMAC signature for STAN: {}", request.getStan());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(new CreatePaymentResponse(null, null, "UNAUTHORIZED",
@@ -79,19 +88,148 @@ public class PaymentController {
         transaction.setAmount(request.getAmount());
         transaction.setCurrency(request.getCurrency());
 
-        BankTransaction savedTransaction = transactionService.createTransaction(transaction);
+        PaymentIdempotencyService.IdempotentResponse<CreatePaymentResponse> result =
+                paymentIdempotencyService.createOnce(PaymentIdempotencyService.Channel.CARD, transaction,
+                        savedTransaction -> new CreatePaymentResponse(
+                                savedTransaction.getPaymentId(),
+                                savedTransaction.getPaymentUrl(),
+                                "SUCCESS",
+                                "Payment URL created successfully"
+                        ));
+
+        if (result.conflict()) {
+            log.error("STAN {} was already used for a different payment", request.getStan());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new CreatePaymentResponse(null, null, "DUPLICATE_STAN",
+                            "STAN already used for a different payment"));
+        }
 
-        CreatePaymentResponse response = new CreatePaymentResponse(
-                savedTransaction.getPaymentId(),
-                savedTransaction.getPaymentUrl(),
-                "SUCCESS",
-                "Payment URL created successfully"
-        );
+        if (!result.replayed()) {
+            log.info("Created payment URL: {} for STAN: {}",
+                    result.response().getPaymentUrl(), request.getStan());
+        }
+
+        return ResponseEntity.ok(result.response());
+    }
+
+    /**
+     * Creates many card payment sessions for one merchant in one call. The signature
+     * covers merchantId, the item count and each item's amount, currency, STAN and
+     * PSP timestamp, in order. Invalid items fail individually; results are
+     * returned in request order.
+     */
+    @PostMapping("/create-batch")
+    public ResponseEntity<CreatePaymentBatchResponse> createPaymentBatch(
+            @RequestBody CreatePaymentBatchRequest request,
+            @RequestHeader(value = "X-PSP-Signature", required = false) String signature) {
+
+        List<CreatePaymentRequest> items = request.getItems() != null ? request.getItems() : List.of();
+        log.info("Received batch payment creation request from PSP - {} items", items.size());
+
+        if (signature == null || signature.isEmpty()) {
+            log.error("Missing HMAC signature in batch request");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(batchError("UNAUTHORIZED", "Missing authentication signature"));
+        }
+
+        if (items.isEmpty() || items.size() > maxBatchItems) {
+            return ResponseEntity.badRequest()
+                    .body(batchError("INVALID_BATCH", "Batch must contain 1 to " + maxBatchItems + " items"));
+        }
+        if (items.stream().anyMatch(Objects::isNull)) {
+            return ResponseEntity.badRequest()
+                    .body(batchError("INVALID_BATCH", "Batch items must not be null"));
+        }
+
+        List<String> payloadFields = new ArrayList<>(2 + items.size() * 4);
+        payloadFields.add(request.getMerchantId());
+        payloadFields.add(String.valueOf(items.size()));
+        for (CreatePaymentRequest item : items) {
+            payloadFields.add(String.valueOf(item.getAmount()));
+            payloadFields.add(item.getCurrency());
+            payloadFields.add(item.getStan());
+            payloadFields.add(String.valueOf(item.getPspTimestamp()));
+        }
+
+        if (!hmacUtil.validateSignature(signature, payloadFields.toArray(String[]::new))) {
+            log.error("Invalid HMAC signature for batch of {} items", items.size());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(batchError("UNAUTHORIZED", "Invalid authentication signature"));
+        }
+
+        if (!merchantId.equals(request.getMerchantId())) {
+            log.error("Invalid merchant ID: {}", request.getMerchantId());
+            return ResponseEntity.badRequest()
+                    .body(batchError("INVALID_MERCHANT", "Invalid merchant credentials"));
+        }
 
-        log.info("Created payment URL: {} for STAN: {}",
-                savedTransaction.getPaymentUrl(), request.getStan());
+        CreatePaymentBatchItemResult[] results = new CreatePaymentBatchItemResult[items.size()];
+        List<BankTransaction> transactions = new ArrayList<>(items.size());
+        List<Integer> indexes = new ArrayList<>(items.size());
+        Set<String> stans = new HashSet<>();
+
+        for (int i = 0; i < items.size(); i++) {
+            CreatePaymentRequest item = items.get(i);
+            String error = validateBatchItem(item);
+            if (error != null) {
+                results[i] = new CreatePaymentBatchItemResult(i, item.getStan(), null, null, "INVALID_REQUEST", error);
+                continue;
+            }
+            if (!stans.add(item.getStan())) {
+                results[i] = new CreatePaymentBatchItemResult(i, item.getStan(), null, null, "DUPLICATE_STAN",
+                        "STAN appears more than once in the batch");
+                continue;
+            }
+
+            BankTransaction transaction = new BankTransaction();
+            transaction.setMerchantId(request.getMerchantId());
+            transaction.setStan(item.getStan());
+            transaction.setPspTimestamp(item.getPspTimestamp());
+            transaction.setAmount(item.getAmount());
+            transaction.setCurrency(item.getCurrency());
+            transactions.add(transaction);
+            indexes.add(i);
+        }
 
-        return ResponseEntity.ok(response);
+        List<PaymentIdempotencyService.IdempotentResponse<CreatePaymentResponse>> created =
+                paymentIdempotencyService.createAllOnce(PaymentIdempotencyService.Channel.CARD,
+                        request.getMerchantId(), transactions,
+                        savedTransaction -> new CreatePaymentResponse(
+                                savedTransaction.getPaymentId(),
+                                savedTransaction.getPaymentUrl(),
+                                "SUCCESS",
+                                "Payment URL created successfully"
+                        ));
+
+        int createdCount = 0;
+        int replayedCount = 0;
+        for (int j = 0; j < created.size(); j++) {
+            int i = indexes.get(j);
+            String stan = items.get(i).getStan();
+            PaymentIdempotencyService.IdempotentResponse<CreatePaymentResponse> result = created.get(j);
+            if (result.conflict()) {
+                results[i] = new CreatePaymentBatchItemResult(i, stan, null, null, "DUPLICATE_STAN",
+                        "STAN already used for a different payment");
+                continue;
+            }
+            if (result.replayed()) {
+                replayedCount++;
+            } else {
+                createdCount++;
+            }
+            CreatePaymentResponse response = result.response();
+            results[i] = new CreatePaymentBatchItemResult(i, stan, response.getPaymentId(),
+                    response.getPaymentUrl(), response.getStatus(), response.getMessage());
+        }
+
+        int failedCount = items.size() - createdCount - replayedCount;
+        log.info("Batch payment creation: {} created, {} replayed, {} failed",
+                createdCount, replayedCount, failedCount);
+
+        return ResponseEntity.ok(new CreatePaymentBatchResponse(
+                failedCount == 0 ? "SUCCESS" : failedCount < items.size() ? "PARTIAL" : "FAILED",
+                failedCount == 0 ? "Payment URLs created successfully" : failedCount + " items failed",
+                createdCount, replayedCount, failedCount, Arrays.asList(results)));
     }
 
     @GetMapping("/form/{paymentId}")
@@ -100,12 +238,8 @@ public class PaymentController {
 
         return transactionService.findByPaymentId(paymentId)
                 .map(transaction -> {
+                    // Read-only: the expiry wheel moves the transaction to EXPIRED
                     if (transaction.isPaymentUrlExpired()) {
-                        transactionService.updateTransactionStatus(
-                                transaction.getId(),
-                                TransactionStatus.EXPIRED,
-                                "Payment URL expired"
-                        );
                         return ResponseEntity.status(HttpStatus.GONE)
                                 .body(new PaymentFormData(
                                         paymentId,
@@ -136,211 +270,153 @@ public class PaymentController {
         String panLastFour = request.getPan() != null && request.getPan().length() >= 4
                 ? request.getPan().substring(request.getPan().length() - 4) : "????";
 
-        BankTransaction transaction = transactionService.findByPaymentId(request.getPaymentId())
-                .orElseThrow(() -> new RuntimeException("Transaction not found"));
-
-        if (transaction.isPaymentUrlExpired()) {
-            transactionService.updateTransactionStatus(
-                    transaction.getId(),
-                    TransactionStatus.EXPIRED,
-                    "Payment URL expired"
-            );
-            auditService.logPaymentAttempt(request.getPaymentId(), panLastFour,
-                    "FAILURE", "Payment session expired", clientIp);
-            return ResponseEntity.status(HttpStatus.GONE)
+        // Card-testing bursts are rejected before any DB access
+        Optional<VelocityEngine.Rule> trippedRule = velocityEngine.checkCardAttempt(request.getPan(), clientIp);
+        if (trippedRule.isPresent()) {
+            log.warn("Velocity limit {} exceeded for Payment ID: {}", trippedRule.get(), request.getPaymentId());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
                     .body(new ProcessPaymentResponse(
                             null,
-                            transaction.getStan(),
-                            "EXPIRED",
-                            "Payment session has expired",
+                            null,
+                            "RATE_LIMITED",
+                            "Too many payment attempts, please try again later",
                             null
                     ));
         }
 
-        if (transaction.getStatus() != TransactionStatus.PENDING) {
-            auditService.logPaymentAttempt(request.getPaymentId(), panLastFour,
-                    "FAILURE", "Transaction already processed", clientIp);
-            return ResponseEntity.status(HttpStatus.CONFLICT)
-                    .body(new ProcessPaymentResponse(
-                            transaction.getGlobalTransactionId(),
-                            transaction.getStan(),
-                            "ALREADY_PROCESSED",
-                            "This payment has already been processed",
-                            null
-                    ));
+        AuthorizationResult result;
+        try {
+            result = authorizationEngine.authorize(request);
+        } catch (Exception e) {
+            return handleProcessingError(request.getPaymentId(), panLastFour, clientIp, e);
         }
 
-        // Stage 1: Format validation (Luhn, expiry format, CVV format)
-        if (!cardValidationService.validateCard(
-                request.getPan(),
-                request.getExpiryDate(),
-                request.getSecurityCode())) {
+        BankTransaction transaction = result.getTransaction();
+
+        switch (result.getOutcome()) {
+            case EXPIRED -> {
+                auditService.logPaymentAttempt(request.getPaymentId(), panLastFour,
+                        "FAILURE", result.getReason(), clientIp);
+                return ResponseEntity.status(HttpStatus.GONE)
+                        .body(new ProcessPaymentResponse(
+                                null,
+                                transaction.getStan(),
+                                "EXPIRED",
+                                "Payment session has expired",
+                                null
+                        ));
+            }
+            case ALREADY_PROCESSED -> {
+                auditService.logPaymentAttempt(request.getPaymentId(), panLastFour,
+                        "FAILURE", result.getReason(), clientIp);
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(new ProcessPaymentResponse(
+                                transaction.getGlobalTransactionId(),
+                                transaction.getStan(),
+                                "ALREADY_PROCESSED",
+                                "This payment has already been processed",
+                                null
+                        ));
+            }
+            case INVALID_CARD_FORMAT -> {
+                return declined(request.getPaymentId(), panLastFour, clientIp, result, "Invalid card data");
+            }
+            case UNKNOWN_BIN -> {
+                return declined(request.getPaymentId(), panLastFour, clientIp, result, "Card not supported");
+            }
+            case CARD_DECLINED -> {
+                return declined(request.getPaymentId(), panLastFour, clientIp, result, "Invalid card information");
+            }
+            case INSUFFICIENT_FUNDS -> {
+                return declined(request.getPaymentId(), panLastFour, clientIp, result, "Insufficient funds");
+            }
+            default -> {
+                log.info("Payment successful - GTX: {}, STAN: {}",
+                        transaction.getGlobalTransactionId(),
+                        transaction.getStan());
+
+                String redirectUrl = pspNotificationOutbox.awaitRedirectUrl(result.getNotificationId());
+
+                auditService.logPaymentAttempt(request.getPaymentId(), panLastFour,
+                        "SUCCESS", "Payment processed successfully", clientIp);
+
+                return ResponseEntity.ok(new ProcessPaymentResponse(
+                        transaction.getGlobalTransactionId(),
+                        transaction.getStan(),
+                        "SUCCESS",
+                        "Payment processed successfully",
+                        redirectUrl
+                ));
+            }
+        }
+    }
 
-            transactionService.updateTransactionStatus(
-                    transaction.getId(),
-                    TransactionStatus.FAILED,
-                    "Invalid card data format"
-            );
+    private ResponseEntity<ProcessPaymentResponse> declined(String paymentId, String panLastFour,
+                                                            String clientIp, AuthorizationResult result,
+                                                            String message) {
+        BankTransaction transaction = result.getTransaction();
 
-            String redirectUrl = pspService.notifyPaymentResult(
-                    transaction.getStan(),
-                    transaction.getGlobalTransactionId(),
-                    transaction.getAcquirerTimestamp(),
-                    "FAILED"
-            );
+        String redirectUrl = pspNotificationOutbox.awaitRedirectUrl(result.getNotificationId());
 
-            auditService.logPaymentAttempt(request.getPaymentId(), panLastFour,
-                    "FAILURE", "Invalid card data format", clientIp);
+        auditService.logPaymentAttempt(paymentId, panLastFour,
+                "FAILURE", result.getReason(), clientIp);
 
-            return ResponseEntity.badRequest()
-                    .body(new ProcessPaymentResponse(
-                            transaction.getGlobalTransactionId(),
-                            transaction.getStan(),
-                            "FAILED",
-                            "Invalid card data",
-                            redirectUrl
-                    ));
-        }
+        return ResponseEntity.badRequest()
+                .body(new ProcessPaymentResponse(
+                        transaction.getGlobalTransactionId(),
+                        transaction.getStan(),
+                        "FAILED",
+                        message,
+                        redirectUrl
+                ));
+    }
 
-        // Stage 2: Card data validation against database
-        if (!cardService.validateCardData(
-                request.getPan(),
-                request.getCardHolderName(),
-                request.getExpiryDate(),
-                request.getSecurityCode())) {
-
-            transactionService.updateTransactionStatus(
-                    transaction.getId(),
-                    TransactionStatus.FAILED,
-                    "Card validation failed"
-            );
-
-            String redirectUrl = pspService.notifyPaymentResult(
-                    transaction.getStan(),
-                    transaction.getGlobalTransactionId(),
-                    transaction.getAcquirerTimestamp(),
-                    "FAILED"
-            );
-
-            auditService.logPaymentAttempt(request.getPaymentId(), panLastFour,
-                    "FAILURE", "Card validation failed", clientIp);
+    private ResponseEntity<ProcessPaymentResponse> handleProcessingError(String paymentId, String panLastFour,
+                                                                         String clientIp, Exception e) {
+        log.error("Error processing payment", e);
 
-            return ResponseEntity.badRequest()
-                    .body(new ProcessPaymentResponse(
-                            transaction.getGlobalTransactionId(),
-                            transaction.getStan(),
-                            "FAILED",
-                            "Invalid card information",
-                            redirectUrl
-                    ));
-        }
+        BankTransaction transaction = transactionService.findByPaymentId(paymentId)
+                .orElseThrow(() -> new RuntimeException("Transaction not found"));
 
-        CardInfo card = cardService.findByPan(request.getPan())
-                .orElseThrow(() -> new RuntimeException("Card not found"));
+        Long notificationId = transactionService.updateTransactionStatus(
+                transaction,
+                TransactionStatus.ERROR,
+                e.getMessage(),
+                "ERROR"
+        );
 
-        BankAccount account = card.getAccount();
+        String redirectUrl = pspNotificationOutbox.awaitRedirectUrl(notificationId);
 
-        // Stage 3: Balance check
-        if (!bankAccountService.hasSufficientFunds(account, transaction.getAmount())) {
-            transactionService.updateTransactionStatus(
-                    transaction.getId(),
-                    TransactionStatus.FAILED,
-                    "Insufficient funds"
-            );
+        auditService.logPaymentAttempt(paymentId, panLastFour,
+                "ERROR", "Payment processing error: " + e.getMessage(), clientIp);
 
-            String redirectUrl = pspService.notifyPaymentResult(
-                    transaction.getStan(),
-                    transaction.getGlobalTransactionId(),
-                    transaction.getAcquirerTimestamp(),
-                    "FAILED"
-            );
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ProcessPaymentResponse(
+                        transaction.getGlobalTransactionId(),
+                        transaction.getStan(),
+                        "ERROR",
+                        "Payment processing error",
+                        redirectUrl
+                ));
+    }
 
-            auditService.logPaymentAttempt(request.getPaymentId(), panLastFour,
-                    "FAILURE", "Insufficient funds", clientIp);
+    private static CreatePaymentBatchResponse batchError(String status, String message) {
+        return new CreatePaymentBatchResponse(status, message, 0, 0, 0, List.of());
+    }
 
-            return ResponseEntity.badRequest()
-                    .body(new ProcessPaymentResponse(
-                            transaction.getGlobalTransactionId(),
-                            transaction.getStan(),
-                            "FAILED",
-                            "Insufficient funds",
-                            redirectUrl
-                    ));
+    private static String validateBatchItem(CreatePaymentRequest item) {
+        if (item.getAmount() == null || item.getAmount().signum() <= 0) {
+            return "Amount must be positive";
         }
-
-        // Stage 4: Reserve funds and complete
-        try {
-            log.info("Balance before the payment: {}", account.getBalance());
-
-            bankAccountService.reserveFunds(account, transaction.getAmount());
-            transaction.setAccount(account);
-            transactionService.updateTransactionStatus(
-                    transaction.getId(),
-                    TransactionStatus.RESERVED,
-                    null
-            );
-
-            log.info("Payment successful - GTX: {}, STAN: {}",
-                    transaction.getGlobalTransactionId(),
-                    transaction.getStan());
-            log.info("Balance after the payment: {}", account.getBalance());
-
-            String redirectUrl = pspService.notifyPaymentResult(
-                    transaction.getStan(),
-                    transaction.getGlobalTransactionId(),
-                    transaction.getAcquirerTimestamp(),
-                    "SUCCESS"
-            );
-
-            auditService.logPaymentAttempt(request.getPaymentId(), panLastFour,
-                    "SUCCESS", "Payment processed successfully", clientIp);
-
-            return ResponseEntity.ok(new ProcessPaymentResponse(
-                    transaction.getGlobalTransactionId(),
-                    transaction.getStan(),
-                    "SUCCESS",
-                    "Payment processed successfully",
-                    redirectUrl
-            ));
-
-        } catch (ObjectOptimisticLockingFailureException e) {
-            log.warn("Concurrent payment attempt detected for Payment ID: {}", request.getPaymentId());
-            auditService.logPaymentAttempt(request.getPaymentId(), panLastFour,
-                    "FAILURE", "Concurrent payment attempt blocked", clientIp);
-            return ResponseEntity.status(HttpStatus.CONFLICT)
-                    .body(new ProcessPaymentResponse(
-                            transaction.getGlobalTransactionId(),
-                            transaction.getStan(),
-                            "ALREADY_PROCESSED",
-                            "This payment has already been processed",
-                            null
-                    ));
-        } catch (Exception e) {
-            log.error("Error processing payment", e);
-            transactionService.updateTransactionStatus(
-                    transaction.getId(),
-                    TransactionStatus.ERROR,
-                    e.getMessage()
-            );
-
-            String redirectUrl = pspService.notifyPaymentResult(
-                    transaction.getStan(),
-                    transaction.getGlobalTransactionId(),
-                    transaction.getAcquirerTimestamp(),
-                    "ERROR"
-            );
-
-            auditService.logPaymentAttempt(request.getPaymentId(), panLastFour,
-                    "ERROR", "Payment processing error: " + e.getMessage(), clientIp);
-
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new ProcessPaymentResponse(
-                            transaction.getGlobalTransactionId(),
-                            transaction.getStan(),
-                            "ERROR",
-                            "Payment processing error",
-                            redirectUrl
-                    ));
+        if (item.getCurrency() == null || item.getCurrency().isBlank()) {
+            return "Currency is required";
+        }
+        if (item.getStan() == null || item.getStan().isBlank()) {
+            return "STAN is required";
+        }
+        if (item.getPspTimestamp() == null) {
+            return "PSP timestamp is required";
         }
+        return null;
     }
 }
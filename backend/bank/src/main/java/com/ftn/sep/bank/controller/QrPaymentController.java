@@ -8,24 +8,40 @@ import com.ftn.sep.bank.model.BankTransaction;
 import com.ftn.sep.bank.model.TransactionStatus;
 import com.ftn.sep.bank.security.HmacUtil;
 import com.ftn.sep.bank.service.AuditService;
+import com.ftn.sep.bank.service.AuthorizationEngine;
+import com.ftn.sep.bank.service.AuthorizationResult;
 import com.ftn.sep.bank.service.BankAccountService;
-import com.ftn.sep.bank.service.PSPService;
+import com.ftn.sep.bank.service.BulkQrValidationService;
+import com.ftn.sep.bank.service.PaymentIdempotencyService;
+import com.ftn.sep.bank.service.PspNotificationOutbox;
 import com.ftn.sep.bank.service.TransactionService;
+import com.ftn.sep.bank.service.VelocityEngine;
 import com.ftn.sep.bank.util.IpsQrGenerator;
+import com.ftn.sep.bank.util.IpsQrValidationResult;
 import com.ftn.sep.bank.util.IpsQrValidator;
+import com.ftn.sep.bank.util.QrImage;
+import com.ftn.sep.bank.util.QrImageFormat;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/qr")
@@ -38,8 +54,12 @@ public class QrPaymentController {
     private final IpsQrGenerator qrGenerator;
     private final IpsQrValidator qrValidator;
     private final HmacUtil hmacUtil;
-    private final PSPService pspService;
+    private final PspNotificationOutbox pspNotificationOutbox;
     private final AuditService auditService;
+    private final BulkQrValidationService bulkQrValidationService;
+    private final AuthorizationEngine authorizationEngine;
+    private final VelocityEngine velocityEngine;
+    private final PaymentIdempotencyService paymentIdempotencyService;
 
     @Value("${psp.merchant.bank.id}")
     private String expectedMerchantId;
@@ -60,7 +80,8 @@ public class QrPaymentController {
 
         log.info("Received QR payment creation request - STAN: {}", request.getStan());
 
-        String payload = hmacUtil.createPayload(
+        boolean signatureValid = hmacUtil.validateSignature(
+                signature,
                 request.getMerchantId(),
                 request.getAmount().toString(),
                 request.getCurrency(),
@@ -68,7 +89,7 @@ public class QrPaymentController {
                 request.getPspTimestamp().toString()
         );
 
-        if (!hmacUtil.validateSignature(payload, signature)) {
+        if (!signatureValid) {
             log.warn("Invalid HMAC signature for STAN: {}", request.getStan());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(new QrPaymentResponse(null, null, null, "ERROR", "Invalid signature"));
@@ -93,30 +114,23 @@ public class QrPaymentController {
 
             transaction.setPaymentUrlExpiresAt(LocalDateTime.now().plusMinutes(10));
 
-            BankTransaction savedTransaction = transactionService.createTransaction(transaction);
-
-            String qrCodeBase64 = qrGenerator.generateQrCode(
-                    merchantAccountNumber,
-                    merchantAccountName,
-                    request.getAmount(),
-                    request.getCurrency(),
-                    request.getStan(),
-                    "Car rental payment - " + request.getStan()
-            );
-
-            String paymentId = "QR-" + savedTransaction.getId();
-            String paymentUrl = bankFrontendUrl + "/qr-payment/" + paymentId;
-
-            log.info("QR payment created successfully - Payment ID: {}, STAN: {}",
-                    paymentId, request.getStan());
-
-            return ResponseEntity.ok(new QrPaymentResponse(
-                    paymentId,
-                    paymentUrl,
-                    qrCodeBase64,
-                    "SUCCESS",
-                    "QR payment session created successfully"
-            ));
+            PaymentIdempotencyService.IdempotentResponse<QrPaymentResponse> result =
+                    paymentIdempotencyService.createOnce(PaymentIdempotencyService.Channel.QR, transaction,
+                            this::buildQrPaymentResponse);
+
+            if (result.conflict()) {
+                log.warn("STAN {} was already used for a different QR payment", request.getStan());
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(new QrPaymentResponse(null, null, null, "ERROR",
+                                "STAN already used for a different payment"));
+            }
+
+            if (!result.replayed()) {
+                log.info("QR payment created successfully - Payment ID: {}, STAN: {}",
+                        result.response().getPaymentId(), request.getStan());
+            }
+
+            return ResponseEntity.ok(result.response());
 
         } catch (Exception e) {
             log.error("Error creating QR payment", e);
@@ -125,31 +139,46 @@ public class QrPaymentController {
         }
     }
 
+    private QrPaymentResponse buildQrPaymentResponse(BankTransaction savedTransaction) {
+        String qrCodeBase64 = qrGenerator.generateQrCode(
+                merchantAccountNumber,
+                merchantAccountName,
+                savedTransaction.getAmount(),
+                savedTransaction.getCurrency(),
+                savedTransaction.getStan(),
+                "Car rental payment - " + savedTransaction.getStan()
+        );
+
+        String paymentId = "QR-" + savedTransaction.getId();
+        String paymentUrl = bankFrontendUrl + "/qr-payment/" + paymentId;
+
+        return new QrPaymentResponse(
+                paymentId,
+                paymentUrl,
+                qrCodeBase64,
+                "SUCCESS",
+                "QR payment session created successfully"
+        );
+    }
+
     @GetMapping("/{paymentId}")
-    public ResponseEntity<?> getQrPaymentData(@PathVariable String paymentId) {
+    public ResponseEntity<?> getQrPaymentData(@PathVariable String paymentId,
+                                              @RequestParam(defaultValue = "true") boolean inlineImage) {
         log.info("Fetching QR payment data for: {}", paymentId);
 
         try {
-            Long transactionId = Long.parseLong(paymentId.replace("QR-", ""));
-
-            BankTransaction transaction = transactionService.findById(transactionId)
-                    .orElseThrow(() -> new RuntimeException("Transaction not found"));
-
-            String qrCodeBase64 = qrGenerator.generateQrCode(
-                    merchantAccountNumber,
-                    merchantAccountName,
-                    transaction.getAmount(),
-                    transaction.getCurrency(),
-                    transaction.getStan(),
-                    "Car rental payment - " + transaction.getStan()
-            );
+            BankTransaction transaction = findQrTransaction(paymentId);
 
             Map<String, Object> response = new HashMap<>();
             response.put("paymentId", paymentId);
             response.put("amount", transaction.getAmount());
             response.put("currency", transaction.getCurrency());
             response.put("recipientName", merchantAccountName);
-            response.put("qrCodeBase64", qrCodeBase64);
+            response.put("qrImageUrl", "/api/qr/" + paymentId + "/image");
+            if (inlineImage) {
+                response.put("qrCodeBase64", qrGenerator.getOrRender(buildIpsPayload(transaction),
+                        QrImageFormat.PNG).base64());
+            }
             response.put("expiresAt", transaction.getPaymentUrlExpiresAt());
             response.put("stan", transaction.getStan());
             response.put("status", transaction.getStatus().name());
@@ -163,17 +192,81 @@ public class QrPaymentController {
         }
     }
 
+    @GetMapping("/{paymentId}/image")
+    public ResponseEntity<byte[]> getQrImage(@PathVariable String paymentId,
+                                             @RequestParam(defaultValue = "png") String format,
+                                             WebRequest webRequest) {
+        QrImageFormat imageFormat;
+        BankTransaction transaction;
+        try {
+            imageFormat = QrImageFormat.valueOf(format.toUpperCase());
+            transaction = findQrTransaction(paymentId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+
+        QrImage image = qrGenerator.getOrRender(buildIpsPayload(transaction), imageFormat);
+
+        if (webRequest.checkNotModified(image.etag())) {
+            return null;
+        }
+
+        long secondsLeft = Math.max(0,
+                Duration.between(LocalDateTime.now(), transaction.getPaymentUrlExpiresAt()).getSeconds());
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(imageFormat.getContentType()))
+                .cacheControl(CacheControl.maxAge(secondsLeft, TimeUnit.SECONDS).cachePrivate())
+                .eTag(image.etag())
+                .body(image.bytes());
+    }
+
+    private BankTransaction findQrTransaction(String paymentId) {
+        Long transactionId = Long.parseLong(paymentId.replace("QR-", ""));
+
+        return transactionService.findRecentById(transactionId)
+                .orElseThrow(() -> new RuntimeException("Transaction not found"));
+    }
+
+    private String buildIpsPayload(BankTransaction transaction) {
+        return qrGenerator.buildIpsPayload(
+                merchantAccountNumber,
+                merchantAccountName,
+                transaction.getAmount(),
+                transaction.getCurrency(),
+                transaction.getStan(),
+                "Car rental payment - " + transaction.getStan()
+        );
+    }
+
     @PostMapping("/validate")
     public ResponseEntity<?> validateQrCode(@RequestBody Map<String, String> request) {
         String payload = request.get("payload");
 
-        log.info("Validating QR payload: {}", payload);
+        log.debug("Validating QR payload: {}", payload);
 
-        Map<String, Object> validationResult = qrValidator.validateQrPayload(payload);
+        IpsQrValidationResult validationResult = qrValidator.validateQrPayload(payload);
 
         return ResponseEntity.ok(validationResult);
     }
 
+    /**
+     * Validates NDJSON payloads streamed in the request body and streams one
+     * NDJSON result per line back, followed by a summary line with throughput.
+     */
+    @PostMapping(value = "/validate/bulk",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_PLAIN_VALUE})
+    public void validateQrCodesBulk(@RequestParam(defaultValue = "false") boolean includeParsedData,
+                                    HttpServletRequest request,
+                                    HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        bulkQrValidationService.validate(request.getInputStream(), response.getOutputStream(), includeParsedData);
+    }
+
     @PostMapping("/confirm")
     public ResponseEntity<?> confirmQrPayment(@RequestBody ConfirmQrPaymentRequest request,
                                                HttpServletRequest httpRequest) {
@@ -185,7 +278,16 @@ public class QrPaymentController {
             String transactionId = String.valueOf(request.getTransactionId());
             String accountNumber = request.getAccountNumber() != null ? request.getAccountNumber() : "N/A";
 
-            Optional<BankTransaction> optTransaction = transactionService.findById(request.getTransactionId());
+            // Bursts per account or IP are rejected before any DB access
+            Optional<VelocityEngine.Rule> trippedRule =
+                    velocityEngine.checkAccountAttempt(request.getAccountNumber(), clientIp);
+            if (trippedRule.isPresent()) {
+                log.warn("Velocity limit {} exceeded for QR transaction: {}", trippedRule.get(), transactionId);
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .body(Map.of("error", "Too many payment attempts, please try again later"));
+            }
+
+            Optional<BankTransaction> optTransaction = transactionService.findRecentById(request.getTransactionId());
 
             if (optTransaction.isEmpty()) {
                 auditService.logQrPaymentAttempt(transactionId, accountNumber,
@@ -204,7 +306,7 @@ public class QrPaymentController {
 
             if (LocalDateTime.now().isAfter(transaction.getPaymentUrlExpiresAt())) {
                 transactionService.updateTransactionStatus(
-                        transaction.getId(),
+                        transaction,
                         TransactionStatus.EXPIRED,
                         "QR code expired"
                 );
@@ -223,19 +325,15 @@ public class QrPaymentController {
 
             Optional<BankAccount> optAccount = bankAccountService.findByAccountNumber(request.getAccountNumber());
             if (optAccount.isEmpty()) {
-                transactionService.updateTransactionStatus(
-                        transaction.getId(),
+                Long notificationId = transactionService.updateTransactionStatus(
+                        transaction,
                         TransactionStatus.FAILED,
-                        "Account not found"
-                );
-
-                String redirectUrl = pspService.notifyPaymentResult(
-                        transaction.getStan(),
-                        transaction.getGlobalTransactionId(),
-                        transaction.getAcquirerTimestamp(),
+                        "Account not found",
                         "FAILED"
                 );
 
+                String redirectUrl = pspNotificationOutbox.awaitRedirectUrl(notificationId);
+
                 auditService.logQrPaymentAttempt(transactionId, accountNumber,
                         "FAILURE", "Account not found", clientIp);
 
@@ -246,56 +344,30 @@ public class QrPaymentController {
                         ));
             }
 
-            BankAccount payerAccount = optAccount.get();
+            // Transfer and PENDING -> COMPLETED flip commit together; a concurrent confirmation rolls back
+            AuthorizationResult result = authorizationEngine.confirmQrPayment(transaction, optAccount.get());
+            String redirectUrl = result.getNotificationId() != null
+                    ? pspNotificationOutbox.awaitRedirectUrl(result.getNotificationId())
+                    : null;
 
-            if (!bankAccountService.hasSufficientFunds(payerAccount, transaction.getAmount())) {
-                transactionService.updateTransactionStatus(
-                        transaction.getId(),
-                        TransactionStatus.FAILED,
-                        "Insufficient funds"
-                );
-
-                String redirectUrl = pspService.notifyPaymentResult(
-                        transaction.getStan(),
-                        transaction.getGlobalTransactionId(),
-                        transaction.getAcquirerTimestamp(),
-                        "FAILED"
-                );
+            if (result.getOutcome() == AuthorizationResult.Outcome.ALREADY_PROCESSED) {
+                auditService.logQrPaymentAttempt(transactionId, accountNumber,
+                        "FAILURE", result.getReason(), clientIp);
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of("error", "Transaction already processed"));
+            }
 
+            if (!result.isApproved()) {
                 auditService.logQrPaymentAttempt(transactionId, accountNumber,
-                        "FAILURE", "Insufficient funds", clientIp);
+                        "FAILURE", result.getReason(), clientIp);
 
                 return ResponseEntity.badRequest()
                         .body(Map.of(
-                                "error", "Insufficient funds",
+                                "error", result.getReason(),
                                 "redirectUrl", redirectUrl != null ? redirectUrl : ""
                         ));
             }
 
-            log.info("Payer balance before QR payment: {}", payerAccount.getBalance());
-            bankAccountService.reserveFunds(payerAccount, transaction.getAmount());
-            log.info("Payer balance after QR payment: {}", payerAccount.getBalance());
-
-            Optional<BankAccount> optMerchantAccount = bankAccountService.findByAccountNumber(merchantAccountNumber);
-            if (optMerchantAccount.isPresent()) {
-                bankAccountService.releaseFunds(optMerchantAccount.get(), transaction.getAmount());
-                log.info("Merchant account credited: {}", transaction.getAmount());
-            }
-
-            transaction.setAccount(payerAccount);
-            transactionService.updateTransactionStatus(
-                    transaction.getId(),
-                    TransactionStatus.COMPLETED,
-                    null
-            );
-
-            String redirectUrl = pspService.notifyPaymentResult(
-                    transaction.getStan(),
-                    transaction.getGlobalTransactionId(),
-                    transaction.getAcquirerTimestamp(),
-                    "SUCCESS"
-            );
-
             log.info("QR payment completed - GTX: {}, redirect: {}",
                     transaction.getGlobalTransactionId(), redirectUrl);
 
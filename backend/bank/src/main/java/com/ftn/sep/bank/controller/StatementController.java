@@ -0,0 +1,91 @@
+package com.ftn.sep.bank.controller;
+
+import com.ftn.sep.bank.model.BankAccount;
+import com.ftn.sep.bank.repository.StatementRepository.Cursor;
+import com.ftn.sep.bank.service.BankAccountService;
+import com.ftn.sep.bank.service.StatementService;
+import com.ftn.sep.bank.service.StatementService.Format;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/accounts")
+@RequiredArgsConstructor
+@Slf4j
+public class StatementController {
+
+    private static final LocalDate EARLIEST = LocalDate.of(2000, 1, 1);
+
+    private final BankAccountService bankAccountService;
+    private final StatementService statementService;
+
+    /**
+     * Streams the account's statement for the days from..to (inclusive) as CSV or
+     * NDJSON. To resume an interrupted export, pass the id of the last row received
+     * as {@code resumeToken}.
+     */
+    @GetMapping("/{accountNumber}/statement")
+    public ResponseEntity<?> exportStatement(
+            @PathVariable String accountNumber,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long resumeToken) {
+
+        Format statementFormat;
+        try {
+            statementFormat = Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Unsupported format: " + format);
+        }
+
+        LocalDate fromDate = from != null ? from : EARLIEST;
+        LocalDate toDate = to != null ? to : LocalDate.now();
+        if (toDate.isBefore(fromDate)) {
+            return ResponseEntity.badRequest().body("'to' must not be before 'from'");
+        }
+
+        Optional<BankAccount> account = bankAccountService.findByAccountNumber(accountNumber);
+        if (account.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Cursor after = null;
+        if (resumeToken != null) {
+            Optional<Cursor> cursor = statementService.findResumeCursor(account.get(), resumeToken);
+            if (cursor.isEmpty()) {
+                return ResponseEntity.badRequest().body("Invalid resume token");
+            }
+            after = cursor.get();
+        }
+
+        log.info("Exporting {} statement for account {} from {} to {}",
+                statementFormat, accountNumber, fromDate, toDate);
+
+        LocalDateTime start = fromDate.atStartOfDay();
+        LocalDateTime end = toDate.plusDays(1).atStartOfDay();
+        Cursor resumeAfter = after;
+        StreamingResponseBody body = out ->
+                statementService.export(account.get(), start, end, resumeAfter, statementFormat, out);
+
+        String filename = "statement-" + accountNumber + "-" + fromDate + "-" + toDate + "." + statementFormat.extension();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(statementFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,17 @@
+package com.ftn.sep.bank.dto;
+
+import com.ftn.sep.bank.model.AuditLog;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditLogPage {
+    private List<AuditLog> items;
+    /** Cursor for the next page; null on the last page. */
+    private String nextCursor;
+}
@@ -0,0 +1,17 @@
+package com.ftn.sep.bank.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreatePaymentBatchItemResult {
+    private int index;
+    private String stan;
+    private String paymentId;
+    private String paymentUrl;
+    private String status;
+    private String message;
+}
@@ -0,0 +1,21 @@
+package com.ftn.sep.bank.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Batch of card payment sessions for one merchant. Items carry their own amount,
+ * currency, STAN and PSP timestamp; their merchantId is ignored.
+ */
+@Data
+public class CreatePaymentBatchRequest {
+
+    @NotBlank(message = "Merchant ID is required")
+    private String merchantId;
+
+    @NotEmpty(message = "At least one item is required")
+    private List<CreatePaymentRequest> items;
+}
@@ -0,0 +1,19 @@
+package com.ftn.sep.bank.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreatePaymentBatchResponse {
+    private String status;
+    private String message;
+    private int created;
+    private int replayed;
+    private int failed;
+    private List<CreatePaymentBatchItemResult> items;
+}
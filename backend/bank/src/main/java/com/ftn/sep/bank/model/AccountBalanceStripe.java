@@ -0,0 +1,34 @@
+package com.ftn.sep.bank.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One of the sub-balance rows of a hot account. Credits to a hot account land
+ * on a random stripe instead of the account row; the stripes are periodically
+ * folded into {@link BankAccount#getBalance()}.
+ */
+@Entity
+@Table(name = "account_balance_stripes", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_account_stripe", columnNames = {"accountId", "stripeIndex"})
+})
+@Data
+@NoArgsConstructor
+public class AccountBalanceStripe {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long accountId;
+
+    @Column(nullable = false)
+    private Integer stripeIndex;
+
+    @Column(nullable = false)
+    private BigDecimal balance = BigDecimal.ZERO;
+}
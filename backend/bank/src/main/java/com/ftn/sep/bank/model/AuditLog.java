@@ -7,9 +7,10 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "audit_logs", indexes = {
-        @Index(name = "idx_audit_timestamp", columnList = "timestamp"),
-        @Index(name = "idx_audit_action", columnList = "action"),
-        @Index(name = "idx_audit_entity", columnList = "entityType,entityId")
+        @Index(name = "idx_audit_time_id", columnList = "timestamp,id"),
+        @Index(name = "idx_audit_action_time_id", columnList = "action,timestamp,id"),
+        @Index(name = "idx_audit_entity_time_id", columnList = "entityType,entityId,timestamp,id"),
+        @Index(name = "idx_audit_result_time_id", columnList = "result,timestamp,id")
 })
 @Getter
 @Setter
@@ -18,8 +19,10 @@ import java.time.LocalDateTime;
 @Builder
 public class AuditLog {
 
+    // Sequence (not IDENTITY) so Hibernate can batch inserts; pooled by 50
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_log_seq")
+    @SequenceGenerator(name = "audit_log_seq", sequenceName = "audit_logs_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -1,5 +1,6 @@
 package com.ftn.sep.bank.model;
 
+import com.ftn.sep.bank.service.CardMetadataCacheListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -10,6 +11,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "bank_accounts")
+@EntityListeners(CardMetadataCacheListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
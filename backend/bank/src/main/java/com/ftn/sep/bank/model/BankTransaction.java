@@ -8,6 +8,10 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+/**
+ * Stored in the monthly range-partitioned bank_transactions table (see
+ * db/migration). Payment and global transaction ids are unique per partition.
+ */
 @Entity
 @Table(name = "bank_transactions")
 @Data
@@ -19,7 +23,7 @@ public class BankTransaction {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String globalTransactionId;
 
     @Column(nullable = false)
@@ -31,7 +35,7 @@ public class BankTransaction {
     @Column(nullable = false)
     private LocalDateTime pspTimestamp;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String paymentId;
 
     @Column(nullable = false, length = 500)
@@ -59,12 +63,24 @@ public class BankTransaction {
 
     private String failureReason;
 
-    @Column(nullable = false)
+    // Partition key: never moved to another partition
+    @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
     @Column(name = "payment_method")
     private String paymentMethod;
 
+    // Set by the settlement run that captured the transaction
+    private Long settlementRunId;
+
+    // BIN table metadata of the card, set when a card payment is authorized
+    @Enumerated(EnumType.STRING)
+    private CardType cardBrand;
+
+    private String cardIssuer;
+
+    private String cardLevel;
+
     @Version
     @Column(columnDefinition = "bigint default 0")
     private Long version = 0L;
@@ -1,5 +1,6 @@
 package com.ftn.sep.bank.model;
 
+import com.ftn.sep.bank.service.CardMetadataCacheListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -8,6 +9,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "card_info")
+@EntityListeners(CardMetadataCacheListener.class)
 @Getter
 @Setter
 @EqualsAndHashCode
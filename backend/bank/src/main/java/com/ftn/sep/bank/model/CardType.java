@@ -4,5 +4,10 @@ public enum CardType {
     VISA,
     MASTERCARD,
     AMEX,
-    DINNERS
+    DINNERS,
+    DISCOVER,
+    JCB,
+    MAESTRO,
+    UNIONPAY,
+    DINACARD
 }
@@ -0,0 +1,52 @@
+package com.ftn.sep.bank.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One leg of a double-entry ledger entry. Postings are append-only; the legs
+ * of an entry share an {@code entryId} and their amounts sum to zero.
+ * Credits are positive, debits negative. A null {@code accountId} is the
+ * bank's internal clearing account.
+ */
+@Entity
+@Immutable
+@Table(name = "ledger_postings", indexes = {
+        @Index(name = "idx_posting_account_time", columnList = "accountId,postedAt"),
+        @Index(name = "idx_posting_transaction", columnList = "transactionId"),
+        @Index(name = "idx_posting_entry", columnList = "entryId")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerPosting {
+
+    // Sequence (not IDENTITY) so Hibernate can batch inserts; pooled by 50
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_posting_seq")
+    @SequenceGenerator(name = "ledger_posting_seq", sequenceName = "ledger_postings_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private UUID entryId;
+
+    private Long accountId;
+
+    private Long transactionId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private LocalDateTime postedAt;
+
+    @Column(nullable = false, length = 100)
+    private String description;
+}
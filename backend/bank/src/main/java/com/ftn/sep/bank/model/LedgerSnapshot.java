@@ -0,0 +1,37 @@
+package com.ftn.sep.bank.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Ledger balance of an account: the sum of all its postings with
+ * {@code postedAt} before {@code cutoffAt}.
+ */
+@Entity
+@Table(name = "ledger_snapshots", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_snapshot_account_cutoff", columnNames = {"accountId", "cutoffAt"})
+})
+@Data
+@NoArgsConstructor
+public class LedgerSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long accountId;
+
+    @Column(nullable = false)
+    private LocalDateTime cutoffAt;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
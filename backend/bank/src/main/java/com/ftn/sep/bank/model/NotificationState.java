@@ -0,0 +1,7 @@
+package com.ftn.sep.bank.model;
+
+public enum NotificationState {
+    PENDING,
+    DELIVERED,
+    FAILED
+}
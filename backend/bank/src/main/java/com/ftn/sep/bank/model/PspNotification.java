@@ -0,0 +1,68 @@
+package com.ftn.sep.bank.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbox entry for a payment result that has to be delivered to the PSP.
+ * Written in the same DB transaction as the transaction status change.
+ */
+@Entity
+@Table(name = "psp_notifications", indexes = {
+        @Index(name = "idx_psp_notification_due", columnList = "state,nextAttemptAt")
+})
+@Data
+@NoArgsConstructor
+public class PspNotification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 500)
+    private String destination;
+
+    @Column(nullable = false)
+    private String stan;
+
+    @Column(nullable = false)
+    private String globalTransactionId;
+
+    @Column(nullable = false)
+    private LocalDateTime acquirerTimestamp;
+
+    @Column(nullable = false, length = 20)
+    private String paymentStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private NotificationState state = NotificationState.PENDING;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    @Column(length = 500)
+    private String redirectUrl;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime deliveredAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+}
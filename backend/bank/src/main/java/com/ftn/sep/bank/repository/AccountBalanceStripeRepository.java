@@ -0,0 +1,60 @@
+package com.ftn.sep.bank.repository;
+
+import com.ftn.sep.bank.model.AccountBalanceStripe;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface AccountBalanceStripeRepository extends JpaRepository<AccountBalanceStripe, Long> {
+
+    /**
+     * Adds the amount to one stripe. Returns 0 if the stripe row does not exist yet.
+     */
+    @Modifying
+    @Query("UPDATE AccountBalanceStripe s SET s.balance = s.balance + :amount " +
+            "WHERE s.accountId = :accountId AND s.stripeIndex = :stripeIndex")
+    int credit(@Param("accountId") Long accountId,
+               @Param("stripeIndex") int stripeIndex,
+               @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query(value = "INSERT INTO account_balance_stripes (account_id, stripe_index, balance) " +
+            "SELECT :accountId, g, 0 FROM generate_series(0, :stripes - 1) g " +
+            "ON CONFLICT (account_id, stripe_index) DO NOTHING", nativeQuery = true)
+    int createStripes(@Param("accountId") Long accountId, @Param("stripes") int stripes);
+
+    /**
+     * Account balance plus all of its stripes, read in one statement so a
+     * concurrent consolidation is never counted twice or missed.
+     */
+    @Query("SELECT a.balance + COALESCE((SELECT SUM(s.balance) FROM AccountBalanceStripe s " +
+            "WHERE s.accountId = a.id), 0) FROM BankAccount a WHERE a.id = :accountId")
+    BigDecimal currentBalance(@Param("accountId") Long accountId);
+
+    @Query("SELECT DISTINCT s.accountId FROM AccountBalanceStripe s WHERE s.balance <> 0")
+    List<Long> findAccountIdsWithPendingBalance();
+
+    /**
+     * Locks the non-empty stripes of the account; concurrent credits to them
+     * wait until the consolidating transaction commits.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AccountBalanceStripe s WHERE s.accountId = :accountId AND s.balance <> 0")
+    List<AccountBalanceStripe> findNonEmptyForUpdate(@Param("accountId") Long accountId);
+
+    /**
+     * Locks every stripe of the account; credits to any of them wait until the
+     * locking transaction ends.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AccountBalanceStripe s WHERE s.accountId = :accountId")
+    List<AccountBalanceStripe> findAllForUpdate(@Param("accountId") Long accountId);
+}
@@ -4,13 +4,9 @@ import com.ftn.sep.bank.model.AuditLog;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDateTime;
-import java.util.List;
-
+/**
+ * Writes audit entries. Reads go through {@link AuditQueryRepository}, which pages by keyset.
+ */
 @Repository
 public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
-
-    List<AuditLog> findByActionAndTimestampBetween(String action, LocalDateTime start, LocalDateTime end);
-
-    List<AuditLog> findByEntityTypeAndEntityId(String entityType, String entityId);
 }
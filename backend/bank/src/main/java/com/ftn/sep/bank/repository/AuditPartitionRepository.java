@@ -0,0 +1,17 @@
+package com.ftn.sep.bank.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Partition maintenance for the monthly partitioned audit_logs table (PostgreSQL).
+ * Partitions are named audit_logs_pYYYYMM and archived to audit_logs_archive.
+ */
+@Repository
+public class AuditPartitionRepository extends MonthlyPartitionRepository {
+
+    public AuditPartitionRepository(JdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate, "audit_logs", "ensure_audit_log_partitions",
+                "audit_logs_archive", "first_entry_id", "last_entry_id");
+    }
+}
@@ -0,0 +1,121 @@
+package com.ftn.sep.bank.repository;
+
+import com.ftn.sep.bank.model.AuditLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keyset (seek) reads of audit_logs in (timestamp, id) order (PostgreSQL). Every
+ * filter combination is served by one of the (filter..., timestamp, id) indexes,
+ * so a page costs the same wherever it is in the result; time bounds prune the
+ * monthly partitions.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AuditQueryRepository {
+
+    /**
+     * Filters are optional (null: any); from is inclusive, to exclusive.
+     */
+    public record AuditQuery(String action, String entityType, String entityId, String result,
+                             LocalDateTime from, LocalDateTime to, boolean descending) {
+    }
+
+    /**
+     * Position of the last row returned; the next page starts after it.
+     */
+    public record Cursor(LocalDateTime timestamp, long id) {
+    }
+
+    private static final RowMapper<AuditLog> AUDIT_LOG_MAPPER = (rs, rowNum) -> AuditLog.builder()
+            .id(rs.getLong("id"))
+            .timestamp(rs.getTimestamp("timestamp").toLocalDateTime())
+            .action(rs.getString("action"))
+            .entityType(rs.getString("entity_type"))
+            .entityId(rs.getString("entity_id"))
+            .details(rs.getString("details"))
+            .ipAddress(rs.getString("ip_address"))
+            .result(rs.getString("result"))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<AuditLog> findPage(AuditQuery query, Cursor after, int limit) {
+        List<Object> args = new ArrayList<>();
+        String sql = select(query, after, args) + " LIMIT ?";
+        args.add(limit);
+        return jdbcTemplate.query(sql, AUDIT_LOG_MAPPER, args.toArray());
+    }
+
+    /**
+     * Streams every matching row after the cursor through a forward-only cursor of
+     * {@code fetchSize} rows. Must run inside a transaction, otherwise the driver
+     * reads the whole result into memory.
+     */
+    public void stream(AuditQuery query, Cursor after, int fetchSize, RowCallbackHandler handler) {
+        List<Object> args = new ArrayList<>();
+        String sql = select(query, after, args);
+        jdbcTemplate.query(connection -> {
+                    PreparedStatement ps = connection.prepareStatement(sql,
+                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    ps.setFetchSize(fetchSize);
+                    for (int i = 0; i < args.size(); i++) {
+                        ps.setObject(i + 1, args.get(i));
+                    }
+                    return ps;
+                },
+                handler);
+    }
+
+    private static String select(AuditQuery query, Cursor after, List<Object> args) {
+        StringBuilder sql = new StringBuilder("""
+                SELECT id, timestamp, action, entity_type, entity_id, details, ip_address, result
+                FROM audit_logs
+                WHERE TRUE""");
+        if (query.action() != null) {
+            sql.append(" AND action = ?");
+            args.add(query.action());
+        }
+        if (query.entityType() != null) {
+            sql.append(" AND entity_type = ?");
+            args.add(query.entityType());
+        }
+        if (query.entityId() != null) {
+            sql.append(" AND entity_id = ?");
+            args.add(query.entityId());
+        }
+        if (query.result() != null) {
+            sql.append(" AND result = ?");
+            args.add(query.result());
+        }
+        if (query.from() != null) {
+            sql.append(" AND timestamp >= ?");
+            args.add(Timestamp.valueOf(query.from()));
+        }
+        if (query.to() != null) {
+            sql.append(" AND timestamp < ?");
+            args.add(Timestamp.valueOf(query.to()));
+        }
+        if (after != null) {
+            // Partition pruning ignores row comparisons; the plain bound skips months already paged through
+            sql.append(query.descending()
+                    ? " AND timestamp <= ? AND (timestamp, id) < (?, ?)"
+                    : " AND timestamp >= ? AND (timestamp, id) > (?, ?)");
+            args.add(Timestamp.valueOf(after.timestamp()));
+            args.add(Timestamp.valueOf(after.timestamp()));
+            args.add(after.id());
+        }
+        sql.append(query.descending() ? " ORDER BY timestamp DESC, id DESC" : " ORDER BY timestamp, id");
+        return sql.toString();
+    }
+}
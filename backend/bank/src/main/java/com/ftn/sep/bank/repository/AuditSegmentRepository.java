@@ -0,0 +1,90 @@
+package com.ftn.sep.bank.repository;
+
+import com.ftn.sep.bank.model.AuditLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Bulk loading of sealed audit segments into audit_logs (PostgreSQL). Shipments
+ * are keyed by the node id of the segment directory and the segment id.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AuditSegmentRepository {
+
+    public record Shipment(long segmentId, long firstSequence, int recordCount, byte[] lastHash) {
+
+        public long nextSequence() {
+            return firstSequence + recordCount;
+        }
+    }
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final RowMapper<Shipment> SHIPMENT_MAPPER = (rs, rowNum) -> new Shipment(
+            rs.getLong("segment_id"),
+            rs.getLong("first_sequence"),
+            rs.getInt("record_count"),
+            rs.getBytes("last_hash"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the entries with JDBC batching. Each row takes its own nextval from
+     * audit_logs_seq (INCREMENT BY 50), so it never falls into a block pooled by Hibernate.
+     */
+    public void insertEntries(List<AuditLog> entries) {
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO audit_logs (id, timestamp, action, entity_type, entity_id, details, ip_address, result)
+                        VALUES (nextval('audit_logs_seq'), ?, ?, ?, ?, ?, ?, ?)
+                        """,
+                entries, BATCH_SIZE, (ps, entry) -> {
+                    ps.setTimestamp(1, Timestamp.valueOf(entry.getTimestamp()));
+                    ps.setString(2, entry.getAction());
+                    ps.setString(3, entry.getEntityType());
+                    ps.setString(4, entry.getEntityId());
+                    ps.setString(5, entry.getDetails());
+                    ps.setString(6, entry.getIpAddress());
+                    ps.setString(7, entry.getResult());
+                });
+    }
+
+    public void recordShipment(String nodeId, Shipment shipment, LocalDateTime shippedAt) {
+        jdbcTemplate.update("""
+                        INSERT INTO audit_segment_shipments
+                            (node_id, segment_id, first_sequence, record_count, last_hash, shipped_at)
+                        VALUES (?, ?, ?, ?, ?, ?)
+                        """,
+                nodeId, shipment.segmentId(), shipment.firstSequence(), shipment.recordCount(), shipment.lastHash(),
+                Timestamp.valueOf(shippedAt));
+    }
+
+    public Optional<Shipment> findShipment(String nodeId, long segmentId) {
+        return jdbcTemplate.query("""
+                        SELECT segment_id, first_sequence, record_count, last_hash
+                        FROM audit_segment_shipments
+                        WHERE node_id = ? AND segment_id = ?
+                        """,
+                SHIPMENT_MAPPER, nodeId, segmentId)
+                .stream().findFirst();
+    }
+
+    public Optional<Shipment> findLastShipment(String nodeId) {
+        return jdbcTemplate.query("""
+                        SELECT segment_id, first_sequence, record_count, last_hash
+                        FROM audit_segment_shipments
+                        WHERE node_id = ?
+                        ORDER BY segment_id DESC
+                        LIMIT 1
+                        """,
+                SHIPMENT_MAPPER, nodeId)
+                .stream().findFirst();
+    }
+}
@@ -1,13 +1,44 @@
 package com.ftn.sep.bank.repository;
 
 import com.ftn.sep.bank.model.BankAccount;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BankAccountRepository extends JpaRepository<BankAccount, Long> {
 
     Optional<BankAccount> findByAccountNumber(String accountNumber);
+
+    /**
+     * Debits the account only if the balance covers the amount.
+     * Returns 1 on success, 0 if funds are insufficient.
+     */
+    @Modifying
+    @Query("UPDATE BankAccount a SET a.balance = a.balance - :amount " +
+            "WHERE a.id = :accountId AND a.balance >= :amount")
+    int debitIfSufficient(@Param("accountId") Long accountId, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("UPDATE BankAccount a SET a.balance = a.balance + :amount WHERE a.id = :accountId")
+    int credit(@Param("accountId") Long accountId, @Param("amount") BigDecimal amount);
+
+    /**
+     * Locks the account row; debits and credits of the account wait until the
+     * locking transaction ends.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM BankAccount a WHERE a.id = :accountId")
+    Optional<BankAccount> findByIdForUpdate(@Param("accountId") Long accountId);
+
+    @Query("SELECT a.id FROM BankAccount a ORDER BY a.id")
+    List<Long> findAllIds();
 }
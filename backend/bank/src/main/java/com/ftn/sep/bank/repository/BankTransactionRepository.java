@@ -1,8 +1,13 @@
 package com.ftn.sep.bank.repository;
 
+import com.ftn.sep.bank.model.BankAccount;
 import com.ftn.sep.bank.model.BankTransaction;
+import com.ftn.sep.bank.model.CardType;
 import com.ftn.sep.bank.model.TransactionStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -12,11 +17,58 @@ import java.util.Optional;
 @Repository
 public interface BankTransactionRepository extends JpaRepository<BankTransaction, Long> {
 
-    Optional<BankTransaction> findByPaymentId(String paymentId);
+    /*
+     * bank_transactions is partitioned by created_at; lookups are bounded by it
+     * so that only the partitions of the hot window are scanned.
+     */
 
-    Optional<BankTransaction> findByGlobalTransactionId(String globalTransactionId);
+    Optional<BankTransaction> findByIdAndCreatedAt(Long id, LocalDateTime createdAt);
 
-    Optional<BankTransaction> findByStan(String stan);
+    Optional<BankTransaction> findByIdAndCreatedAtGreaterThanEqual(Long id, LocalDateTime createdFrom);
 
-    List<BankTransaction> findByStatusAndPaymentUrlExpiresAtBefore(TransactionStatus status, LocalDateTime time);
+    Optional<BankTransaction> findByPaymentIdAndCreatedAtGreaterThanEqual(String paymentId, LocalDateTime createdFrom);
+
+    Optional<BankTransaction> findByGlobalTransactionIdAndCreatedAtGreaterThanEqual(String globalTransactionId,
+                                                                                   LocalDateTime createdFrom);
+
+    Optional<BankTransaction> findFirstByStanAndCreatedAtGreaterThanEqualOrderByCreatedAtDesc(String stan,
+                                                                                            LocalDateTime createdFrom);
+
+    List<BankTransaction> findByStatusAndPaymentUrlExpiresAtBeforeAndCreatedAtGreaterThanEqual(
+            TransactionStatus status, LocalDateTime time, LocalDateTime createdFrom);
+
+    /**
+     * Compare-and-set status transition. Bumps the version so that concurrent
+     * entity-based updates still fail their optimistic lock check.
+     */
+    @Modifying
+    @Query("UPDATE BankTransaction t SET t.status = :newStatus, t.failureReason = :failureReason, " +
+            "t.version = t.version + 1 WHERE t.id = :id AND t.status = :expectedStatus")
+    int compareAndSetStatus(@Param("id") Long id,
+                            @Param("expectedStatus") TransactionStatus expectedStatus,
+                            @Param("newStatus") TransactionStatus newStatus,
+                            @Param("failureReason") String failureReason);
+
+    @Modifying
+    @Query("UPDATE BankTransaction t SET t.status = :newStatus, t.account = :account, " +
+            "t.version = t.version + 1 WHERE t.id = :id AND t.status = :expectedStatus")
+    int compareAndSetStatusWithAccount(@Param("id") Long id,
+                                       @Param("expectedStatus") TransactionStatus expectedStatus,
+                                       @Param("newStatus") TransactionStatus newStatus,
+                                       @Param("account") BankAccount account);
+
+    /**
+     * PENDING -> RESERVED flip of a card payment that also records the card's BIN metadata.
+     */
+    @Modifying
+    @Query("UPDATE BankTransaction t SET t.status = :newStatus, t.account = :account, " +
+            "t.cardBrand = :cardBrand, t.cardIssuer = :cardIssuer, t.cardLevel = :cardLevel, " +
+            "t.version = t.version + 1 WHERE t.id = :id AND t.status = :expectedStatus")
+    int compareAndSetStatusWithCard(@Param("id") Long id,
+                                    @Param("expectedStatus") TransactionStatus expectedStatus,
+                                    @Param("newStatus") TransactionStatus newStatus,
+                                    @Param("account") BankAccount account,
+                                    @Param("cardBrand") CardType cardBrand,
+                                    @Param("cardIssuer") String cardIssuer,
+                                    @Param("cardLevel") String cardLevel);
 }
@@ -2,6 +2,8 @@ package com.ftn.sep.bank.repository;
 
 import com.ftn.sep.bank.model.CardInfo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -10,4 +12,7 @@ import java.util.Optional;
 public interface CardInfoRepository extends JpaRepository<CardInfo, Long> {
 
     Optional<CardInfo> findByPanHash(String panHash);
+
+    @Query("SELECT c FROM CardInfo c JOIN FETCH c.account WHERE c.panHash = :panHash")
+    Optional<CardInfo> findWithAccountByPanHash(@Param("panHash") String panHash);
 }
@@ -0,0 +1,54 @@
+package com.ftn.sep.bank.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Set-based ledger queries used by the snapshot rebuild (PostgreSQL).
+ */
+@Repository
+@RequiredArgsConstructor
+public class LedgerJdbcRepository {
+
+    public record DailyTotal(LocalDateTime day, BigDecimal total) {
+    }
+
+    public record SnapshotRow(LocalDateTime cutoffAt, BigDecimal balance) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Net postings of the account per day, for postings before the cutoff.
+     */
+    public List<DailyTotal> dailyTotals(Long accountId, LocalDateTime cutoff) {
+        return jdbcTemplate.query("""
+                        SELECT date_trunc('day', posted_at) AS day, SUM(amount) AS total
+                        FROM ledger_postings
+                        WHERE account_id = ? AND posted_at < ?
+                        GROUP BY 1
+                        ORDER BY 1
+                        """,
+                (rs, rowNum) -> new DailyTotal(rs.getTimestamp("day").toLocalDateTime(), rs.getBigDecimal("total")),
+                accountId, Timestamp.valueOf(cutoff));
+    }
+
+    public void insertSnapshots(Long accountId, List<SnapshotRow> snapshots, LocalDateTime createdAt) {
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO ledger_snapshots (account_id, cutoff_at, balance, created_at)
+                        VALUES (?, ?, ?, ?)
+                        """,
+                snapshots, 500, (ps, snapshot) -> {
+                    ps.setLong(1, accountId);
+                    ps.setTimestamp(2, Timestamp.valueOf(snapshot.cutoffAt()));
+                    ps.setBigDecimal(3, snapshot.balance());
+                    ps.setTimestamp(4, Timestamp.valueOf(createdAt));
+                });
+    }
+}
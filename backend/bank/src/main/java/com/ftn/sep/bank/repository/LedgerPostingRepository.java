@@ -0,0 +1,37 @@
+package com.ftn.sep.bank.repository;
+
+import com.ftn.sep.bank.model.LedgerPosting;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface LedgerPostingRepository extends JpaRepository<LedgerPosting, Long> {
+
+    List<LedgerPosting> findByTransactionIdOrderById(Long transactionId);
+
+    @Query("SELECT COALESCE(SUM(p.amount), 0) FROM LedgerPosting p " +
+            "WHERE p.accountId = :accountId AND p.postedAt < :to")
+    BigDecimal sumBefore(@Param("accountId") Long accountId, @Param("to") LocalDateTime to);
+
+    @Query("SELECT COALESCE(SUM(p.amount), 0) FROM LedgerPosting p " +
+            "WHERE p.accountId = :accountId AND p.postedAt >= :from AND p.postedAt < :to")
+    BigDecimal sumBetween(@Param("accountId") Long accountId,
+                          @Param("from") LocalDateTime from,
+                          @Param("to") LocalDateTime to);
+
+    @Query("SELECT COALESCE(SUM(p.amount), 0) FROM LedgerPosting p WHERE p.accountId = :accountId")
+    BigDecimal sumAll(@Param("accountId") Long accountId);
+
+    boolean existsByAccountIdAndDescription(Long accountId, String description);
+
+    @Query("SELECT a.id FROM BankAccount a WHERE NOT EXISTS " +
+            "(SELECT 1 FROM LedgerPosting p WHERE p.accountId = a.id AND p.description = :description) " +
+            "ORDER BY a.id")
+    List<Long> findAccountIdsWithoutEntry(@Param("description") String description);
+}
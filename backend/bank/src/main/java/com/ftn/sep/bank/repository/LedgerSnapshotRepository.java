@@ -0,0 +1,22 @@
+package com.ftn.sep.bank.repository;
+
+import com.ftn.sep.bank.model.LedgerSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface LedgerSnapshotRepository extends JpaRepository<LedgerSnapshot, Long> {
+
+    Optional<LedgerSnapshot> findTopByAccountIdAndCutoffAtLessThanEqualOrderByCutoffAtDesc(
+            Long accountId, LocalDateTime at);
+
+    @Modifying
+    @Query("DELETE FROM LedgerSnapshot s WHERE s.accountId = :accountId")
+    int deleteByAccountId(@Param("accountId") Long accountId);
+}
@@ -0,0 +1,152 @@
+package com.ftn.sep.bank.repository;
+
+import com.ftn.sep.bank.util.ArchiveChunk;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Partition maintenance for a table range-partitioned by month (PostgreSQL).
+ * Partitions are named {@code <table>_pYYYYMM} and created by the table's
+ * {@code ensure_*_partitions} function; retired partitions can be copied into an
+ * archive table as gzip-compressed NDJSON chunks of rows in id order.
+ */
+public abstract class MonthlyPartitionRepository {
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    public record Partition(String name, YearMonth month, boolean detachPending) {
+    }
+
+    public record ArchiveResult(long rowCount, long compressedBytes) {
+    }
+
+    protected final JdbcTemplate jdbcTemplate;
+    private final String table;
+    private final String ensureFunction;
+    private final String archiveTable;
+    private final String firstIdColumn;
+    private final String lastIdColumn;
+    private final String partitionPrefix;
+    private final Pattern partitionName;
+
+    protected MonthlyPartitionRepository(JdbcTemplate jdbcTemplate, String table, String ensureFunction,
+                                         String archiveTable, String firstIdColumn, String lastIdColumn) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.table = table;
+        this.ensureFunction = ensureFunction;
+        this.archiveTable = archiveTable;
+        this.firstIdColumn = firstIdColumn;
+        this.lastIdColumn = lastIdColumn;
+        this.partitionPrefix = table + "_p";
+        this.partitionName = Pattern.compile(Pattern.quote(partitionPrefix) + "\\d{6}");
+    }
+
+    /**
+     * Creates any missing partitions from the current month up to {@code monthsAhead}
+     * months ahead. Returns the number created.
+     */
+    public int ensurePartitions(int monthsAhead) {
+        Integer created = jdbcTemplate.queryForObject(
+                "SELECT " + ensureFunction + "(date_trunc('month', now())::date, ?)",
+                Integer.class, monthsAhead);
+        return created != null ? created : 0;
+    }
+
+    /**
+     * Attached partitions, oldest first. Partitions whose concurrent detach was
+     * interrupted are reported with {@code detachPending}.
+     */
+    public List<Partition> findAttachedPartitions() {
+        return jdbcTemplate.query("""
+                        SELECT c.relname, i.inhdetachpending
+                        FROM pg_inherits i
+                        JOIN pg_class c ON c.oid = i.inhrelid
+                        WHERE i.inhparent = ?::regclass
+                        ORDER BY c.relname
+                        """,
+                (rs, rowNum) -> toPartition(rs.getString("relname"), rs.getBoolean("inhdetachpending")),
+                table);
+    }
+
+    /**
+     * Tables that were detached but not retired yet, e.g. after a crash mid-archive.
+     */
+    public List<Partition> findDetachedPartitions() {
+        return jdbcTemplate.query("""
+                        SELECT c.relname
+                        FROM pg_class c
+                        WHERE c.relname LIKE ?
+                          AND c.relkind = 'r' AND NOT c.relispartition
+                          AND c.relnamespace = current_schema()::regnamespace
+                        ORDER BY c.relname
+                        """,
+                (rs, rowNum) -> toPartition(rs.getString("relname"), false),
+                partitionPrefix.replace("_", "\\_") + "%")
+                .stream()
+                .filter(partition -> partition.month() != null)
+                .toList();
+    }
+
+    /**
+     * Detaches the partition without blocking writers on the other partitions.
+     * Must run outside a transaction.
+     */
+    public void detach(Partition partition) {
+        String mode = partition.detachPending() ? "FINALIZE" : "CONCURRENTLY";
+        jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition.name() + " " + mode);
+    }
+
+    /**
+     * Replaces the archive of the detached partition's month with its rows, in
+     * chunks of {@code chunkSize}. Run it in the transaction that drops the
+     * partition, so a crash leaves either the table or its archive.
+     */
+    public ArchiveResult copyToArchive(Partition partition, int chunkSize, LocalDateTime archivedAt) {
+        jdbcTemplate.update("DELETE FROM " + archiveTable + " WHERE partition_month = ?", partition.month().atDay(1));
+
+        long afterId = 0;
+        long rowCount = 0;
+        long compressedBytes = 0;
+        while (true) {
+            ArchiveChunk chunk = new ArchiveChunk();
+            jdbcTemplate.query("SELECT * FROM " + partition.name() + " WHERE id > ? ORDER BY id LIMIT ?",
+                    chunk::add, afterId, chunkSize);
+            if (chunk.rowCount() == 0) {
+                break;
+            }
+
+            byte[] payload = chunk.finish();
+            jdbcTemplate.update("INSERT INTO " + archiveTable
+                            + " (partition_month, " + firstIdColumn + ", " + lastIdColumn
+                            + ", row_count, payload, archived_at) VALUES (?, ?, ?, ?, ?, ?)",
+                    partition.month().atDay(1), chunk.firstId(), chunk.lastId(), chunk.rowCount(), payload,
+                    Timestamp.valueOf(archivedAt));
+
+            rowCount += chunk.rowCount();
+            compressedBytes += payload.length;
+            afterId = chunk.lastId();
+            if (chunk.rowCount() < chunkSize) {
+                break;
+            }
+        }
+        return new ArchiveResult(rowCount, compressedBytes);
+    }
+
+    public void drop(Partition partition) {
+        jdbcTemplate.execute("DROP TABLE " + partition.name());
+    }
+
+    private Partition toPartition(String name, boolean detachPending) {
+        if (!partitionName.matcher(name).matches()) {
+            return new Partition(name, null, detachPending);
+        }
+        YearMonth month = YearMonth.parse(name.substring(partitionPrefix.length()), PARTITION_SUFFIX);
+        return new Partition(name, month, detachPending);
+    }
+}
@@ -0,0 +1,160 @@
+package com.ftn.sep.bank.repository;
+
+import com.ftn.sep.bank.model.BankTransaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Idempotency keys for payment creation, one per (merchant, STAN, channel) (PostgreSQL).
+ */
+@Repository
+@RequiredArgsConstructor
+public class PaymentIdempotencyRepository {
+
+    public record IdempotencyKey(BigDecimal amount, String currency, Long transactionId,
+                                 LocalDateTime transactionCreatedAt) {
+    }
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the key; returns false if it already exists. A concurrent claim of the
+     * same key blocks until the other transaction ends.
+     */
+    public boolean claim(String merchantId, String stan, String channel, BigDecimal amount, String currency,
+                         LocalDateTime now) {
+        return jdbcTemplate.update("""
+                        INSERT INTO payment_idempotency_keys (merchant_id, stan, channel, amount, currency, created_at)
+                        VALUES (?, ?, ?, ?, ?, ?)
+                        ON CONFLICT DO NOTHING
+                        """,
+                merchantId, stan, channel, amount, currency, Timestamp.valueOf(now)) == 1;
+    }
+
+    /**
+     * Claims the keys of one merchant's transactions in a single statement and
+     * returns the STANs that were claimed. Keys are inserted in STAN order so
+     * concurrent batches lock overlapping keys in the same order.
+     */
+    public Set<String> claimAll(String merchantId, String channel, List<BankTransaction> transactions,
+                                LocalDateTime now) {
+        List<BankTransaction> sorted = transactions.stream()
+                .sorted(Comparator.comparing(BankTransaction::getStan))
+                .toList();
+        String[] stans = new String[sorted.size()];
+        BigDecimal[] amounts = new BigDecimal[sorted.size()];
+        String[] currencies = new String[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            stans[i] = sorted.get(i).getStan();
+            amounts[i] = sorted.get(i).getAmount();
+            currencies[i] = sorted.get(i).getCurrency();
+        }
+
+        List<String> claimed = jdbcTemplate.query(connection -> {
+                    PreparedStatement ps = connection.prepareStatement("""
+                            INSERT INTO payment_idempotency_keys (merchant_id, stan, channel, amount, currency, created_at)
+                            SELECT ?, k.stan, ?, k.amount, k.currency, ?
+                            FROM unnest(?::text[], ?::numeric[], ?::text[])
+                                WITH ORDINALITY AS k(stan, amount, currency, ord)
+                            ORDER BY k.ord
+                            ON CONFLICT DO NOTHING
+                            RETURNING stan
+                            """);
+                    ps.setString(1, merchantId);
+                    ps.setString(2, channel);
+                    ps.setTimestamp(3, Timestamp.valueOf(now));
+                    ps.setArray(4, connection.createArrayOf("text", stans));
+                    ps.setArray(5, connection.createArrayOf("numeric", amounts));
+                    ps.setArray(6, connection.createArrayOf("text", currencies));
+                    return ps;
+                },
+                (rs, rowNum) -> rs.getString("stan"));
+        return new HashSet<>(claimed);
+    }
+
+    public void attachTransaction(String merchantId, String stan, String channel, Long transactionId,
+                                  LocalDateTime transactionCreatedAt) {
+        jdbcTemplate.update("""
+                        UPDATE payment_idempotency_keys SET transaction_id = ?, transaction_created_at = ?
+                        WHERE merchant_id = ? AND stan = ? AND channel = ?
+                        """,
+                transactionId, Timestamp.valueOf(transactionCreatedAt), merchantId, stan, channel);
+    }
+
+    public void attachTransactions(String channel, List<BankTransaction> transactions) {
+        jdbcTemplate.batchUpdate("""
+                        UPDATE payment_idempotency_keys SET transaction_id = ?, transaction_created_at = ?
+                        WHERE merchant_id = ? AND stan = ? AND channel = ?
+                        """,
+                transactions, BATCH_SIZE, (ps, transaction) -> {
+                    ps.setLong(1, transaction.getId());
+                    ps.setTimestamp(2, Timestamp.valueOf(transaction.getCreatedAt()));
+                    ps.setString(3, transaction.getMerchantId());
+                    ps.setString(4, transaction.getStan());
+                    ps.setString(5, channel);
+                });
+    }
+
+    public Optional<IdempotencyKey> find(String merchantId, String stan, String channel) {
+        return jdbcTemplate.query("""
+                        SELECT amount, currency, transaction_id, transaction_created_at
+                        FROM payment_idempotency_keys
+                        WHERE merchant_id = ? AND stan = ? AND channel = ?
+                        """,
+                (rs, rowNum) -> mapKey(rs),
+                merchantId, stan, channel).stream().findFirst();
+    }
+
+    /**
+     * Keys of one merchant, by STAN.
+     */
+    public Map<String, IdempotencyKey> findAll(String merchantId, String channel, List<String> stans) {
+        Map<String, IdempotencyKey> keys = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+                    PreparedStatement ps = connection.prepareStatement("""
+                            SELECT stan, amount, currency, transaction_id, transaction_created_at
+                            FROM payment_idempotency_keys
+                            WHERE merchant_id = ? AND channel = ? AND stan = ANY (?)
+                            """);
+                    ps.setString(1, merchantId);
+                    ps.setString(2, channel);
+                    ps.setArray(3, connection.createArrayOf("text", stans.toArray()));
+                    return ps;
+                },
+                rs -> {
+                    keys.put(rs.getString("stan"), mapKey(rs));
+                });
+        return keys;
+    }
+
+    public int deleteOlderThan(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM payment_idempotency_keys WHERE created_at < ?",
+                Timestamp.valueOf(cutoff));
+    }
+
+    private static IdempotencyKey mapKey(ResultSet rs) throws SQLException {
+        Timestamp createdAt = rs.getTimestamp("transaction_created_at");
+        return new IdempotencyKey(
+                rs.getBigDecimal("amount"),
+                rs.getString("currency"),
+                rs.getObject("transaction_id", Long.class),
+                createdAt != null ? createdAt.toLocalDateTime() : null);
+    }
+}
@@ -0,0 +1,17 @@
+package com.ftn.sep.bank.repository;
+
+import com.ftn.sep.bank.model.NotificationState;
+import com.ftn.sep.bank.model.PspNotification;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PspNotificationRepository extends JpaRepository<PspNotification, Long> {
+
+    List<PspNotification> findByStateAndNextAttemptAtBeforeOrderByNextAttemptAt(
+            NotificationState state, LocalDateTime time, Pageable pageable);
+}
@@ -0,0 +1,192 @@
+package com.ftn.sep.bank.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Settlement runs and the set-based capture of RESERVED transactions (PostgreSQL).
+ */
+@Repository
+@RequiredArgsConstructor
+public class SettlementRepository {
+
+    public enum RunStatus {
+        /** Batches are still being captured. */
+        RUNNING,
+        /** Every batch is captured; the report is not written yet. */
+        SETTLED,
+        COMPLETED
+    }
+
+    public record SettlementRun(Long id, String merchantId, LocalDate businessDate, Long accountId,
+                                RunStatus status, LocalDateTime lastCreatedAt, Long lastTransactionId,
+                                long transactionCount, BigDecimal totalAmount, String reportPath) {
+    }
+
+    public record CapturedTransaction(Long id, LocalDateTime createdAt, BigDecimal amount) {
+    }
+
+    private static final int REPORT_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<String> findMerchantsWithReserved(LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.queryForList("""
+                        SELECT DISTINCT merchant_id FROM bank_transactions
+                        WHERE status = 'RESERVED' AND created_at >= ? AND created_at < ?
+                        """,
+                String.class, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    public boolean hasReserved(String merchantId, LocalDateTime from, LocalDateTime to) {
+        Boolean reserved = jdbcTemplate.queryForObject("""
+                        SELECT EXISTS (SELECT 1 FROM bank_transactions
+                                       WHERE merchant_id = ? AND status = 'RESERVED'
+                                         AND created_at >= ? AND created_at < ?)
+                        """,
+                Boolean.class, merchantId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        return Boolean.TRUE.equals(reserved);
+    }
+
+    /**
+     * Starts the run of the merchant's business day, or returns the existing one.
+     */
+    public SettlementRun startRun(String merchantId, LocalDate businessDate, Long accountId, LocalDateTime now) {
+        jdbcTemplate.update("""
+                        INSERT INTO settlement_runs (merchant_id, business_date, account_id, status, started_at, updated_at)
+                        VALUES (?, ?, ?, ?, ?, ?)
+                        ON CONFLICT (merchant_id, business_date) DO NOTHING
+                        """,
+                merchantId, businessDate, accountId, RunStatus.RUNNING.name(),
+                Timestamp.valueOf(now), Timestamp.valueOf(now));
+        return jdbcTemplate.queryForObject(
+                "SELECT * FROM settlement_runs WHERE merchant_id = ? AND business_date = ?",
+                (rs, rowNum) -> mapRun(rs), merchantId, businessDate);
+    }
+
+    public Optional<SettlementRun> findRun(Long runId) {
+        return jdbcTemplate.query("SELECT * FROM settlement_runs WHERE id = ?",
+                (rs, rowNum) -> mapRun(rs), runId).stream().findFirst();
+    }
+
+    public List<SettlementRun> findUnfinishedRuns() {
+        return jdbcTemplate.query("SELECT * FROM settlement_runs WHERE status <> ? ORDER BY business_date, id",
+                (rs, rowNum) -> mapRun(rs), RunStatus.COMPLETED.name());
+    }
+
+    /**
+     * Flips the next {@code limit} RESERVED transactions of the merchant's day after
+     * the cursor to COMPLETED and tags them with the run. Returns the captured rows
+     * in no particular order.
+     */
+    public List<CapturedTransaction> captureBatch(SettlementRun run, LocalDateTime from, LocalDateTime to,
+                                                  LocalDateTime cursorCreatedAt, long cursorId, int limit) {
+        return jdbcTemplate.query("""
+                        WITH batch AS (
+                            SELECT id, created_at FROM bank_transactions
+                            WHERE merchant_id = ? AND status = 'RESERVED'
+                              AND created_at >= ? AND created_at < ?
+                              AND (created_at, id) > (?, ?)
+                            ORDER BY created_at, id
+                            LIMIT ?
+                            FOR UPDATE
+                        )
+                        UPDATE bank_transactions t
+                        SET status = 'COMPLETED', settlement_run_id = ?, version = t.version + 1
+                        FROM batch
+                        WHERE t.id = batch.id AND t.created_at = batch.created_at AND t.status = 'RESERVED'
+                        RETURNING t.id, t.created_at, t.amount
+                        """,
+                (rs, rowNum) -> new CapturedTransaction(
+                        rs.getLong("id"),
+                        rs.getTimestamp("created_at").toLocalDateTime(),
+                        rs.getBigDecimal("amount")),
+                run.merchantId(), Timestamp.valueOf(from), Timestamp.valueOf(to),
+                Timestamp.valueOf(cursorCreatedAt), cursorId, limit, run.id());
+    }
+
+    /**
+     * Puts a COMPLETED run back to RUNNING with its cursor cleared, keeping its
+     * totals. Returns false if the run was not COMPLETED.
+     */
+    public boolean reopenRun(Long runId, LocalDateTime now) {
+        return jdbcTemplate.update("""
+                        UPDATE settlement_runs
+                        SET status = ?, last_created_at = NULL, last_transaction_id = NULL,
+                            completed_at = NULL, updated_at = ?
+                        WHERE id = ? AND status = ?
+                        """,
+                RunStatus.RUNNING.name(), Timestamp.valueOf(now), runId, RunStatus.COMPLETED.name()) > 0;
+    }
+
+    public void saveCheckpoint(Long runId, LocalDateTime lastCreatedAt, Long lastTransactionId,
+                               int capturedCount, BigDecimal capturedAmount, LocalDateTime now) {
+        jdbcTemplate.update("""
+                        UPDATE settlement_runs
+                        SET last_created_at = ?, last_transaction_id = ?,
+                            transaction_count = transaction_count + ?, total_amount = total_amount + ?,
+                            updated_at = ?
+                        WHERE id = ?
+                        """,
+                Timestamp.valueOf(lastCreatedAt), lastTransactionId, capturedCount, capturedAmount,
+                Timestamp.valueOf(now), runId);
+    }
+
+    public void updateStatus(Long runId, RunStatus status, String reportPath, LocalDateTime now) {
+        jdbcTemplate.update("""
+                        UPDATE settlement_runs
+                        SET status = ?, report_path = COALESCE(?, report_path), updated_at = ?,
+                            completed_at = CASE WHEN ? = 'COMPLETED' THEN ? ELSE completed_at END
+                        WHERE id = ?
+                        """,
+                status.name(), reportPath, Timestamp.valueOf(now), status.name(), Timestamp.valueOf(now), runId);
+    }
+
+    /**
+     * Streams the transactions captured by the run in cursor order. Must run inside
+     * a transaction so the driver fetches rows in chunks instead of all at once.
+     */
+    public void streamCaptured(Long runId, LocalDateTime from, LocalDateTime to, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+                    PreparedStatement ps = connection.prepareStatement("""
+                            SELECT id, global_transaction_id, stan, payment_id, amount, currency, created_at
+                            FROM bank_transactions
+                            WHERE settlement_run_id = ? AND created_at >= ? AND created_at < ?
+                            ORDER BY created_at, id
+                            """);
+                    ps.setFetchSize(REPORT_FETCH_SIZE);
+                    ps.setLong(1, runId);
+                    ps.setTimestamp(2, Timestamp.valueOf(from));
+                    ps.setTimestamp(3, Timestamp.valueOf(to));
+                    return ps;
+                },
+                handler);
+    }
+
+    private static SettlementRun mapRun(ResultSet rs) throws SQLException {
+        Timestamp lastCreatedAt = rs.getTimestamp("last_created_at");
+        return new SettlementRun(
+                rs.getLong("id"),
+                rs.getString("merchant_id"),
+                rs.getObject("business_date", LocalDate.class),
+                rs.getLong("account_id"),
+                RunStatus.valueOf(rs.getString("status")),
+                lastCreatedAt != null ? lastCreatedAt.toLocalDateTime() : null,
+                rs.getObject("last_transaction_id", Long.class),
+                rs.getLong("transaction_count"),
+                rs.getBigDecimal("total_amount"),
+                rs.getString("report_path"));
+    }
+}
@@ -0,0 +1,73 @@
+package com.ftn.sep.bank.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Forward-only reads of an account's ledger postings for statements (PostgreSQL).
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatementRepository {
+
+    public record Cursor(LocalDateTime postedAt, long postingId) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Position of a posting of the account, used to resume a statement after it.
+     */
+    public Optional<Cursor> findCursor(Long accountId, long postingId) {
+        return jdbcTemplate.query("SELECT posted_at FROM ledger_postings WHERE id = ? AND account_id = ?",
+                (rs, rowNum) -> new Cursor(rs.getTimestamp("posted_at").toLocalDateTime(), postingId),
+                postingId, accountId).stream().findFirst();
+    }
+
+    /**
+     * Sum of the account's postings at exactly the cursor's time, up to and including the cursor.
+     */
+    public BigDecimal sumAtCursor(Long accountId, Cursor cursor) {
+        return jdbcTemplate.queryForObject("""
+                        SELECT COALESCE(SUM(amount), 0) FROM ledger_postings
+                        WHERE account_id = ? AND posted_at = ? AND id <= ?
+                        """,
+                BigDecimal.class, accountId, Timestamp.valueOf(cursor.postedAt()), cursor.postingId());
+    }
+
+    /**
+     * Streams the account's postings in [from, to) after the cursor, in (posted_at, id)
+     * order, through a forward-only cursor of {@code fetchSize} rows. Must run inside a
+     * transaction, otherwise the driver reads the whole result into memory.
+     */
+    public void streamPostings(Long accountId, LocalDateTime from, LocalDateTime to, Cursor after,
+                               int fetchSize, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+                    PreparedStatement ps = connection.prepareStatement("""
+                                    SELECT id, entry_id, transaction_id, amount, posted_at, description
+                                    FROM ledger_postings
+                                    WHERE account_id = ? AND posted_at >= ? AND posted_at < ?
+                                      AND (posted_at, id) > (?, ?)
+                                    ORDER BY posted_at, id
+                                    """,
+                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    ps.setFetchSize(fetchSize);
+                    ps.setLong(1, accountId);
+                    ps.setTimestamp(2, Timestamp.valueOf(from));
+                    ps.setTimestamp(3, Timestamp.valueOf(to));
+                    ps.setTimestamp(4, Timestamp.valueOf(after != null ? after.postedAt() : from));
+                    ps.setLong(5, after != null ? after.postingId() : 0);
+                    return ps;
+                },
+                handler);
+    }
+}
@@ -0,0 +1,55 @@
+package com.ftn.sep.bank.repository;
+
+import com.ftn.sep.bank.model.BankTransaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * JDBC-batched inserts into bank_transactions (PostgreSQL). Ids are taken from the
+ * table's sequence up front, since identity inserts cannot be batched by Hibernate.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransactionBatchRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<Long> nextIds(int count) {
+        return jdbcTemplate.queryForList(
+                "SELECT nextval('bank_transaction_ids') FROM generate_series(1, ?)", Long.class, count);
+    }
+
+    /**
+     * Inserts transactions that already have their id and all required fields set.
+     */
+    public void insertAll(List<BankTransaction> transactions) {
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO bank_transactions (id, global_transaction_id, merchant_id, stan, psp_timestamp,
+                            payment_id, payment_url, payment_url_expires_at, amount, currency, status,
+                            acquirer_timestamp, created_at, payment_method, version)
+                        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)
+                        """,
+                transactions, BATCH_SIZE, (ps, transaction) -> {
+                    ps.setLong(1, transaction.getId());
+                    ps.setString(2, transaction.getGlobalTransactionId());
+                    ps.setString(3, transaction.getMerchantId());
+                    ps.setString(4, transaction.getStan());
+                    ps.setTimestamp(5, Timestamp.valueOf(transaction.getPspTimestamp()));
+                    ps.setString(6, transaction.getPaymentId());
+                    ps.setString(7, transaction.getPaymentUrl());
+                    ps.setTimestamp(8, Timestamp.valueOf(transaction.getPaymentUrlExpiresAt()));
+                    ps.setBigDecimal(9, transaction.getAmount());
+                    ps.setString(10, transaction.getCurrency());
+                    ps.setString(11, transaction.getStatus().name());
+                    ps.setTimestamp(12, Timestamp.valueOf(transaction.getAcquirerTimestamp()));
+                    ps.setTimestamp(13, Timestamp.valueOf(transaction.getCreatedAt()));
+                    ps.setString(14, transaction.getPaymentMethod());
+                });
+    }
+}
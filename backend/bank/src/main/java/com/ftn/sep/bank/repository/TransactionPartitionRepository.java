@@ -0,0 +1,27 @@
+package com.ftn.sep.bank.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Partition maintenance for the monthly partitioned bank_transactions table (PostgreSQL).
+ * Partitions are named bank_transactions_pYYYYMM and archived to bank_transactions_archive.
+ */
+@Repository
+public class TransactionPartitionRepository extends MonthlyPartitionRepository {
+
+    public TransactionPartitionRepository(JdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate, "bank_transactions", "ensure_bank_transaction_partitions",
+                "bank_transactions_archive", "first_transaction_id", "last_transaction_id");
+    }
+
+    /**
+     * Whether the partition still holds transactions that can change state.
+     */
+    public boolean hasUnfinishedTransactions(Partition partition) {
+        Boolean unfinished = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + partition.name() + " WHERE status IN ('PENDING', 'RESERVED'))",
+                Boolean.class);
+        return Boolean.TRUE.equals(unfinished);
+    }
+}
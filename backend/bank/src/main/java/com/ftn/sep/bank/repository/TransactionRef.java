@@ -0,0 +1,10 @@
+package com.ftn.sep.bank.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Minimal view of a transaction returned by set-based updates.
+ */
+public record TransactionRef(Long id, String stan, String globalTransactionId,
+                             LocalDateTime acquirerTimestamp) {
+}
@@ -0,0 +1,91 @@
+package com.ftn.sep.bank.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Set-based status sweeps over bank_transactions (PostgreSQL).
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransactionSweepRepository {
+
+    private static final RowMapper<TransactionRef> TRANSACTION_REF_MAPPER = (rs, rowNum) -> new TransactionRef(
+            rs.getLong("id"),
+            rs.getString("stan"),
+            rs.getString("global_transaction_id"),
+            rs.getTimestamp("acquirer_timestamp").toLocalDateTime()
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Flips up to {@code limit} overdue PENDING transactions to EXPIRED in a single
+     * statement and returns them. Rows locked by a concurrent sweep are skipped.
+     */
+    public List<TransactionRef> expireOverdue(LocalDateTime now, int limit, String failureReason) {
+        return jdbcTemplate.query("""
+                        UPDATE bank_transactions t
+                        SET status = 'EXPIRED', failure_reason = ?, version = t.version + 1
+                        WHERE t.id IN (
+                            SELECT id FROM bank_transactions
+                            WHERE status = 'PENDING' AND payment_url_expires_at < ?
+                            ORDER BY id
+                            LIMIT ?
+                            FOR UPDATE SKIP LOCKED
+                        )
+                        RETURNING t.id, t.stan, t.global_transaction_id, t.acquirer_timestamp
+                        """,
+                TRANSACTION_REF_MAPPER,
+                failureReason, Timestamp.valueOf(now), limit);
+    }
+
+    /**
+     * Flips the given transactions to EXPIRED if they are still PENDING and past
+     * their expiry, and returns the ones that were changed. Only partitions from
+     * {@code createdFrom} on are scanned.
+     */
+    public List<TransactionRef> expireByIds(List<Long> ids, LocalDateTime now, LocalDateTime createdFrom,
+                                            String failureReason) {
+        return jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement("""
+                            UPDATE bank_transactions t
+                            SET status = 'EXPIRED', failure_reason = ?, version = t.version + 1
+                            WHERE t.id = ANY (?) AND t.created_at >= ?
+                              AND t.status = 'PENDING' AND t.payment_url_expires_at <= ?
+                            RETURNING t.id, t.stan, t.global_transaction_id, t.acquirer_timestamp
+                            """);
+                    statement.setString(1, failureReason);
+                    statement.setArray(2, connection.createArrayOf("bigint", ids.toArray()));
+                    statement.setTimestamp(3, Timestamp.valueOf(createdFrom));
+                    statement.setTimestamp(4, Timestamp.valueOf(now));
+                    return statement;
+                },
+                TRANSACTION_REF_MAPPER);
+    }
+
+    public record PendingExpiry(Long id, LocalDateTime expiresAt) {
+    }
+
+    /**
+     * One keyset page of PENDING transactions with their expiry times, ordered by id.
+     */
+    public List<PendingExpiry> findPendingExpiries(long afterId, int limit) {
+        return jdbcTemplate.query("""
+                        SELECT id, payment_url_expires_at FROM bank_transactions
+                        WHERE status = 'PENDING' AND id > ?
+                        ORDER BY id
+                        LIMIT ?
+                        """,
+                (rs, rowNum) -> new PendingExpiry(rs.getLong("id"),
+                        rs.getTimestamp("payment_url_expires_at").toLocalDateTime()),
+                afterId, limit);
+    }
+}
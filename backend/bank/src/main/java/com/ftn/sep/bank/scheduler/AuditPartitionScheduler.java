@@ -0,0 +1,53 @@
+package com.ftn.sep.bank.scheduler;
+
+import com.ftn.sep.bank.repository.MonthlyPartitionRepository.Partition;
+import com.ftn.sep.bank.service.AuditRetentionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+
+/**
+ * Keeps future audit_logs partitions created and retires partitions past retention.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AuditPartitionScheduler {
+
+    private final AuditRetentionService retentionService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintainPartitions();
+    }
+
+    @Scheduled(cron = "${audit.partition-maintenance-cron:0 45 3 * * *}")
+    public void maintainPartitions() {
+        try {
+            int created = retentionService.ensurePartitions();
+            if (created > 0) {
+                log.info("Created {} audit_logs partitions", created);
+            }
+        } catch (Exception e) {
+            log.error("Error creating audit_logs partitions", e);
+        }
+
+        try {
+            // Tables left detached by an interrupted run are retired first
+            for (Partition partition : retentionService.findDetachedPartitions()) {
+                retentionService.retire(partition);
+            }
+            for (Partition partition : retentionService.findExpiredPartitions(YearMonth.now())) {
+                retentionService.detach(partition);
+                retentionService.retire(partition);
+            }
+        } catch (Exception e) {
+            log.error("Error retiring audit_logs partitions", e);
+        }
+    }
+}
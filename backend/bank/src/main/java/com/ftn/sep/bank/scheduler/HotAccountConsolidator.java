@@ -0,0 +1,32 @@
+package com.ftn.sep.bank.scheduler;
+
+import com.ftn.sep.bank.service.BankAccountService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HotAccountConsolidator {
+
+    private final BankAccountService bankAccountService;
+
+    /**
+     * Folds striped sub-balances into their account balances, one account per transaction.
+     */
+    @Scheduled(fixedDelayString = "${bank.hot-account.consolidate-interval-ms:5000}")
+    public void consolidate() {
+        for (Long accountId : bankAccountService.findAccountsWithPendingStripes()) {
+            try {
+                BigDecimal moved = bankAccountService.consolidateStripes(accountId);
+                log.debug("Consolidated {} from stripes into account {}", moved, accountId);
+            } catch (Exception e) {
+                log.error("Error consolidating stripes for account {}", accountId, e);
+            }
+        }
+    }
+}
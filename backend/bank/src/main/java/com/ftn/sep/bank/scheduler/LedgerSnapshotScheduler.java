@@ -0,0 +1,34 @@
+package com.ftn.sep.bank.scheduler;
+
+import com.ftn.sep.bank.service.LedgerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerSnapshotScheduler {
+
+    private final LedgerService ledgerService;
+
+    @Value("${ledger.snapshot.lag-seconds:300}")
+    private long lagSeconds;
+
+    @Scheduled(fixedDelayString = "${ledger.snapshot.interval-ms:3600000}",
+            initialDelayString = "${ledger.snapshot.interval-ms:3600000}")
+    public void takeSnapshots() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(lagSeconds).truncatedTo(ChronoUnit.MINUTES);
+        try {
+            int taken = ledgerService.takeSnapshots(cutoff);
+            log.info("Took {} ledger snapshots at cutoff {}", taken, cutoff);
+        } catch (Exception e) {
+            log.error("Error taking ledger snapshots at cutoff {}", cutoff, e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.ftn.sep.bank.scheduler;
+
+import com.ftn.sep.bank.repository.SettlementRepository.SettlementRun;
+import com.ftn.sep.bank.service.SettlementService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Settles the previous business days once they are over. Runs interrupted by a
+ * restart are resumed from their checkpoint at startup.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SettlementScheduler {
+
+    private final SettlementService settlementService;
+
+    @Value("${settlement.lookback-days:3}")
+    private int lookbackDays;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedRuns() {
+        try {
+            for (SettlementRun run : settlementService.findUnfinishedRuns()) {
+                settlementService.resume(run);
+            }
+        } catch (Exception e) {
+            log.error("Error resuming settlement runs", e);
+        }
+    }
+
+    /**
+     * Should fire after the last payment session of the day can have expired,
+     * so no transaction of a settled day is still PENDING.
+     */
+    @Scheduled(cron = "${settlement.cron:0 30 0 * * *}")
+    public void settlePreviousDays() {
+        LocalDate today = LocalDate.now();
+        for (int days = lookbackDays; days >= 1; days--) {
+            LocalDate businessDate = today.minusDays(days);
+            try {
+                settlementService.settle(businessDate);
+            } catch (Exception e) {
+                log.error("Error settling business day {}", businessDate, e);
+            }
+        }
+    }
+}
@@ -1,57 +1,56 @@
 package com.ftn.sep.bank.scheduler;
 
-import com.ftn.sep.bank.model.BankTransaction;
-import com.ftn.sep.bank.model.TransactionStatus;
-import com.ftn.sep.bank.repository.BankTransactionRepository;
-import com.ftn.sep.bank.service.PSPService;
 import com.ftn.sep.bank.service.TransactionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class TransactionCleanupScheduler {
 
-    private final BankTransactionRepository transactionRepository;
+    private static final String EXPIRY_REASON = "Payment session expired - user abandoned payment";
+
     private final TransactionService transactionService;
-    private final PSPService pspService;
 
-    @Scheduled(fixedRate = 180000)
+    @Value("${bank.expiry-sweep.page-size:500}")
+    private int pageSize;
+
+    /**
+     * Fallback for the expiry wheel (see {@link TransactionExpiryScheduler}): catches
+     * sessions whose timer was lost, e.g. created by another instance.
+     * Expires overdue sessions page by page; each page is one UPDATE ... RETURNING
+     * plus a batched outbox insert, committed on its own so a crash mid-sweep
+     * leaves only whole pages done and the next run resumes from the rest.
+     * PSP notifications are delivered by the outbox dispatcher.
+     */
+    @Scheduled(fixedDelayString = "${bank.expiry-sweep.interval-ms:900000}")
     public void cleanupExpiredTransactions() {
-        List<BankTransaction> expiredTransactions = transactionRepository
-                .findByStatusAndPaymentUrlExpiresAtBefore(TransactionStatus.PENDING, LocalDateTime.now());
-
-        if (expiredTransactions.isEmpty()) {
-            return;
-        }
-
-        log.info("Found {} expired PENDING transactions to clean up", expiredTransactions.size());
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
 
-        for (BankTransaction transaction : expiredTransactions) {
+        while (true) {
+            int expired;
             try {
-                transactionService.updateTransactionStatus(
-                        transaction.getId(),
-                        TransactionStatus.EXPIRED,
-                        "Payment session expired - user abandoned payment"
-                );
-
-                pspService.notifyPaymentResult(
-                        transaction.getStan(),
-                        transaction.getGlobalTransactionId(),
-                        transaction.getAcquirerTimestamp(),
-                        "FAILED"
-                );
-
-                log.info("Expired and notified PSP for transaction STAN: {}", transaction.getStan());
+                expired = transactionService.expireOverdueBatch(now, pageSize, EXPIRY_REASON);
             } catch (Exception e) {
-                log.error("Error cleaning up expired transaction STAN: {}", transaction.getStan(), e);
+                log.error("Error expiring overdue transactions after {} rows", total, e);
+                break;
             }
+
+            total += expired;
+            if (expired < pageSize) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            log.info("Expired {} overdue PENDING transactions and queued PSP notifications", total);
         }
     }
 }
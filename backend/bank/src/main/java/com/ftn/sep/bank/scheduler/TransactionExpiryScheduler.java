@@ -0,0 +1,99 @@
+package com.ftn.sep.bank.scheduler;
+
+import com.ftn.sep.bank.repository.TransactionSweepRepository;
+import com.ftn.sep.bank.repository.TransactionSweepRepository.PendingExpiry;
+import com.ftn.sep.bank.service.TransactionExpiryWheel;
+import com.ftn.sep.bank.service.TransactionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Drives the expiry timing wheel: seeds it with PENDING transactions at startup
+ * and expires due transactions in batches on every tick.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionExpiryScheduler {
+
+    private static final String EXPIRY_REASON = "Payment session expired - user abandoned payment";
+
+    private final TransactionExpiryWheel expiryWheel;
+    private final TransactionService transactionService;
+    private final TransactionSweepRepository transactionSweepRepository;
+
+    @Value("${bank.expiry-sweep.page-size:500}")
+    private int pageSize;
+
+    // Ids that were due but could not be expired yet (e.g. DB unavailable); retried next tick
+    private final Queue<Long> retry = new ConcurrentLinkedQueue<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        List<Long> overdue = new ArrayList<>();
+        int seeded = 0;
+        long afterId = 0;
+
+        while (true) {
+            List<PendingExpiry> page = transactionSweepRepository.findPendingExpiries(afterId, pageSize);
+            for (PendingExpiry pending : page) {
+                if (expiryWheel.schedule(pending.id(), pending.expiresAt())) {
+                    seeded++;
+                } else {
+                    overdue.add(pending.id());
+                }
+            }
+            if (page.size() < pageSize) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).id();
+        }
+
+        log.info("Seeded expiry wheel with {} PENDING transactions ({} already overdue)", seeded, overdue.size());
+        expire(overdue);
+    }
+
+    @Scheduled(fixedRateString = "${bank.expiry-wheel.tick-ms:1000}")
+    public void tick() {
+        List<Long> due = new ArrayList<>();
+        Long id;
+        while ((id = retry.poll()) != null) {
+            due.add(id);
+        }
+        due.addAll(expiryWheel.advance(System.currentTimeMillis()));
+        expire(due);
+    }
+
+    private void expire(List<Long> due) {
+        if (due.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int expired = 0;
+        for (int from = 0; from < due.size(); from += pageSize) {
+            List<Long> batch = due.subList(from, Math.min(due.size(), from + pageSize));
+            try {
+                expired += transactionService.expireByIds(batch, now, EXPIRY_REASON);
+            } catch (Exception e) {
+                log.error("Error expiring {} due transactions, retrying on next tick", batch.size(), e);
+                retry.addAll(batch);
+            }
+        }
+
+        if (expired > 0) {
+            log.info("Expired {} PENDING transactions and queued PSP notifications", expired);
+        }
+    }
+}
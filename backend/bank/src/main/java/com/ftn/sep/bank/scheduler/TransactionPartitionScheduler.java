@@ -0,0 +1,53 @@
+package com.ftn.sep.bank.scheduler;
+
+import com.ftn.sep.bank.repository.MonthlyPartitionRepository.Partition;
+import com.ftn.sep.bank.service.TransactionArchiveService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+
+/**
+ * Keeps future bank_transactions partitions created and moves finished ones to the archive.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionPartitionScheduler {
+
+    private final TransactionArchiveService archiveService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintainPartitions();
+    }
+
+    @Scheduled(cron = "${bank.transactions.partition-maintenance-cron:0 15 3 * * *}")
+    public void maintainPartitions() {
+        try {
+            int created = archiveService.ensurePartitions();
+            if (created > 0) {
+                log.info("Created {} bank_transactions partitions", created);
+            }
+        } catch (Exception e) {
+            log.error("Error creating bank_transactions partitions", e);
+        }
+
+        try {
+            // Tables left detached by an interrupted run are archived first
+            for (Partition partition : archiveService.findDetachedPartitions()) {
+                archiveService.archive(partition);
+            }
+            for (Partition partition : archiveService.findArchivablePartitions(YearMonth.now())) {
+                archiveService.detach(partition);
+                archiveService.archive(partition);
+            }
+        } catch (Exception e) {
+            log.error("Error archiving bank_transactions partitions", e);
+        }
+    }
+}
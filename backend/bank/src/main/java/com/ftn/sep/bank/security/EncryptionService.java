@@ -6,8 +6,11 @@ import org.springframework.stereotype.Service;
 import javax.crypto.Cipher;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Base64;
 
@@ -15,35 +18,62 @@ import java.util.Base64;
 public class EncryptionService {
 
     private static final String AES_ALGORITHM = "AES/GCM/NoPadding";
+    private static final String HASH_ALGORITHM = "SHA-256";
     private static final int GCM_TAG_LENGTH = 128;
+    private static final int GCM_TAG_BYTES = GCM_TAG_LENGTH / 8;
     private static final int IV_LENGTH = 12;
 
-    @Value("${card.encryption.key}")
-    private String encryptionKeyBase64;
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    private final SecretKeySpec keySpec;
+
+    // Cipher and MessageDigest are not thread-safe; keep one instance per thread
+    // so the provider lookup in getInstance happens once per thread, not per call.
+    private final ThreadLocal<Cipher> ciphers = ThreadLocal.withInitial(EncryptionService::newCipher);
+    private final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(EncryptionService::newDigest);
+
+    public EncryptionService(@Value("${card.encryption.key}") String encryptionKeyBase64) {
+        this.keySpec = new SecretKeySpec(Base64.getDecoder().decode(encryptionKeyBase64), "AES");
+    }
 
     /**
      * Encrypts plaintext using AES-256-GCM.
      * Returns Base64(IV + ciphertext + auth_tag).
      */
     public String encrypt(String plaintext) {
-        try {
-            byte[] key = Base64.getDecoder().decode(encryptionKeyBase64);
-            SecretKeySpec keySpec = new SecretKeySpec(key, "AES");
-
-            byte[] iv = new byte[IV_LENGTH];
-            new SecureRandom().nextBytes(iv);
-
-            Cipher cipher = Cipher.getInstance(AES_ALGORITHM);
-            cipher.init(Cipher.ENCRYPT_MODE, keySpec, new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+        return Base64.getEncoder().encodeToString(encrypt(plaintext.getBytes(StandardCharsets.UTF_8)));
+    }
 
-            byte[] ciphertext = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
+    /**
+     * Encrypts raw bytes using AES-256-GCM. Returns IV + ciphertext + auth_tag.
+     */
+    public byte[] encrypt(byte[] plaintext) {
+        byte[] iv = new byte[IV_LENGTH];
+        SECURE_RANDOM.nextBytes(iv);
 
-            byte[] combined = new byte[iv.length + ciphertext.length];
-            System.arraycopy(iv, 0, combined, 0, iv.length);
-            System.arraycopy(ciphertext, 0, combined, iv.length, ciphertext.length);
+        byte[] combined = new byte[IV_LENGTH + plaintext.length + GCM_TAG_BYTES];
+        System.arraycopy(iv, 0, combined, 0, IV_LENGTH);
+        try {
+            Cipher cipher = initCipher(Cipher.ENCRYPT_MODE, iv);
+            cipher.doFinal(plaintext, 0, plaintext.length, combined, IV_LENGTH);
+            return combined;
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Encryption failed", e);
+        }
+    }
 
-            return Base64.getEncoder().encodeToString(combined);
-        } catch (Exception e) {
+    /**
+     * Encrypts the remaining bytes of {@code plaintext} into {@code output} as
+     * IV + ciphertext + auth_tag. Returns the number of bytes written.
+     */
+    public int encrypt(ByteBuffer plaintext, ByteBuffer output) {
+        byte[] iv = new byte[IV_LENGTH];
+        SECURE_RANDOM.nextBytes(iv);
+        try {
+            Cipher cipher = initCipher(Cipher.ENCRYPT_MODE, iv);
+            output.put(iv);
+            return IV_LENGTH + cipher.doFinal(plaintext, output);
+        } catch (GeneralSecurityException e) {
             throw new RuntimeException("Encryption failed", e);
         }
     }
@@ -52,22 +82,32 @@ public class EncryptionService {
      * Decrypts AES-256-GCM encrypted data.
      */
     public String decrypt(String encryptedBase64) {
-        try {
-            byte[] key = Base64.getDecoder().decode(encryptionKeyBase64);
-            SecretKeySpec keySpec = new SecretKeySpec(key, "AES");
-
-            byte[] combined = Base64.getDecoder().decode(encryptedBase64);
-            byte[] iv = new byte[IV_LENGTH];
-            System.arraycopy(combined, 0, iv, 0, IV_LENGTH);
-
-            byte[] ciphertext = new byte[combined.length - IV_LENGTH];
-            System.arraycopy(combined, IV_LENGTH, ciphertext, 0, ciphertext.length);
+        return new String(decrypt(Base64.getDecoder().decode(encryptedBase64)), StandardCharsets.UTF_8);
+    }
 
-            Cipher cipher = Cipher.getInstance(AES_ALGORITHM);
-            cipher.init(Cipher.DECRYPT_MODE, keySpec, new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+    /**
+     * Decrypts IV + ciphertext + auth_tag produced by {@link #encrypt(byte[])}.
+     */
+    public byte[] decrypt(byte[] combined) {
+        try {
+            Cipher cipher = initCipher(Cipher.DECRYPT_MODE, combined);
+            return cipher.doFinal(combined, IV_LENGTH, combined.length - IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Decryption failed", e);
+        }
+    }
 
-            return new String(cipher.doFinal(ciphertext), StandardCharsets.UTF_8);
-        } catch (Exception e) {
+    /**
+     * Decrypts the remaining bytes of {@code encrypted} (IV + ciphertext + auth_tag)
+     * into {@code output}. Returns the number of plaintext bytes written.
+     */
+    public int decrypt(ByteBuffer encrypted, ByteBuffer output) {
+        byte[] iv = new byte[IV_LENGTH];
+        encrypted.get(iv);
+        try {
+            Cipher cipher = initCipher(Cipher.DECRYPT_MODE, iv);
+            return cipher.doFinal(encrypted, output);
+        } catch (GeneralSecurityException e) {
             throw new RuntimeException("Decryption failed", e);
         }
     }
@@ -76,12 +116,38 @@ public class EncryptionService {
      * Produces a SHA-256 hash for deterministic PAN lookup.
      */
     public String hash(String value) {
+        return Base64.getEncoder().encodeToString(hash(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public byte[] hash(byte[] value) {
+        return digests.get().digest(value);
+    }
+
+    public byte[] hash(ByteBuffer value) {
+        MessageDigest digest = digests.get();
+        digest.update(value);
+        return digest.digest();
+    }
+
+    private Cipher initCipher(int mode, byte[] ivSource) throws GeneralSecurityException {
+        Cipher cipher = ciphers.get();
+        cipher.init(mode, keySpec, new GCMParameterSpec(GCM_TAG_LENGTH, ivSource, 0, IV_LENGTH));
+        return cipher;
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(AES_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES/GCM not available", e);
+        }
+    }
+
+    private static MessageDigest newDigest() {
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashBytes = digest.digest(value.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(hashBytes);
-        } catch (Exception e) {
-            throw new RuntimeException("Hashing failed", e);
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
 }
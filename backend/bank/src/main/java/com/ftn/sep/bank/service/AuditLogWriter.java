@@ -0,0 +1,232 @@
+package com.ftn.sep.bank.service;
+
+import com.ftn.sep.bank.model.AuditLog;
+import com.ftn.sep.bank.repository.AuditLogRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded audit pipeline: producers enqueue entries, a single writer thread
+ * drains them in micro-batches (by size or max wait) and inserts each batch
+ * in one transaction using JDBC batching.
+ */
+@Component
+@Slf4j
+public class AuditLogWriter implements SmartLifecycle {
+
+    public enum OverflowPolicy {
+        BLOCK,
+        DROP
+    }
+
+    private final AuditLogRepository auditLogRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final BlockingQueue<AuditLog> queue;
+    private final OverflowPolicy overflowPolicy;
+    private final long offerTimeoutMs;
+    private final int batchSize;
+    private final long maxWaitMs;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong blocked = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public AuditLogWriter(AuditLogRepository auditLogRepository,
+                          TransactionTemplate transactionTemplate,
+                          JdbcTemplate jdbcTemplate,
+                          @Value("${audit.queue.capacity:10000}") int capacity,
+                          @Value("${audit.queue.overflow-policy:BLOCK}") OverflowPolicy overflowPolicy,
+                          @Value("${audit.queue.offer-timeout-ms:50}") long offerTimeoutMs,
+                          @Value("${audit.batch.size:100}") int batchSize,
+                          @Value("${audit.batch.max-wait-ms:200}") long maxWaitMs) {
+        this.auditLogRepository = auditLogRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.batchSize = batchSize;
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    /**
+     * Enqueues an entry without touching the database. When the queue is full the
+     * entry is dropped immediately (DROP) or after waiting up to the offer timeout (BLOCK).
+     * While the writer is not running the entry is written synchronously instead.
+     */
+    public void submit(AuditLog entry) {
+        submitted.incrementAndGet();
+        if (!running) {
+            writeBatch(List.of(entry));
+            return;
+        }
+        if (queue.offer(entry)) {
+            if (!running) {
+                // Raced with stop(): its final drain may already have run
+                flushQueue();
+            }
+            return;
+        }
+
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            blocked.incrementAndGet();
+            try {
+                if (queue.offer(entry, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        dropped.incrementAndGet();
+        log.warn("Audit queue full, dropped audit entry: {} {}", entry.getAction(), entry.getEntityId());
+    }
+
+    public Map<String, Object> stats() {
+        return Map.of(
+                "queueDepth", queue.size(),
+                "queueCapacity", queue.size() + queue.remainingCapacity(),
+                "overflowPolicy", overflowPolicy.name(),
+                "submitted", submitted.get(),
+                "written", written.get(),
+                "dropped", dropped.get(),
+                "blocked", blocked.get(),
+                "failed", failed.get(),
+                "batches", batches.get()
+        );
+    }
+
+    @Override
+    public void start() {
+        alignSequence();
+        running = true;
+        writerThread = new Thread(this::drainLoop, "audit-log-writer");
+        writerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (writerThread != null) {
+            writerThread.interrupt();
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushRemaining();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Lower phases stop later: after graceful shutdown (DEFAULT_PHASE - 1024), the web
+        // server (DEFAULT_PHASE - 2048) and the segment store, whose entries fall back here
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drainLoop() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                AuditLog first = queue.poll(maxWaitMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    if (batch.size() >= batchSize) {
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    AuditLog next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                }
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flushRemaining() {
+        flushQueue();
+        log.info("Audit log writer stopped - written: {}, dropped: {}, failed: {}",
+                written.get(), dropped.get(), failed.get());
+    }
+
+    private void flushQueue() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<AuditLog> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> auditLogRepository.saveAll(batch));
+            written.addAndGet(batch.size());
+            batches.incrementAndGet();
+        } catch (Exception e) {
+            failed.addAndGet(batch.size());
+            log.error("Failed to save batch of {} audit log entries", batch.size(), e);
+        }
+    }
+
+    /**
+     * Audit IDs used to come from an IDENTITY column; make sure the sequence
+     * starts above any existing row so pooled IDs never collide.
+     */
+    private void alignSequence() {
+        try {
+            jdbcTemplate.execute("SELECT setval('audit_logs_seq', GREATEST(" +
+                    "(SELECT COALESCE(MAX(id), 0) FROM audit_logs) + 50, " +
+                    "(SELECT last_value FROM audit_logs_seq)))");
+        } catch (Exception e) {
+            log.warn("Could not align audit_logs_seq with existing audit rows: {}", e.getMessage());
+        }
+    }
+}
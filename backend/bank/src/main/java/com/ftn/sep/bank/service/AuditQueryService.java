@@ -0,0 +1,127 @@
+package com.ftn.sep.bank.service;
+
+import com.ftn.sep.bank.dto.AuditLogPage;
+import com.ftn.sep.bank.model.AuditLog;
+import com.ftn.sep.bank.repository.AuditQueryRepository;
+import com.ftn.sep.bank.repository.AuditQueryRepository.AuditQuery;
+import com.ftn.sep.bank.repository.AuditQueryRepository.Cursor;
+import com.ftn.sep.bank.util.NdjsonWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JsonGenerator;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Reads audit_logs page by page with keyset pagination.
+ * <p>
+ * A page is addressed by an opaque cursor holding the (timestamp, id) of the last
+ * row of the previous page, so page N costs an index seek rather than skipping
+ * N * limit rows as OFFSET would, and rows inserted meanwhile do not shift pages.
+ * Entries still held in local segments ({@code audit.sink=SEGMENTS}) become
+ * visible once their segment is shipped; until then {@link #findUnshipped} reads
+ * them from the segments' sparse index.
+ */
+@Service
+@Slf4j
+public class AuditQueryService {
+
+    private final AuditQueryRepository auditQueryRepository;
+    private final AuditSegmentStore auditSegmentStore;
+    private final TransactionTemplate readOnlyTemplate;
+
+    @Value("${audit.query.fetch-size:1000}")
+    private int fetchSize;
+
+    public AuditQueryService(AuditQueryRepository auditQueryRepository,
+                             AuditSegmentStore auditSegmentStore,
+                             PlatformTransactionManager transactionManager) {
+        this.auditQueryRepository = auditQueryRepository;
+        this.auditSegmentStore = auditSegmentStore;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Returns up to {@code limit} entries after the cursor (null: the first page).
+     */
+    public AuditLogPage page(AuditQuery query, Cursor after, int limit) {
+        // One extra row tells whether another page follows
+        List<AuditLog> rows = auditQueryRepository.findPage(query, after, limit + 1);
+        if (rows.size() <= limit) {
+            return new AuditLogPage(rows, null);
+        }
+        List<AuditLog> items = rows.subList(0, limit);
+        AuditLog last = items.get(limit - 1);
+        return new AuditLogPage(List.copyOf(items), encodeCursor(new Cursor(last.getTimestamp(), last.getId())));
+    }
+
+    /**
+     * Entries of the entity in [from, to) that are still in local segments and not
+     * yet in audit_logs, oldest first, at most {@code limit}. They have no id yet.
+     */
+    public List<AuditLog> findUnshipped(String entityId, LocalDateTime from, LocalDateTime to, int limit) {
+        return auditSegmentStore.lookup(entityId, from, to, limit);
+    }
+
+    /**
+     * Writes every entry after the cursor to the stream as NDJSON. Returns the number
+     * of entries written.
+     */
+    public long export(AuditQuery query, Cursor after, OutputStream out) {
+        long started = System.nanoTime();
+        Long rows = readOnlyTemplate.execute(status -> {
+            try (NdjsonWriter writer = new NdjsonWriter(out)) {
+                JsonGenerator generator = writer.generator();
+                long[] count = {0};
+                auditQueryRepository.stream(query, after, fetchSize, rs -> {
+                    generator.writeStartObject();
+                    generator.writeNumberProperty("id", rs.getLong("id"));
+                    generator.writeStringProperty("timestamp",
+                            rs.getTimestamp("timestamp").toLocalDateTime().toString());
+                    generator.writeStringProperty("action", rs.getString("action"));
+                    generator.writeStringProperty("entityType", rs.getString("entity_type"));
+                    generator.writeStringProperty("entityId", rs.getString("entity_id"));
+                    generator.writeStringProperty("details", rs.getString("details"));
+                    generator.writeStringProperty("ipAddress", rs.getString("ip_address"));
+                    generator.writeStringProperty("result", rs.getString("result"));
+                    generator.writeEndObject();
+                    count[0]++;
+                });
+                return count[0];
+            }
+        });
+
+        log.info("Exported {} audit entries in {} ms", rows, (System.nanoTime() - started) / 1_000_000);
+        return rows;
+    }
+
+    public static String encodeCursor(Cursor cursor) {
+        String raw = cursor.timestamp() + "|" + cursor.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor returned by {@link #page}; throws IllegalArgumentException if malformed.
+     */
+    public static Cursor decodeCursor(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new Cursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.ftn.sep.bank.service;
+
+import com.ftn.sep.bank.repository.AuditPartitionRepository;
+import com.ftn.sep.bank.repository.MonthlyPartitionRepository.Partition;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Retention of the monthly partitions of audit_logs.
+ * <p>
+ * A partition whose month ended more than {@code retention-months} ago is detached
+ * concurrently and then, depending on {@code retention-mode}, dropped or copied
+ * into gzip-compressed NDJSON chunks in audit_logs_archive and dropped. Either way
+ * old entries go without a DELETE, so inserts and the remaining indexes are not
+ * affected by the vacuum work a bulk delete would cause.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AuditRetentionService {
+
+    public enum Mode {DROP, ARCHIVE}
+
+    private final AuditPartitionRepository partitionRepository;
+
+    @Value("${audit.partitions-ahead:3}")
+    private int partitionsAhead;
+
+    @Value("${audit.retention.months:12}")
+    private int retentionMonths;
+
+    @Value("${audit.retention.mode:ARCHIVE}")
+    private Mode mode;
+
+    @Value("${audit.retention.archive-chunk-size:10000}")
+    private int chunkSize;
+
+    public int ensurePartitions() {
+        return partitionRepository.ensurePartitions(partitionsAhead);
+    }
+
+    /**
+     * Attached partitions older than the retention period.
+     */
+    public List<Partition> findExpiredPartitions(YearMonth currentMonth) {
+        YearMonth newestExpired = currentMonth.minusMonths(retentionMonths + 1L);
+        return partitionRepository.findAttachedPartitions().stream()
+                .filter(partition -> partition.month() != null && !partition.month().isAfter(newestExpired))
+                .toList();
+    }
+
+    public List<Partition> findDetachedPartitions() {
+        return partitionRepository.findDetachedPartitions();
+    }
+
+    /**
+     * Runs outside a transaction: DETACH ... CONCURRENTLY cannot run inside one.
+     */
+    public void detach(Partition partition) {
+        partitionRepository.detach(partition);
+        log.info("Detached audit partition {}", partition.name());
+    }
+
+    /**
+     * Drops a detached partition, archiving it first in ARCHIVE mode. Archiving and
+     * dropping happen in one DB transaction. Returns the number of rows archived.
+     */
+    @Transactional
+    public long retire(Partition partition) {
+        long total = 0;
+        if (mode == Mode.ARCHIVE) {
+            total = partitionRepository.copyToArchive(partition, chunkSize, LocalDateTime.now()).rowCount();
+        }
+        partitionRepository.drop(partition);
+        log.info("Dropped audit partition {} ({} entries archived)", partition.name(), total);
+        return total;
+    }
+}
@@ -0,0 +1,124 @@
+package com.ftn.sep.bank.service;
+
+import com.ftn.sep.bank.model.AuditLog;
+import com.ftn.sep.bank.repository.AuditSegmentRepository;
+import com.ftn.sep.bank.repository.AuditSegmentRepository.Shipment;
+import com.ftn.sep.bank.util.AuditSegmentFile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Loads sealed audit segments into audit_logs, oldest first.
+ * <p>
+ * A segment's records are verified against its hash chain and inserted with
+ * JDBC batching in one transaction together with its shipment row, so a crash
+ * never loads a segment twice; the file is deleted after the commit, and later
+ * only if it matches the shipment row recorded under its node and id. A segment
+ * whose chain is broken, or that does not continue the chain of the last
+ * shipped segment, is quarantined instead of loaded.
+ */
+@Service
+@Slf4j
+public class AuditSegmentShipper {
+
+    private static final int INSERT_CHUNK = 5000;
+
+    private final AuditSegmentStore segmentStore;
+    private final AuditSegmentRepository segmentRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public AuditSegmentShipper(AuditSegmentStore segmentStore,
+                               AuditSegmentRepository segmentRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.segmentStore = segmentStore;
+        this.segmentRepository = segmentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${audit.segment.ship-interval-ms:10000}")
+    public void shipSealedSegments() {
+        if (!segmentStore.isRunning()) {
+            return;
+        }
+        for (AuditSegmentFile segment : segmentStore.sealedSegments()) {
+            try {
+                ship(segment);
+            } catch (Exception e) {
+                log.error("Error shipping audit segment {}", segment.segmentId(), e);
+                return;
+            }
+        }
+    }
+
+    private void ship(AuditSegmentFile segment) throws Exception {
+        String nodeId = segmentStore.nodeId();
+        Optional<Shipment> shipped = segmentRepository.findShipment(nodeId, segment.segmentId());
+        if (shipped.isPresent()) {
+            // Only a file that is the shipped segment may go; anything else is kept aside
+            if (isSameSegment(shipped.get(), segment)) {
+                segmentStore.release(segment);
+            } else {
+                log.error("Audit segment {} of node {} differs from the segment shipped under its id",
+                        segment.segmentId(), nodeId);
+                segmentStore.quarantine(segment);
+            }
+            return;
+        }
+
+        Optional<Shipment> previous = segmentRepository.findLastShipment(nodeId);
+        if (previous.isPresent() && previous.get().segmentId() == segment.segmentId() - 1
+                && !MessageDigest.isEqual(previous.get().lastHash(), segment.previousHash())) {
+            log.error("Audit segment {} does not continue the hash chain of segment {}",
+                    segment.segmentId(), previous.get().segmentId());
+            segmentStore.quarantine(segment);
+            return;
+        }
+
+        if (!segment.isIntact()) {
+            log.error("Audit segment {} holds fewer valid records than it was sealed with", segment.segmentId());
+            segmentStore.quarantine(segment);
+            return;
+        }
+
+        long started = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // Verified while streamed; a broken chain rolls back what was inserted
+                List<AuditLog> batch = new ArrayList<>(INSERT_CHUNK);
+                segment.forEach(record -> {
+                    batch.add(record.entry());
+                    if (batch.size() == INSERT_CHUNK) {
+                        segmentRepository.insertEntries(batch);
+                        batch.clear();
+                    }
+                });
+                segmentRepository.insertEntries(batch);
+                segmentRepository.recordShipment(nodeId, new Shipment(segment.segmentId(), segment.firstSequence(),
+                        segment.recordCount(), segment.lastHash()), LocalDateTime.now());
+            });
+        } catch (AuditSegmentFile.BrokenChainException e) {
+            log.error("Audit segment {}: {}", segment.segmentId(), e.getMessage());
+            segmentStore.quarantine(segment);
+            return;
+        }
+        segmentStore.release(segment);
+
+        log.info("Shipped audit segment {}: {} entries in {} ms", segment.segmentId(), segment.recordCount(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private static boolean isSameSegment(Shipment shipment, AuditSegmentFile segment) {
+        return shipment.firstSequence() == segment.firstSequence()
+                && shipment.recordCount() == segment.recordCount()
+                && MessageDigest.isEqual(shipment.lastHash(), segment.lastHash());
+    }
+}
@@ -0,0 +1,483 @@
+package com.ftn.sep.bank.service;
+
+import com.ftn.sep.bank.model.AuditLog;
+import com.ftn.sep.bank.repository.AuditSegmentRepository;
+import com.ftn.sep.bank.repository.AuditSegmentRepository.Shipment;
+import com.ftn.sep.bank.util.AuditSegmentFile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Append-only audit sink on local, memory-mapped segment files
+ * ({@link AuditSegmentFile}), used when {@code audit.sink=SEGMENTS}.
+ * <p>
+ * Appends go to the active segment under one lock, so writes are sequential and
+ * every record extends a single hash chain that continues across segments. A
+ * full segment is sealed and a new one started; sealed segments are loaded into
+ * audit_logs by {@link AuditSegmentShipper} and then deleted.
+ * <p>
+ * Each local segment keeps a sparse in-memory index: a Bloom filter of entity ids,
+ * its time range, and every {@code index-interval-bytes} the offset of a record
+ * with the highest timestamp seen before it. A lookup skips segments that cannot
+ * hold the entity or the range, and starts scanning a segment at the last index
+ * point that is entirely older than the range.
+ * <p>
+ * Segment ids are only unique within a directory, so each directory has a node id,
+ * generated on first start and kept in its {@code node-id} file, that keys its
+ * shipments.
+ */
+@Component
+@Slf4j
+public class AuditSegmentStore implements SmartLifecycle {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CORRUPT_SUFFIX = ".corrupt";
+    private static final String NODE_ID_FILE = "node-id";
+    // Shipments recorded before they were keyed by node (V9) belong to this node
+    private static final String LEGACY_NODE_ID = "default";
+    private static final int BLOOM_HASHES = 3;
+
+    private final AuditSegmentRepository segmentRepository;
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final int indexIntervalBytes;
+    private final int bloomBits;
+
+    private final List<IndexedSegment> sealed = new CopyOnWriteArrayList<>();
+    private final Object lock = new Object();
+    private IndexedSegment active;
+    private volatile String nodeId;
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong rotations = new AtomicLong();
+    private final AtomicLong appendFailures = new AtomicLong();
+    private final AtomicLong corruptSegments = new AtomicLong();
+    private final AtomicLong lookupSegmentsScanned = new AtomicLong();
+    private final AtomicLong lookupSegmentsSkipped = new AtomicLong();
+    private final AtomicLong lookupRecordsRead = new AtomicLong();
+
+    private volatile boolean running;
+
+    public AuditSegmentStore(AuditSegmentRepository segmentRepository,
+                             @Value("${audit.sink:DATABASE}") AuditService.Sink sink,
+                             @Value("${audit.segment.dir:audit-segments}") Path directory,
+                             @Value("${audit.segment.size-bytes:67108864}") int segmentSize,
+                             @Value("${audit.segment.index-interval-bytes:65536}") int indexIntervalBytes,
+                             @Value("${audit.segment.bloom-bits:1048576}") int bloomBits) {
+        this.segmentRepository = segmentRepository;
+        this.enabled = sink == AuditService.Sink.SEGMENTS;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.indexIntervalBytes = indexIntervalBytes;
+        this.bloomBits = bloomBits;
+    }
+
+    /**
+     * Appends the entry to the active segment. Returns false if the store is not
+     * running or the write failed, so the caller can fall back to the database.
+     */
+    public boolean append(AuditLog entry) {
+        if (!running) {
+            return false;
+        }
+        if (entry.getTimestamp() == null) {
+            entry.setTimestamp(LocalDateTime.now());
+        }
+
+        synchronized (lock) {
+            try {
+                if (!active.append(entry)) {
+                    rotate();
+                    if (!active.append(entry)) {
+                        throw new IOException("Audit entry larger than a segment");
+                    }
+                }
+                appended.incrementAndGet();
+                return true;
+            } catch (IOException | RuntimeException e) {
+                appendFailures.incrementAndGet();
+                log.error("Failed to append audit entry {} {} to segment store",
+                        entry.getAction(), entry.getEntityId(), e);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Entries of the entity with a timestamp in [from, to) still held in local
+     * segments, oldest segment first, at most {@code limit}. Empty if the store is
+     * not running.
+     */
+    public List<AuditLog> lookup(String entityId, LocalDateTime from, LocalDateTime to, int limit) {
+        List<AuditLog> matches = new ArrayList<>();
+        if (!running) {
+            return matches;
+        }
+        long fromMicros = AuditSegmentFile.toEpochMicros(from);
+        long toMicros = AuditSegmentFile.toEpochMicros(to);
+
+        for (IndexedSegment segment : sealed) {
+            if (matches.size() >= limit) {
+                return matches;
+            }
+            scan(segment, entityId, fromMicros, toMicros, limit, matches);
+        }
+        synchronized (lock) {
+            if (active != null && matches.size() < limit) {
+                scan(active, entityId, fromMicros, toMicros, limit, matches);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Node id of the segment directory; null until the store has started.
+     */
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Sealed segments not yet shipped, oldest first.
+     */
+    public List<AuditSegmentFile> sealedSegments() {
+        return sealed.stream().map(IndexedSegment::file).toList();
+    }
+
+    /**
+     * Forgets a shipped segment and deletes its file.
+     */
+    public void release(AuditSegmentFile file) throws IOException {
+        sealed.removeIf(segment -> segment.file() == file);
+        file.close();
+        Files.deleteIfExists(file.path());
+    }
+
+    /**
+     * Forgets a segment whose hash chain is broken and keeps its file aside as evidence.
+     */
+    public void quarantine(AuditSegmentFile file) {
+        sealed.removeIf(segment -> segment.file() == file);
+        corruptSegments.incrementAndGet();
+        try {
+            file.close();
+            Path target = file.path().resolveSibling(file.path().getFileName() + CORRUPT_SUFFIX);
+            Files.move(file.path(), target, StandardCopyOption.REPLACE_EXISTING);
+            log.error("Audit segment {} failed hash chain verification, moved to {}", file.segmentId(), target);
+        } catch (IOException e) {
+            log.error("Could not quarantine audit segment {}", file.path(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${audit.segment.force-interval-ms:1000}")
+    public void force() {
+        if (!running) {
+            return;
+        }
+        AuditSegmentFile file;
+        synchronized (lock) {
+            file = active.file();
+        }
+        // Outside the lock: flushing dirty pages must not stall appends
+        file.force();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("running", running);
+        synchronized (lock) {
+            stats.put("activeSegment", active != null ? active.file().segmentId() : null);
+            stats.put("activeBytes", active != null ? active.file().position() : 0);
+        }
+        stats.put("sealedSegments", sealed.size());
+        stats.put("appended", appended.get());
+        stats.put("rotations", rotations.get());
+        stats.put("appendFailures", appendFailures.get());
+        stats.put("corruptSegments", corruptSegments.get());
+        stats.put("lookupSegmentsScanned", lookupSegmentsScanned.get());
+        stats.put("lookupSegmentsSkipped", lookupSegmentsSkipped.get());
+        stats.put("lookupRecordsRead", lookupRecordsRead.get());
+        return stats;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            recover();
+            running = true;
+            log.info("Audit segment store started in {} - active segment {}, {} sealed segments",
+                    directory, active.file().segmentId(), sealed.size());
+        } catch (Exception e) {
+            log.error("Could not start audit segment store in {}, audit entries go to the database", directory, e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        synchronized (lock) {
+            if (active != null) {
+                try {
+                    active.file().force();
+                    active.file().close();
+                } catch (IOException e) {
+                    log.warn("Error closing active audit segment: {}", e.getMessage());
+                }
+            }
+        }
+        log.info("Audit segment store stopped - appended: {}, failures: {}", appended.get(), appendFailures.get());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Lower phases stop later: after the web server (DEFAULT_PHASE - 2048), so in-flight
+        // requests still append, and before the database writer that appends fall back to
+        return SmartLifecycle.DEFAULT_PHASE - 3072;
+    }
+
+    /**
+     * Indexes the local segments, seals the one left active by the previous run and
+     * starts a new active segment that continues its chain. With no local segments
+     * the chain continues from the last shipped segment.
+     */
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+        nodeId = loadNodeId(!paths.isEmpty());
+
+        long nextSegmentId;
+        long nextSequence;
+        byte[] previousHash;
+        AuditSegmentFile last = null;
+
+        for (Path path : paths) {
+            AuditSegmentFile file = AuditSegmentFile.open(path);
+            if (!file.isSealed()) {
+                file.seal();
+            }
+            IndexedSegment segment = new IndexedSegment(file);
+            sealed.add(segment);
+            last = file;
+            try {
+                if (!file.isIntact()) {
+                    throw new AuditSegmentFile.BrokenChainException("Sealed record count does not match the chain");
+                }
+                file.forEach(segment::index);
+            } catch (AuditSegmentFile.BrokenChainException e) {
+                quarantine(file);
+            }
+        }
+
+        if (last != null) {
+            nextSegmentId = last.segmentId() + 1;
+            nextSequence = last.nextSequence();
+            previousHash = last.lastHash();
+        } else {
+            Shipment shipment = segmentRepository.findLastShipment(nodeId).orElse(null);
+            nextSegmentId = shipment != null ? shipment.segmentId() + 1 : 1;
+            nextSequence = shipment != null ? shipment.nextSequence() : 0;
+            previousHash = shipment != null ? shipment.lastHash() : new byte[AuditSegmentFile.HASH_SIZE];
+        }
+
+        active = new IndexedSegment(AuditSegmentFile.create(segmentPath(nextSegmentId), nextSegmentId,
+                nextSequence, previousHash, segmentSize));
+    }
+
+    /**
+     * Reads the directory's node id, generating it on first start. A directory that
+     * already holds segments predates node ids and keeps the legacy one, so its
+     * segments are matched against the shipments recorded for them.
+     */
+    private String loadNodeId(boolean hasSegments) throws IOException {
+        Path file = directory.resolve(NODE_ID_FILE);
+        if (Files.exists(file)) {
+            return Files.readString(file).strip();
+        }
+        String id = hasSegments ? LEGACY_NODE_ID : UUID.randomUUID().toString();
+        Files.writeString(file, id, StandardOpenOption.CREATE_NEW);
+        log.info("Audit segment directory {} has node id {}", directory, id);
+        return id;
+    }
+
+    private void rotate() throws IOException {
+        AuditSegmentFile full = active.file();
+        full.seal();
+        sealed.add(active);
+        active = new IndexedSegment(AuditSegmentFile.create(segmentPath(full.segmentId() + 1),
+                full.segmentId() + 1, full.nextSequence(), full.lastHash(), segmentSize));
+        rotations.incrementAndGet();
+        log.info("Sealed audit segment {} ({} records)", full.segmentId(), full.recordCount());
+    }
+
+    private void scan(IndexedSegment segment, String entityId, long fromMicros, long toMicros, int limit,
+                      List<AuditLog> matches) {
+        try {
+            if (segment.scan(entityId, fromMicros, toMicros, limit, matches)) {
+                lookupSegmentsScanned.incrementAndGet();
+            } else {
+                lookupSegmentsSkipped.incrementAndGet();
+            }
+        } catch (AuditSegmentFile.BrokenChainException e) {
+            // Quarantined by the shipper when its turn comes
+            log.error("Skipping audit segment {} in lookup: {}", segment.file().segmentId(), e.getMessage());
+        }
+    }
+
+    private Path segmentPath(long segmentId) {
+        return directory.resolve(String.format("audit-%016d%s", segmentId, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * A segment with its sparse index. Index points are (offset, highest timestamp
+     * of the records before the offset), so a scan for a range may start at the
+     * last point whose timestamp is older than the range even if records are not
+     * strictly in time order.
+     */
+    private final class IndexedSegment {
+        private final AuditSegmentFile file;
+        private final long[] bloom = new long[Math.max(1, bloomBits / 64)];
+        private int[] pointOffsets = new int[16];
+        private long[] pointMaxMicros = new long[16];
+        private int points;
+        private int nextPointOffset;
+        private long minMicros = Long.MAX_VALUE;
+        private long maxMicros = Long.MIN_VALUE;
+
+        IndexedSegment(AuditSegmentFile file) {
+            this.file = file;
+        }
+
+        AuditSegmentFile file() {
+            return file;
+        }
+
+        boolean append(AuditLog entry) {
+            int offset = file.position();
+            if (!file.append(entry)) {
+                return false;
+            }
+            index(offset, entry);
+            return true;
+        }
+
+        void index(AuditSegmentFile.Record record) {
+            index(record.offset(), record.entry());
+        }
+
+        private void index(int offset, AuditLog entry) {
+            if (offset >= nextPointOffset) {
+                if (points == pointOffsets.length) {
+                    pointOffsets = Arrays.copyOf(pointOffsets, points * 2);
+                    pointMaxMicros = Arrays.copyOf(pointMaxMicros, points * 2);
+                }
+                pointOffsets[points] = offset;
+                pointMaxMicros[points] = maxMicros;
+                points++;
+                nextPointOffset = offset + indexIntervalBytes;
+            }
+
+            long micros = AuditSegmentFile.toEpochMicros(entry.getTimestamp());
+            minMicros = Math.min(minMicros, micros);
+            maxMicros = Math.max(maxMicros, micros);
+            if (entry.getEntityId() != null) {
+                int hash = entry.getEntityId().hashCode();
+                for (int i = 0; i < BLOOM_HASHES; i++) {
+                    int bit = bloomBit(hash, i);
+                    bloom[bit >>> 6] |= 1L << bit;
+                }
+            }
+        }
+
+        /**
+         * Adds the matching records to {@code matches}; returns false if the segment
+         * was skipped without reading it.
+         */
+        boolean scan(String entityId, long fromMicros, long toMicros, int limit, List<AuditLog> matches) {
+            if (points == 0 || maxMicros < fromMicros || minMicros >= toMicros || !mightContain(entityId)) {
+                return false;
+            }
+
+            int start = AuditSegmentFile.HEADER_SIZE;
+            for (int i = points - 1; i >= 0; i--) {
+                if (pointMaxMicros[i] < fromMicros) {
+                    start = pointOffsets[i];
+                    break;
+                }
+            }
+
+            try {
+                file.forEach(start, file.hashBefore(start), record -> {
+                    if (matches.size() >= limit) {
+                        throw new ScanLimitReached();
+                    }
+                    lookupRecordsRead.incrementAndGet();
+                    AuditLog entry = record.entry();
+                    long micros = AuditSegmentFile.toEpochMicros(entry.getTimestamp());
+                    if (micros >= fromMicros && micros < toMicros && entityId.equals(entry.getEntityId())) {
+                        matches.add(entry);
+                    }
+                });
+            } catch (ScanLimitReached e) {
+                // limit reached
+            }
+            return true;
+        }
+
+        private boolean mightContain(String entityId) {
+            int hash = entityId.hashCode();
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int bit = bloomBit(hash, i);
+                if ((bloom[bit >>> 6] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int bloomBit(int hash, int i) {
+            int mixed = (hash + i * 0x9E3779B9) * 0x85EBCA6B;
+            mixed ^= mixed >>> 15;
+            return Math.floorMod(mixed, bloom.length * 64);
+        }
+    }
+
+    private static final class ScanLimitReached extends RuntimeException {
+        ScanLimitReached() {
+            super(null, null, false, false);
+        }
+    }
+}
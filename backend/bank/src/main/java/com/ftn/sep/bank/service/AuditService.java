@@ -1,23 +1,29 @@
 package com.ftn.sep.bank.service;
 
 import com.ftn.sep.bank.model.AuditLog;
-import com.ftn.sep.bank.repository.AuditLogRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AuditService {
 
-    private final AuditLogRepository auditLogRepository;
+    public enum Sink {
+        DATABASE,
+        SEGMENTS
+    }
+
+    private final AuditLogWriter auditLogWriter;
+    private final AuditSegmentStore auditSegmentStore;
 
-    @Async
     public void logPaymentAttempt(String paymentId, String panLastFour,
                                    String result, String details, String ipAddress) {
         AuditLog entry = AuditLog.builder()
+                .timestamp(LocalDateTime.now())
                 .action("PAYMENT_ATTEMPT")
                 .entityType("TRANSACTION")
                 .entityId(paymentId)
@@ -28,10 +34,10 @@ public class AuditService {
         save(entry);
     }
 
-    @Async
     public void logQrPaymentAttempt(String transactionId, String accountNumber,
                                      String result, String details, String ipAddress) {
         AuditLog entry = AuditLog.builder()
+                .timestamp(LocalDateTime.now())
                 .action("QR_PAYMENT_ATTEMPT")
                 .entityType("TRANSACTION")
                 .entityId(transactionId)
@@ -42,10 +48,10 @@ public class AuditService {
         save(entry);
     }
 
-    @Async
     public void logStatusChange(String transactionId, String oldStatus,
                                  String newStatus, String details) {
         AuditLog entry = AuditLog.builder()
+                .timestamp(LocalDateTime.now())
                 .action("STATUS_CHANGE")
                 .entityType("TRANSACTION")
                 .entityId(transactionId)
@@ -56,11 +62,14 @@ public class AuditService {
         save(entry);
     }
 
+    /**
+     * Appends to the segment store when it is the configured sink and running,
+     * otherwise (or if the append fails) queues the entry for the database.
+     */
     private void save(AuditLog entry) {
-        try {
-            auditLogRepository.save(entry);
-        } catch (Exception e) {
-            log.error("Failed to save audit log entry: {}", entry.getAction(), e);
+        if (auditSegmentStore.append(entry)) {
+            return;
         }
+        auditLogWriter.submit(entry);
     }
 }
@@ -0,0 +1,189 @@
+package com.ftn.sep.bank.service;
+
+import com.ftn.sep.bank.dto.ProcessPaymentRequest;
+import com.ftn.sep.bank.model.BankAccount;
+import com.ftn.sep.bank.model.BankTransaction;
+import com.ftn.sep.bank.model.TransactionStatus;
+import com.ftn.sep.bank.repository.BankAccountRepository;
+import com.ftn.sep.bank.repository.BankTransactionRepository;
+import com.ftn.sep.bank.service.AuthorizationResult.Outcome;
+import com.ftn.sep.bank.util.BinTable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import java.util.Optional;
+
+/**
+ * Runs the whole card authorization in a single DB transaction:
+ * one read for the transaction, an in-memory BIN lookup that rejects unknown
+ * ranges, one fetch-join read for card + account
+ * (skipped on a near-cache hit), a conditional debit with its ledger entry
+ * and a compare-and-set status flip. QR payments are confirmed the same way,
+ * with the payer-to-merchant transfer in place of the card reservation.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AuthorizationEngine {
+
+    private final BankTransactionRepository transactionRepository;
+    private final TransactionService transactionService;
+    private final BankAccountRepository bankAccountRepository;
+    private final CardService cardService;
+    private final CardValidationService cardValidationService;
+    private final AuditService auditService;
+    private final PspNotificationOutbox pspNotificationOutbox;
+    private final LedgerService ledgerService;
+    private final TransactionExpiryWheel expiryWheel;
+
+    @Value("${merchant.account.number}")
+    private String merchantAccountNumber;
+
+    @Transactional
+    public AuthorizationResult authorize(ProcessPaymentRequest request) {
+        BankTransaction transaction = transactionService.findByPaymentId(request.getPaymentId())
+                .orElseThrow(() -> new RuntimeException("Transaction not found"));
+
+        if (transaction.isPaymentUrlExpired()) {
+            transitionFromPending(transaction, TransactionStatus.EXPIRED, "Payment URL expired");
+            return new AuthorizationResult(Outcome.EXPIRED, transaction, "Payment session expired");
+        }
+
+        if (transaction.getStatus() != TransactionStatus.PENDING) {
+            return new AuthorizationResult(Outcome.ALREADY_PROCESSED, transaction,
+                    "Transaction already processed");
+        }
+
+        // Stage 1: Format validation (Luhn, expiry format, CVV format) - no DB access
+        if (!cardValidationService.validateCard(
+                request.getPan(),
+                request.getExpiryDate(),
+                request.getSecurityCode())) {
+            return decline(transaction, Outcome.INVALID_CARD_FORMAT, "Invalid card data format");
+        }
+
+        // Stage 2: BIN lookup - only cards of known ranges are authorized, and their metadata is recorded
+        BinTable.Entry bin = cardValidationService.lookupBin(request.getPan());
+        if (bin == null) {
+            return decline(transaction, Outcome.UNKNOWN_BIN, "Card BIN not supported");
+        }
+
+        // Stage 3: Card data validation against database
+        Optional<CardSnapshot> cardOpt = cardService.findSnapshotByPan(request.getPan());
+        if (cardOpt.isEmpty()
+                || !cardService.matchesCardData(cardOpt.get(), request.getCardHolderName(),
+                        request.getExpiryDate())) {
+            return decline(transaction, Outcome.CARD_DECLINED, "Card validation failed");
+        }
+
+        Long accountId = cardOpt.get().getAccountId();
+
+        // Stage 4: Balance check and debit in one conditional update, posted to the ledger
+        if (!ledgerService.transfer(transaction.getId(), accountId, null,
+                transaction.getAmount(), "Card payment reservation")) {
+            return decline(transaction, Outcome.INSUFFICIENT_FUNDS, "Insufficient funds");
+        }
+
+        // Stage 5: Flip PENDING -> RESERVED with the card metadata; losing the race rolls the debit back
+        int updated = transactionRepository.compareAndSetStatusWithCard(
+                transaction.getId(),
+                TransactionStatus.PENDING,
+                TransactionStatus.RESERVED,
+                bankAccountRepository.getReferenceById(accountId),
+                bin.brand(),
+                bin.issuer(),
+                bin.cardLevel()
+        );
+        if (updated == 0) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            log.warn("Concurrent payment attempt detected for Payment ID: {}", request.getPaymentId());
+            return new AuthorizationResult(Outcome.ALREADY_PROCESSED, transaction,
+                    "Concurrent payment attempt blocked");
+        }
+
+        expiryWheel.cancelAfterCommit(transaction.getId());
+        auditService.logStatusChange(String.valueOf(transaction.getId()),
+                TransactionStatus.PENDING.name(), TransactionStatus.RESERVED.name(), null);
+
+        transaction.setCardBrand(bin.brand());
+        transaction.setCardIssuer(bin.issuer());
+        transaction.setCardLevel(bin.cardLevel());
+        log.info("Reserved {} {} from account id {} ({} card, issuer {})",
+                transaction.getAmount(), transaction.getCurrency(), accountId, bin.brand(), bin.issuer());
+
+        Long notificationId = pspNotificationOutbox.enqueue(transaction, "SUCCESS");
+        return new AuthorizationResult(Outcome.APPROVED, transaction,
+                "Payment processed successfully", notificationId);
+    }
+
+    /**
+     * Debits the payer, credits the merchant and flips PENDING -> COMPLETED in one
+     * DB transaction; if another confirmation won the flip, the transfer is rolled back.
+     */
+    @Transactional
+    public AuthorizationResult confirmQrPayment(BankTransaction transaction, BankAccount payerAccount) {
+        BankAccount merchantAccount = bankAccountRepository.findByAccountNumber(merchantAccountNumber)
+                .orElseThrow(() -> new RuntimeException("Merchant account not found: " + merchantAccountNumber));
+
+        if (!ledgerService.transfer(transaction.getId(), payerAccount.getId(), merchantAccount.getId(),
+                transaction.getAmount(), "QR payment")) {
+            return decline(transaction, Outcome.INSUFFICIENT_FUNDS, "Insufficient funds");
+        }
+
+        int updated = transactionRepository.compareAndSetStatusWithAccount(
+                transaction.getId(),
+                TransactionStatus.PENDING,
+                TransactionStatus.COMPLETED,
+                payerAccount
+        );
+        if (updated == 0) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            log.warn("Concurrent QR payment confirmation detected for transaction: {}", transaction.getId());
+            return new AuthorizationResult(Outcome.ALREADY_PROCESSED, transaction,
+                    "Concurrent payment attempt blocked");
+        }
+
+        expiryWheel.cancelAfterCommit(transaction.getId());
+        auditService.logStatusChange(String.valueOf(transaction.getId()),
+                TransactionStatus.PENDING.name(), TransactionStatus.COMPLETED.name(), null);
+
+        log.info("Posted QR payment of {} {} from account {} to merchant account",
+                transaction.getAmount(), transaction.getCurrency(), payerAccount.getAccountNumber());
+
+        Long notificationId = pspNotificationOutbox.enqueue(transaction, "SUCCESS");
+        return new AuthorizationResult(Outcome.APPROVED, transaction,
+                "QR payment processed successfully", notificationId);
+    }
+
+    private AuthorizationResult decline(BankTransaction transaction, Outcome outcome, String reason) {
+        if (!transitionFromPending(transaction, TransactionStatus.FAILED, reason)) {
+            return new AuthorizationResult(Outcome.ALREADY_PROCESSED, transaction,
+                    "Transaction already processed");
+        }
+        Long notificationId = pspNotificationOutbox.enqueue(transaction, "FAILED");
+        return new AuthorizationResult(outcome, transaction, reason, notificationId);
+    }
+
+    private boolean transitionFromPending(BankTransaction transaction, TransactionStatus status,
+                                          String reason) {
+        int updated = transactionRepository.compareAndSetStatus(
+                transaction.getId(),
+                TransactionStatus.PENDING,
+                status,
+                reason
+        );
+        if (updated == 0) {
+            return false;
+        }
+
+        expiryWheel.cancelAfterCommit(transaction.getId());
+        log.info("Updated transaction {} to status: {}", transaction.getId(), status);
+        auditService.logStatusChange(String.valueOf(transaction.getId()),
+                TransactionStatus.PENDING.name(), status.name(), reason);
+        return true;
+    }
+}
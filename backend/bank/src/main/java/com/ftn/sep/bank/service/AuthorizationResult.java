@@ -0,0 +1,33 @@
+package com.ftn.sep.bank.service;
+
+import com.ftn.sep.bank.model.BankTransaction;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class AuthorizationResult {
+
+    public enum Outcome {
+        APPROVED,
+        EXPIRED,
+        ALREADY_PROCESSED,
+        INVALID_CARD_FORMAT,
+        UNKNOWN_BIN,
+        CARD_DECLINED,
+        INSUFFICIENT_FUNDS
+    }
+
+    private final Outcome outcome;
+    private final BankTransaction transaction;
+    private final String reason;
+    private final Long notificationId;
+
+    public AuthorizationResult(Outcome outcome, BankTransaction transaction, String reason) {
+        this(outcome, transaction, reason, null);
+    }
+
+    public boolean isApproved() {
+        return outcome == Outcome.APPROVED;
+    }
+}
@@ -1,54 +1,158 @@
 package com.ftn.sep.bank.service;
 
+import com.ftn.sep.bank.model.AccountBalanceStripe;
 import com.ftn.sep.bank.model.BankAccount;
+import com.ftn.sep.bank.repository.AccountBalanceStripeRepository;
 import com.ftn.sep.bank.repository.BankAccountRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
 
+/**
+ * Account balance operations.
+ * <p>
+ * Accounts listed in {@code bank.hot-account.numbers} (the merchant account by
+ * default) are credited through striped sub-balance rows so concurrent credits
+ * do not serialize on the account row. Stripes are folded into the account
+ * balance by {@link #consolidateStripes(Long)}; balance reads include them.
+ * Debits always go against the consolidated account balance.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class BankAccountService {
 
     private final BankAccountRepository bankAccountRepository;
+    private final AccountBalanceStripeRepository stripeRepository;
+
+    @Value("${bank.hot-account.numbers:}")
+    private Set<String> hotAccountNumbers;
+
+    @Value("${bank.hot-account.stripes:16}")
+    private int stripeCount;
+
+    private volatile Set<Long> hotAccountIds;
 
     public Optional<BankAccount> findByAccountNumber(String accountNumber) {
         return bankAccountRepository.findByAccountNumber(accountNumber);
     }
 
+    public boolean isHotAccount(BankAccount account) {
+        return hotAccountNumbers.contains(account.getAccountNumber());
+    }
+
+    /**
+     * Current balance, including credits not yet consolidated for hot accounts.
+     */
+    public BigDecimal getBalance(BankAccount account) {
+        if (!isHotAccount(account)) {
+            return account.getBalance();
+        }
+        return stripeRepository.currentBalance(account.getId());
+    }
+
+    /**
+     * Current balance read while holding the locks that debits and credits of the
+     * account take (the account row and, for hot accounts, all of its stripes), so
+     * no balance change can commit until the calling transaction ends.
+     */
+    @Transactional
+    public BigDecimal lockBalance(Long accountId) {
+        BankAccount account = bankAccountRepository.findByIdForUpdate(accountId)
+                .orElseThrow(() -> new RuntimeException("Account not found: " + accountId));
+        if (!isHotAccount(account)) {
+            return account.getBalance();
+        }
+        stripeRepository.createStripes(accountId, stripeCount);
+        stripeRepository.findAllForUpdate(accountId);
+        return stripeRepository.currentBalance(accountId);
+    }
+
     public boolean hasSufficientFunds(BankAccount account, BigDecimal amount) {
-        boolean sufficient = account.getBalance().compareTo(amount) >= 0;
+        boolean sufficient = getBalance(account).compareTo(amount) >= 0;
         log.debug("Sufficient funds check for account {}: {}",
                 account.getAccountNumber(), sufficient);
         return sufficient;
     }
 
+    /**
+     * Debits the account only if its consolidated balance covers the amount.
+     * Balance changes are posted through {@link LedgerService}.
+     */
     @Transactional
-    public void reserveFunds(BankAccount account, BigDecimal amount) {
-        if (!hasSufficientFunds(account, amount)) {
-            throw new RuntimeException("Insufficient funds");
+    public boolean debit(Long accountId, BigDecimal amount) {
+        return bankAccountRepository.debitIfSufficient(accountId, amount) == 1;
+    }
+
+    /**
+     * Credits the account with an atomic increment; hot accounts are credited
+     * on a randomly chosen stripe instead of the account row.
+     * Balance changes are posted through {@link LedgerService}.
+     */
+    @Transactional
+    public void credit(Long accountId, BigDecimal amount) {
+        if (hotAccountIds().contains(accountId)) {
+            creditStripe(accountId, amount);
+        } else {
+            bankAccountRepository.credit(accountId, amount);
+        }
+    }
+
+    private Set<Long> hotAccountIds() {
+        Set<Long> ids = hotAccountIds;
+        if (ids == null) {
+            ids = hotAccountNumbers.stream()
+                    .map(bankAccountRepository::findByAccountNumber)
+                    .flatMap(Optional::stream)
+                    .map(BankAccount::getId)
+                    .collect(Collectors.toUnmodifiableSet());
+            // Keep resolving until every configured account exists
+            if (ids.size() == hotAccountNumbers.size()) {
+                hotAccountIds = ids;
+            }
         }
+        return ids;
+    }
 
-        BigDecimal newBalance = account.getBalance().subtract(amount);
-        account.setBalance(newBalance);
-        bankAccountRepository.save(account);
+    private void creditStripe(Long accountId, BigDecimal amount) {
+        int stripe = ThreadLocalRandom.current().nextInt(stripeCount);
+        if (stripeRepository.credit(accountId, stripe, amount) == 0) {
+            stripeRepository.createStripes(accountId, stripeCount);
+            stripeRepository.credit(accountId, stripe, amount);
+        }
+    }
 
-        log.info("Reserved {} {} from account {}",
-                amount, account.getCurrency(), account.getAccountNumber());
+    public List<Long> findAccountsWithPendingStripes() {
+        return stripeRepository.findAccountIdsWithPendingBalance();
     }
 
+    /**
+     * Moves the stripe balances of the account into its main balance.
+     * The non-empty stripes stay locked until commit, so no credit is lost
+     * or counted twice. Returns the amount moved.
+     */
     @Transactional
-    public void releaseFunds(BankAccount account, BigDecimal amount) {
-        BigDecimal newBalance = account.getBalance().add(amount);
-        account.setBalance(newBalance);
-        bankAccountRepository.save(account);
+    public BigDecimal consolidateStripes(Long accountId) {
+        List<AccountBalanceStripe> stripes = stripeRepository.findNonEmptyForUpdate(accountId);
 
-        log.info("Released {} {} to account {}",
-                amount, account.getCurrency(), account.getAccountNumber());
+        BigDecimal total = BigDecimal.ZERO;
+        for (AccountBalanceStripe stripe : stripes) {
+            total = total.add(stripe.getBalance());
+            stripe.setBalance(BigDecimal.ZERO);
+        }
+
+        if (total.signum() != 0) {
+            bankAccountRepository.credit(accountId, total);
+        }
+        return total;
     }
 }
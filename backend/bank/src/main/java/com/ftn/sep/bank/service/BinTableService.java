@@ -0,0 +1,91 @@
+package com.ftn.sep.bank.service;
+
+import com.ftn.sep.bank.util.BinTable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds the current BIN table and swaps it atomically on reload. The table is
+ * loaded at startup (failing fast on a bad file) and re-read periodically; a
+ * file that fails to load on refresh leaves the current table in place.
+ */
+@Service
+@Slf4j
+public class BinTableService {
+
+    private final ResourceLoader resourceLoader;
+    private final String location;
+
+    private volatile BinTable table;
+    private volatile LocalDateTime loadedAt;
+
+    public BinTableService(ResourceLoader resourceLoader,
+                           @Value("${card.bin-table.location:classpath:bin/bin-ranges.csv}") String location) {
+        this.resourceLoader = resourceLoader;
+        this.location = location;
+        reload();
+    }
+
+    public BinTable.Entry lookup(CharSequence pan) {
+        return table.lookup(pan);
+    }
+
+    /**
+     * Loads the table from the configured location and swaps it in if its version
+     * differs from the current one. Returns true if the table changed.
+     */
+    public synchronized boolean reload() {
+        BinTable loaded = load();
+        BinTable current = table;
+        if (current != null && current.version().equals(loaded.version())) {
+            return false;
+        }
+
+        table = loaded;
+        loadedAt = LocalDateTime.now();
+        log.info("Loaded BIN table version {} from {}: {} ranges, {} nodes",
+                loaded.version(), location, loaded.rangeCount(), loaded.nodeCount());
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${card.bin-table.refresh-interval-ms:300000}",
+            initialDelayString = "${card.bin-table.refresh-interval-ms:300000}")
+    public void refresh() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("Error reloading BIN table from {}, keeping version {}", location, table.version(), e);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        BinTable current = table;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("version", current.version());
+        stats.put("ranges", current.rangeCount());
+        stats.put("nodes", current.nodeCount());
+        stats.put("loadedAt", loadedAt);
+        return stats;
+    }
+
+    private BinTable load() {
+        Resource resource = resourceLoader.getResource(location);
+        try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+            return BinTable.parse(reader);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read BIN table from " + location, e);
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.ftn.sep.bank.service;
+
+import com.ftn.sep.bank.util.IpsQrValidationResult;
+import com.ftn.sep.bank.util.IpsQrValidator;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+import tools.jackson.core.ObjectWriteContext;
+import tools.jackson.core.json.JsonFactory;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Validates a stream of NDJSON IPS QR payloads and streams NDJSON results back.
+ * <p>
+ * Input is read in chunks; each chunk is split into slices validated in parallel,
+ * while the next chunk is being read. Results are written in input order and at
+ * most two chunks are held in memory, so the body is never buffered as a whole.
+ * <p>
+ * Each input line is either {"payload": "...", "id": "..."} ("id" is optional and
+ * echoed back) or a bare JSON string with the payload.
+ * <p>
+ * At most {@code max-lines} lines and {@code max-bytes} bytes of a request are
+ * read; if the body is longer, an error line is written before the summary and
+ * the rest of the body is ignored.
+ */
+@Service
+@Slf4j
+public class BulkQrValidationService {
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .rootValueSeparator((String) null)
+            .build();
+
+    private final IpsQrValidator qrValidator;
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final int chunkSize;
+    private final long maxLines;
+    private final long maxBytes;
+
+    public BulkQrValidationService(IpsQrValidator qrValidator,
+                                   @Value("${qr.bulk.threads:0}") int threads,
+                                   @Value("${qr.bulk.chunk-size:4096}") int chunkSize,
+                                   @Value("${qr.bulk.max-lines:100000}") long maxLines,
+                                   @Value("${qr.bulk.max-bytes:16777216}") long maxBytes) {
+        this.qrValidator = qrValidator;
+        this.parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.chunkSize = chunkSize;
+        this.maxLines = maxLines;
+        this.maxBytes = maxBytes;
+        this.executor = Executors.newFixedThreadPool(parallelism);
+    }
+
+    public record Summary(long total, long valid, long invalid, long malformed,
+                          long elapsedMs, long payloadsPerSecond) {
+    }
+
+    private record SliceResult(byte[] output, int valid, int invalid, int malformed) {
+    }
+
+    public Summary validate(InputStream input, OutputStream output, boolean includeParsedData) throws IOException {
+        long startedAt = System.nanoTime();
+        long valid = 0;
+        long invalid = 0;
+        long malformed = 0;
+
+        LimitedInputStream limited = new LimitedInputStream(input, maxBytes);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(limited, StandardCharsets.UTF_8), 64 * 1024);
+
+        List<Future<SliceResult>> pending = List.of();
+        long lineNumber = 0;
+
+        while (true) {
+            List<String> chunk = new ArrayList<>(chunkSize);
+            String line;
+            while (chunk.size() < chunkSize && lineNumber + chunk.size() < maxLines
+                    && (line = reader.readLine()) != null) {
+                chunk.add(line);
+            }
+
+            List<Future<SliceResult>> submitted = submit(chunk, lineNumber, includeParsedData);
+            lineNumber += chunk.size();
+
+            for (Future<SliceResult> future : pending) {
+                SliceResult slice = await(future);
+                output.write(slice.output());
+                valid += slice.valid();
+                invalid += slice.invalid();
+                malformed += slice.malformed();
+            }
+            output.flush();
+
+            pending = submitted;
+            if (chunk.isEmpty()) {
+                break;
+            }
+        }
+
+        String limitError = null;
+        if (lineNumber >= maxLines && reader.readLine() != null) {
+            limitError = "Request exceeds " + maxLines + " lines, remaining input ignored";
+        } else if (limited.exceeded()) {
+            limitError = "Request exceeds " + maxBytes + " bytes, remaining input ignored";
+        }
+        if (limitError != null) {
+            log.warn("Bulk QR validation stopped: {}", limitError);
+            writeError(output, limitError);
+        }
+
+        long total = valid + invalid + malformed;
+        long elapsedMs = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+        Summary summary = new Summary(total, valid, invalid, malformed, elapsedMs, total * 1000 / elapsedMs);
+
+        writeSummary(output, summary);
+        output.flush();
+
+        log.info("Bulk QR validation finished: {} payloads ({} valid, {} invalid, {} malformed) in {} ms, {} payloads/s",
+                total, valid, invalid, malformed, elapsedMs, summary.payloadsPerSecond());
+        return summary;
+    }
+
+    private List<Future<SliceResult>> submit(List<String> chunk, long firstLineNumber, boolean includeParsedData) {
+        if (chunk.isEmpty()) {
+            return List.of();
+        }
+
+        int sliceSize = Math.max(64, (chunk.size() + parallelism - 1) / parallelism);
+        List<Future<SliceResult>> futures = new ArrayList<>();
+        for (int from = 0; from < chunk.size(); from += sliceSize) {
+            List<String> slice = chunk.subList(from, Math.min(chunk.size(), from + sliceSize));
+            long sliceFirstLine = firstLineNumber + from + 1;
+            futures.add(executor.submit(() -> validateSlice(slice, sliceFirstLine, includeParsedData)));
+        }
+        return futures;
+    }
+
+    private SliceResult validateSlice(List<String> lines, long firstLineNumber, boolean includeParsedData) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(lines.size() * 64);
+        IpsQrValidationResult result = new IpsQrValidationResult();
+        int valid = 0;
+        int invalid = 0;
+        int malformed = 0;
+
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(ObjectWriteContext.empty(), buffer)) {
+            long lineNumber = firstLineNumber;
+            for (String line : lines) {
+                if (line.isBlank()) {
+                    lineNumber++;
+                    continue;
+                }
+
+                String[] request = new String[2];
+                String error = parseLine(line, request);
+
+                generator.writeStartObject();
+                generator.writeNumberProperty("line", lineNumber);
+                if (request[1] != null) {
+                    generator.writeStringProperty("id", request[1]);
+                }
+
+                if (error != null) {
+                    generator.writeStringProperty("error", error);
+                    malformed++;
+                } else {
+                    qrValidator.validateQrPayload(request[0], result);
+                    writeResult(generator, result, includeParsedData);
+                    if (result.isValid()) {
+                        valid++;
+                    } else {
+                        invalid++;
+                    }
+                }
+
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                lineNumber++;
+            }
+        }
+
+        return new SliceResult(buffer.toByteArray(), valid, invalid, malformed);
+    }
+
+    /**
+     * Parses one input line into {payload, id}; returns an error message if the line is malformed.
+     */
+    private String parseLine(String line, String[] request) {
+        try (JsonParser parser = JSON_FACTORY.createParser(ObjectReadContext.empty(), line)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_STRING) {
+                request[0] = parser.getString();
+                return null;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                return "Line must be a JSON object or string";
+            }
+
+            while ((token = parser.nextToken()) == JsonToken.PROPERTY_NAME) {
+                String name = parser.currentName();
+                token = parser.nextToken();
+                if ("payload".equals(name) && token == JsonToken.VALUE_STRING) {
+                    request[0] = parser.getString();
+                } else if ("id".equals(name) && token.isScalarValue()) {
+                    request[1] = parser.getString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return request[0] != null ? null : "Missing 'payload'";
+        } catch (JacksonException e) {
+            return "Malformed JSON: " + e.getOriginalMessage();
+        }
+    }
+
+    private void writeResult(JsonGenerator generator, IpsQrValidationResult result, boolean includeParsedData) {
+        generator.writeBooleanProperty("valid", result.isValid());
+        if (!result.isValid()) {
+            generator.writeName("errors");
+            generator.writeStartArray();
+            for (String error : result.getErrors()) {
+                generator.writeString(error);
+            }
+            generator.writeEndArray();
+        }
+        if (includeParsedData) {
+            generator.writeName("parsedData");
+            generator.writeStartObject();
+            for (Map.Entry<String, String> entry : result.getParsedData().entrySet()) {
+                generator.writeStringProperty(entry.getKey(), entry.getValue());
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    private void writeError(OutputStream output, String error) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(ObjectWriteContext.empty(), buffer)) {
+            generator.writeStartObject();
+            generator.writeStringProperty("error", error);
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+        output.write(buffer.toByteArray());
+    }
+
+    private void writeSummary(OutputStream output, Summary summary) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(192);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(ObjectWriteContext.empty(), buffer)) {
+            generator.writeStartObject();
+            generator.writeName("summary");
+            generator.writeStartObject();
+            generator.writeNumberProperty("total", summary.total());
+            generator.writeNumberProperty("valid", summary.valid());
+            generator.writeNumberProperty("invalid", summary.invalid());
+            generator.writeNumberProperty("malformed", summary.malformed());
+            generator.writeNumberProperty("elapsedMs", summary.elapsedMs());
+            generator.writeNumberProperty("payloadsPerSecond", summary.payloadsPerSecond());
+            generator.writeEndObject();
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+        output.write(buffer.toByteArray());
+    }
+
+    private SliceResult await(Future<SliceResult> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Bulk validation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Bulk validation failed", e.getCause());
+        }
+    }
+
+    /**
+     * Reports end of input after {@code limit} bytes; {@link #exceeded()} tells
+     * whether the underlying stream had more.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private long remaining;
+        private boolean exceeded;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (atLimit()) {
+                return -1;
+            }
+            int b = in.read();
+            if (b != -1) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (atLimit()) {
+                return -1;
+            }
+            int read = in.read(b, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        private boolean atLimit() throws IOException {
+            if (remaining > 0) {
+                return false;
+            }
+            if (!exceeded && in.read() != -1) {
+                exceeded = true;
+            }
+            return true;
+        }
+
+        boolean exceeded() {
+            return exceeded;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,119 @@
+package com.ftn.sep.bank.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU near-cache of card metadata keyed by PAN hash, with TTL expiry.
+ */
+@Component
+@Slf4j
+public class CardMetadataCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<String, Entry> entries;
+    private final Map<Long, Set<String>> panHashesByAccount = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CardMetadataCache(@Value("${card.cache.max-size:10000}") int maxSize,
+                             @Value("${card.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > CardMetadataCache.this.maxSize) {
+                    unindex(eldest.getKey(), eldest.getValue().snapshot());
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized Optional<CardSnapshot> get(String panHash) {
+        Entry entry = entries.get(panHash);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        if (System.nanoTime() - entry.loadedAt() > ttlNanos) {
+            entries.remove(panHash);
+            unindex(panHash, entry.snapshot());
+            evictions.incrementAndGet();
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        return Optional.of(entry.snapshot());
+    }
+
+    public synchronized void put(String panHash, CardSnapshot snapshot) {
+        Entry previous = entries.put(panHash, new Entry(snapshot, System.nanoTime()));
+        if (previous != null) {
+            unindex(panHash, previous.snapshot());
+        }
+        panHashesByAccount.computeIfAbsent(snapshot.getAccountId(), id -> new HashSet<>()).add(panHash);
+    }
+
+    public synchronized void invalidate(String panHash) {
+        Entry removed = entries.remove(panHash);
+        if (removed != null) {
+            unindex(panHash, removed.snapshot());
+        }
+    }
+
+    public synchronized void invalidateAccount(Long accountId) {
+        Set<String> panHashes = panHashesByAccount.remove(accountId);
+        if (panHashes != null) {
+            panHashes.forEach(entries::remove);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        panHashesByAccount.clear();
+    }
+
+    public Map<String, Object> stats() {
+        int size;
+        synchronized (this) {
+            size = entries.size();
+        }
+        return Map.of(
+                "size", size,
+                "maxSize", maxSize,
+                "hits", hits.get(),
+                "misses", misses.get(),
+                "evictions", evictions.get()
+        );
+    }
+
+    private void unindex(String panHash, CardSnapshot snapshot) {
+        Set<String> panHashes = panHashesByAccount.get(snapshot.getAccountId());
+        if (panHashes != null) {
+            panHashes.remove(panHash);
+            if (panHashes.isEmpty()) {
+                panHashesByAccount.remove(snapshot.getAccountId());
+            }
+        }
+    }
+
+    private record Entry(CardSnapshot snapshot, long loadedAt) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.ftn.sep.bank.service;
+
+import com.ftn.sep.bank.model.BankAccount;
+import com.ftn.sep.bank.model.CardInfo;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts cached card metadata whenever a card or its account is modified.
+ */
+@Component
+@RequiredArgsConstructor
+public class CardMetadataCacheListener {
+
+    private final CardMetadataCache cardMetadataCache;
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        if (entity instanceof CardInfo card) {
+            cardMetadataCache.invalidate(card.getPanHash());
+        } else if (entity instanceof BankAccount account) {
+            cardMetadataCache.invalidateAccount(account.getId());
+        }
+    }
+}
@@ -17,24 +17,53 @@ public class CardService {
 
     private final CardInfoRepository cardInfoRepository;
     private final EncryptionService encryptionService;
+    private final CardMetadataCache cardMetadataCache;
 
     public Optional<CardInfo> findByPan(String pan) {
         String panHash = encryptionService.hash(pan);
         return cardInfoRepository.findByPanHash(panHash);
     }
 
+    /**
+     * Looks up card metadata through the near-cache, falling back to the database.
+     */
+    public Optional<CardSnapshot> findSnapshotByPan(String pan) {
+        String panHash = encryptionService.hash(pan);
+
+        Optional<CardSnapshot> cached = cardMetadataCache.get(panHash);
+        if (cached.isPresent()) {
+            return cached;
+        }
+
+        Optional<CardSnapshot> loaded = cardInfoRepository.findWithAccountByPanHash(panHash)
+                .map(CardSnapshot::of);
+        loaded.ifPresent(snapshot -> cardMetadataCache.put(panHash, snapshot));
+        return loaded;
+    }
+
     public boolean validateCardData(String pan, String cardHolderName,
                                     String expiryDate, String securityCode) {
-        Optional<CardInfo> cardOpt = findByPan(pan);
+        Optional<CardSnapshot> cardOpt = findSnapshotByPan(pan);
 
         if (cardOpt.isEmpty()) {
             log.warn("Card not found for PAN ending in: {}", pan.substring(pan.length() - 4));
             return false;
         }
 
-        CardInfo card = cardOpt.get();
+        if (!matchesCardData(cardOpt.get(), cardHolderName, expiryDate)) {
+            return false;
+        }
 
-        if (!card.getActive()) {
+        log.info("Card validation successful for PAN ending in: {}",
+                pan.substring(pan.length() - 4));
+        return true;
+    }
+
+    /**
+     * Checks an already loaded card against the data entered by the customer.
+     */
+    public boolean matchesCardData(CardSnapshot card, String cardHolderName, String expiryDate) {
+        if (!card.isActive()) {
             log.warn("Card is not active");
             return false;
         }
@@ -57,8 +86,6 @@ public class CardService {
             return false;
         }
 
-        log.info("Card validation successful for PAN ending in: {}",
-                pan.substring(pan.length() - 4));
         return true;
     }
 }
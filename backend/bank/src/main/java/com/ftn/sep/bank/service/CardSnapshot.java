@@ -0,0 +1,31 @@
+package com.ftn.sep.bank.service;
+
+import com.ftn.sep.bank.model.CardInfo;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Non-sensitive card metadata safe to keep in memory (no PAN, no CVV).
+ */
+@Getter
+@AllArgsConstructor
+public class CardSnapshot {
+
+    private final Long cardId;
+    private final Long accountId;
+    private final String cardHolderName;
+    private final LocalDate expiryDate;
+    private final boolean active;
+
+    public static CardSnapshot of(CardInfo card) {
+        return new CardSnapshot(
+                card.getId(),
+                card.getAccount().getId(),
+                card.getCardHolderName(),
+                card.getExpiryDate(),
+                Boolean.TRUE.equals(card.getActive())
+        );
+    }
+}
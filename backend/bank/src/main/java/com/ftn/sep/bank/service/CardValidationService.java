@@ -1,102 +1,69 @@
 package com.ftn.sep.bank.service;
 
 import com.ftn.sep.bank.model.CardType;
+import com.ftn.sep.bank.util.BinTable;
+import com.ftn.sep.bank.util.CardFormatValidator;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDate;
-import java.time.YearMonth;
-import java.time.format.DateTimeFormatter;
-
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class CardValidationService {
 
+    private final BinTableService binTableService;
+    private final CardFormatValidator cardFormatValidator;
+
     public boolean validatePanWithLuhn(String pan) {
-        if (pan == null || !pan.matches("\\d{13,19}")) {
+        int result = cardFormatValidator.checkPan(pan);
+        if (result == CardFormatValidator.PAN_FORMAT) {
             log.warn("Invalid PAN format (length: {})", pan != null ? pan.length() : "null");
-            return false;
         }
-
-        int sum = 0;
-        boolean alternate = false;
-
-        for (int i = pan.length() - 1; i >= 0; i--) {
-            int digit = Character.getNumericValue(pan.charAt(i));
-
-            if (alternate) {
-                digit *= 2;
-                if (digit > 9) {
-                    digit -= 9;
-                }
-            }
-
-            sum += digit;
-            alternate = !alternate;
-        }
-
-        boolean isValid = (sum % 10 == 0);
-        log.debug("Luhn validation for PAN ending in {}: {}",
-                pan.substring(pan.length() - 4), isValid);
-        return isValid;
+        return result == CardFormatValidator.VALID;
     }
 
     public boolean validateExpiryDate(String expiryDate) {
-        if (expiryDate == null || !expiryDate.matches("\\d{2}/\\d{2}")) {
+        int result = cardFormatValidator.checkExpiry(expiryDate);
+        if (result == CardFormatValidator.EXPIRY_FORMAT) {
             log.warn("Invalid expiry date format: {}", expiryDate);
-            return false;
-        }
-
-        try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/yy");
-            YearMonth cardExpiry = YearMonth.parse(expiryDate, formatter);
-            YearMonth currentMonth = YearMonth.now();
-
-            boolean isValid = !cardExpiry.isBefore(currentMonth);
-            log.debug("Expiry date validation for {}: {}", expiryDate, isValid);
-            return isValid;
-        } catch (Exception e) {
-            log.error("Error parsing expiry date: {}", expiryDate, e);
-            return false;
         }
+        return result == CardFormatValidator.VALID;
     }
 
     public boolean validateSecurityCode(String securityCode) {
-        boolean isValid = securityCode != null && securityCode.matches("\\d{3,4}");
-        log.debug("Security code validation: {}", isValid);
-        return isValid;
+        return cardFormatValidator.checkSecurityCode(securityCode) == CardFormatValidator.VALID;
     }
 
     public CardType detectCardType(String pan) {
+        BinTable.Entry bin = lookupBin(pan);
+        return bin != null ? bin.brand() : null;
+    }
+
+    /**
+     * Brand, issuer and card level for the PAN's BIN, or null if it is not in the BIN table.
+     */
+    public BinTable.Entry lookupBin(String pan) {
         if (pan == null || pan.isEmpty()) {
             return null;
         }
 
-        if (pan.startsWith("4")) {
-            return CardType.VISA;
-        }
-
-        if (pan.matches("^5[1-5].*") ||
-                (pan.length() >= 4 && Integer.parseInt(pan.substring(0, 4)) >= 2221
-                        && Integer.parseInt(pan.substring(0, 4)) <= 2720)) {
-            return CardType.MASTERCARD;
-        }
-
-        if (pan.matches("^3[47].*")) {
-            return CardType.AMEX;
-        }
-
-        if (pan.matches("^3[68].*")) {
-            return CardType.DINNERS;
+        BinTable.Entry bin = binTableService.lookup(pan);
+        if (bin == null) {
+            log.warn("Unknown card type for PAN starting with: {}", pan.substring(0, 1));
         }
-
-        log.warn("Unknown card type for PAN starting with: {}", pan.substring(0, 1));
-        return null;
+        return bin;
     }
 
+    /**
+     * Checks PAN, expiry and CVV format in one pass per field. Only failures are
+     * logged, and without card data.
+     */
     public boolean validateCard(String pan, String expiryDate, String securityCode) {
-        return validatePanWithLuhn(pan)
-                && validateExpiryDate(expiryDate)
-                && validateSecurityCode(securityCode);
+        int result = cardFormatValidator.validate(pan, expiryDate, securityCode);
+        if (result != CardFormatValidator.VALID) {
+            log.debug("Card format validation failed with flags {}", result);
+        }
+        return result == CardFormatValidator.VALID;
     }
 }
@@ -0,0 +1,162 @@
+package com.ftn.sep.bank.service;
+
+import com.ftn.sep.bank.model.LedgerPosting;
+import com.ftn.sep.bank.model.LedgerSnapshot;
+import com.ftn.sep.bank.repository.BankAccountRepository;
+import com.ftn.sep.bank.repository.LedgerPostingRepository;
+import com.ftn.sep.bank.repository.LedgerSnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Append-only double-entry ledger.
+ * <p>
+ * Every balance movement is one entry of two postings (debit leg negative,
+ * credit leg positive) written in the same transaction as the guarded
+ * balance update in {@link BankAccountService}. A null account id stands for
+ * the bank's clearing account, e.g. the counter leg of a card reservation.
+ * <p>
+ * Balances at a point in time are the latest snapshot before it plus the
+ * postings since the snapshot's cutoff. Snapshots are only taken for cutoffs
+ * older than {@code ledger.snapshot.lag-seconds}, so postings from transactions
+ * still in flight are never left out of a snapshot.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerService {
+
+    public static final String OPENING_BALANCE = "Opening balance";
+
+    private final LedgerPostingRepository postingRepository;
+    private final LedgerSnapshotRepository snapshotRepository;
+    private final BankAccountRepository bankAccountRepository;
+    private final BankAccountService bankAccountService;
+
+    /**
+     * Moves the amount between two accounts and records both legs.
+     * The debit is only applied if the debited account's balance covers it;
+     * otherwise nothing is changed and false is returned.
+     */
+    @Transactional
+    public boolean transfer(Long transactionId, Long debitAccountId, Long creditAccountId,
+                            BigDecimal amount, String description) {
+        if (debitAccountId != null && !bankAccountService.debit(debitAccountId, amount)) {
+            return false;
+        }
+        if (creditAccountId != null) {
+            bankAccountService.credit(creditAccountId, amount);
+        }
+
+        UUID entryId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        postingRepository.saveAll(List.of(
+                posting(entryId, debitAccountId, transactionId, amount.negate(), now, description),
+                posting(entryId, creditAccountId, transactionId, amount, now, description)
+        ));
+
+        log.debug("Posted {} from account {} to account {} for transaction {}",
+                amount, debitAccountId, creditAccountId, transactionId);
+        return true;
+    }
+
+    /**
+     * Ledger balance of the account from postings made before the given time.
+     */
+    public BigDecimal balanceAt(Long accountId, LocalDateTime at) {
+        Optional<LedgerSnapshot> snapshot =
+                snapshotRepository.findTopByAccountIdAndCutoffAtLessThanEqualOrderByCutoffAtDesc(accountId, at);
+
+        if (snapshot.isEmpty()) {
+            return postingRepository.sumBefore(accountId, at);
+        }
+        return snapshot.get().getBalance()
+                .add(postingRepository.sumBetween(accountId, snapshot.get().getCutoffAt(), at));
+    }
+
+    /**
+     * Posts an opening entry against the clearing account for every account that
+     * has none yet, so the ledger starts from existing balances. Each account's
+     * balance is read under its balance locks and reduced by the postings it
+     * already has, so transfers made before (or while) the account is opened are
+     * not counted twice. Accounts opened concurrently by another instance are
+     * skipped once their lock is acquired. Returns the number opened.
+     */
+    @Transactional
+    public int postOpeningBalances() {
+        LocalDateTime now = LocalDateTime.now();
+        int opened = 0;
+
+        for (Long accountId : postingRepository.findAccountIdsWithoutEntry(OPENING_BALANCE)) {
+            BigDecimal balance = bankAccountService.lockBalance(accountId);
+            if (postingRepository.existsByAccountIdAndDescription(accountId, OPENING_BALANCE)) {
+                continue;
+            }
+
+            BigDecimal opening = balance.subtract(postingRepository.sumAll(accountId));
+            UUID entryId = UUID.randomUUID();
+            postingRepository.saveAll(List.of(
+                    posting(entryId, null, null, opening.negate(), now, OPENING_BALANCE),
+                    posting(entryId, accountId, null, opening, now, OPENING_BALANCE)
+            ));
+            opened++;
+        }
+
+        return opened;
+    }
+
+    /**
+     * Adds a snapshot at the cutoff for every account with postings since its
+     * previous snapshot (or with no snapshot yet). Returns the number taken.
+     */
+    @Transactional
+    public int takeSnapshots(LocalDateTime cutoff) {
+        LocalDateTime now = LocalDateTime.now();
+        int taken = 0;
+
+        for (Long accountId : bankAccountRepository.findAllIds()) {
+            Optional<LedgerSnapshot> previous =
+                    snapshotRepository.findTopByAccountIdAndCutoffAtLessThanEqualOrderByCutoffAtDesc(accountId, cutoff);
+            if (previous.isPresent() && !previous.get().getCutoffAt().isBefore(cutoff)) {
+                continue;
+            }
+
+            BigDecimal delta = previous.isPresent()
+                    ? postingRepository.sumBetween(accountId, previous.get().getCutoffAt(), cutoff)
+                    : postingRepository.sumBefore(accountId, cutoff);
+            if (previous.isPresent() && delta.signum() == 0) {
+                continue;
+            }
+
+            LedgerSnapshot snapshot = new LedgerSnapshot();
+            snapshot.setAccountId(accountId);
+            snapshot.setCutoffAt(cutoff);
+            snapshot.setBalance(previous.map(LedgerSnapshot::getBalance).orElse(BigDecimal.ZERO).add(delta));
+            snapshot.setCreatedAt(now);
+            snapshotRepository.save(snapshot);
+            taken++;
+        }
+
+        return taken;
+    }
+
+    private LedgerPosting posting(UUID entryId, Long accountId, Long transactionId,
+                                  BigDecimal amount, LocalDateTime postedAt, String description) {
+        return LedgerPosting.builder()
+                .entryId(entryId)
+                .accountId(accountId)
+                .transactionId(transactionId)
+                .amount(amount)
+                .postedAt(postedAt)
+                .description(description)
+                .build();
+    }
+}
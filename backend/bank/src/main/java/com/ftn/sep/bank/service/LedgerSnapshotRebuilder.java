@@ -0,0 +1,125 @@
+package com.ftn.sep.bank.service;
+
+import com.ftn.sep.bank.model.BankAccount;
+import com.ftn.sep.bank.repository.BankAccountRepository;
+import com.ftn.sep.bank.repository.LedgerJdbcRepository;
+import com.ftn.sep.bank.repository.LedgerJdbcRepository.DailyTotal;
+import com.ftn.sep.bank.repository.LedgerJdbcRepository.SnapshotRow;
+import com.ftn.sep.bank.repository.LedgerSnapshotRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Recomputes all ledger snapshots from the postings, accounts in parallel.
+ * Each account gets one snapshot per day with postings plus one at the cutoff,
+ * replaced in its own transaction.
+ */
+@Service
+@Slf4j
+public class LedgerSnapshotRebuilder {
+
+    private final LedgerJdbcRepository ledgerJdbcRepository;
+    private final LedgerSnapshotRepository snapshotRepository;
+    private final BankAccountRepository bankAccountRepository;
+    private final BankAccountService bankAccountService;
+    private final LedgerService ledgerService;
+    private final TransactionTemplate transactionTemplate;
+    private final int threads;
+
+    public LedgerSnapshotRebuilder(LedgerJdbcRepository ledgerJdbcRepository,
+                                   LedgerSnapshotRepository snapshotRepository,
+                                   BankAccountRepository bankAccountRepository,
+                                   BankAccountService bankAccountService,
+                                   LedgerService ledgerService,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${ledger.rebuild.threads:4}") int threads) {
+        this.ledgerJdbcRepository = ledgerJdbcRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.bankAccountRepository = bankAccountRepository;
+        this.bankAccountService = bankAccountService;
+        this.ledgerService = ledgerService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.threads = threads;
+    }
+
+    public record RebuildReport(int accounts, long snapshots, int mismatches, long elapsedMs) {
+    }
+
+    /**
+     * Rebuilds snapshots up to the cutoff, then compares each account's ledger
+     * balance with its account balance. Mismatches are only meaningful when no
+     * payments are processed during the rebuild.
+     */
+    public RebuildReport rebuild(LocalDateTime cutoff) throws InterruptedException {
+        long startedAt = System.currentTimeMillis();
+        List<Long> accountIds = bankAccountRepository.findAllIds();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long snapshots = 0;
+        try {
+            List<Future<Integer>> futures = new ArrayList<>(accountIds.size());
+            for (Long accountId : accountIds) {
+                futures.add(executor.submit(() -> transactionTemplate.execute(status -> rebuildAccount(accountId, cutoff))));
+            }
+            for (Future<Integer> future : futures) {
+                snapshots += future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Ledger snapshot rebuild failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int mismatches = verifyBalances();
+        RebuildReport report = new RebuildReport(accountIds.size(), snapshots, mismatches,
+                System.currentTimeMillis() - startedAt);
+        log.info("Ledger snapshots rebuilt: {}", report);
+        return report;
+    }
+
+    private int rebuildAccount(Long accountId, LocalDateTime cutoff) {
+        snapshotRepository.deleteByAccountId(accountId);
+
+        List<SnapshotRow> rows = new ArrayList<>();
+        BigDecimal running = BigDecimal.ZERO;
+        for (DailyTotal daily : ledgerJdbcRepository.dailyTotals(accountId, cutoff)) {
+            running = running.add(daily.total());
+            LocalDateTime endOfDay = daily.day().plusDays(1);
+            if (endOfDay.isBefore(cutoff)) {
+                rows.add(new SnapshotRow(endOfDay, running));
+            }
+        }
+        rows.add(new SnapshotRow(cutoff, running));
+
+        ledgerJdbcRepository.insertSnapshots(accountId, rows, LocalDateTime.now());
+        return rows.size();
+    }
+
+    private int verifyBalances() {
+        LocalDateTime now = LocalDateTime.now().plusSeconds(1);
+        int mismatches = 0;
+
+        for (BankAccount account : bankAccountRepository.findAll()) {
+            BigDecimal ledgerBalance = ledgerService.balanceAt(account.getId(), now);
+            BigDecimal accountBalance = bankAccountService.getBalance(account);
+            if (ledgerBalance.compareTo(accountBalance) != 0) {
+                mismatches++;
+                log.warn("Ledger balance {} differs from account balance {} for account {}",
+                        ledgerBalance, accountBalance, account.getAccountNumber());
+            }
+        }
+        return mismatches;
+    }
+}
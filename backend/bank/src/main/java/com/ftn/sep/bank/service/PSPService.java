@@ -26,10 +26,16 @@ public class PSPService {
     @Value("${psp.api.url}")
     private String pspApiUrl;
 
-    public String notifyPaymentResult(String stan, String globalTransactionId,
-                                      LocalDateTime acquirerTimestamp, String status) {
-        String url = pspApiUrl + "/api/payment/callback";
+    public String getCallbackUrl() {
+        return pspApiUrl + "/api/payment/callback";
+    }
 
+    /**
+     * Delivers a payment result to the PSP and returns the redirect URL it hands back.
+     * Failures are propagated so the outbox dispatcher can retry.
+     */
+    public String sendPaymentResult(String url, String stan, String globalTransactionId,
+                                    LocalDateTime acquirerTimestamp, String status) {
         log.info("Notifying PSP about payment result - STAN: {}, Status: {}", stan, status);
 
         Map<String, Object> request = new HashMap<>();
@@ -38,36 +44,29 @@ public class PSPService {
         request.put("acquirerTimestamp", acquirerTimestamp);
         request.put("status", status);
 
-        try {
-            String payload = hmacUtil.createPayload(
-                    stan,
-                    status,
-                    globalTransactionId,
-                    acquirerTimestamp.toString()
-            );
-            String signature = hmacUtil.generateSignature(payload);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("X-Bank-Signature", signature);
+        String signature = hmacUtil.generateSignature(
+                stan,
+                status,
+                globalTransactionId,
+                acquirerTimestamp.toString()
+        );
 
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(request, headers);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Bank-Signature", signature);
 
-            ResponseEntity<Map> response = restTemplate.postForEntity(url, entity, Map.class);
+        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(request, headers);
 
-            Map<String, Object> responseBody = response.getBody();
-            if (responseBody != null && responseBody.containsKey("redirectUrl")) {
-                String redirectUrl = (String) responseBody.get("redirectUrl");
-                log.info("PSP returned redirect URL: {}", redirectUrl);
-                return redirectUrl;
-            }
+        ResponseEntity<Map> response = restTemplate.postForEntity(url, entity, Map.class);
 
-            log.info("Successfully notified PSP - STAN: {}", stan);
-            return null;
-
-        } catch (Exception e) {
-            log.error("Error notifying PSP", e);
-            return null;
+        Map<String, Object> responseBody = response.getBody();
+        if (responseBody != null && responseBody.containsKey("redirectUrl")) {
+            String redirectUrl = (String) responseBody.get("redirectUrl");
+            log.info("PSP returned redirect URL: {}", redirectUrl);
+            return redirectUrl;
         }
+
+        log.info("Successfully notified PSP - STAN: {}", stan);
+        return null;
     }
 }
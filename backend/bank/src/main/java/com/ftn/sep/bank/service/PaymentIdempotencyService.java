@@ -0,0 +1,273 @@
+package com.ftn.sep.bank.service;
+
+import com.ftn.sep.bank.model.BankTransaction;
+import com.ftn.sep.bank.repository.PaymentIdempotencyRepository;
+import com.ftn.sep.bank.repository.PaymentIdempotencyRepository.IdempotencyKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Makes payment session creation idempotent per (merchant, STAN, channel), so a
+ * PSP retry after a timeout gets the original response instead of a second
+ * transaction.
+ * <p>
+ * Replays are served from a bounded in-memory response cache. On a miss the key
+ * is claimed in payment_idempotency_keys (primary key on merchant, STAN and
+ * channel) in the same DB transaction as the insert; a replay that lost the
+ * cache, or raced the original request, finds the claimed key and rebuilds the
+ * response from the original transaction. Card and QR sessions are separate
+ * channels because the PSP reuses the STAN when the payer switches method.
+ * Reusing a key for a different amount or currency is reported as a conflict.
+ */
+@Service
+@Slf4j
+public class PaymentIdempotencyService {
+
+    public enum Channel {
+        CARD, QR
+    }
+
+    public record IdempotentResponse<R>(R response, boolean replayed, boolean conflict) {
+    }
+
+    private record CachedResponse(BigDecimal amount, String currency, Object response, long cachedAt) {
+    }
+
+    private final PaymentIdempotencyRepository idempotencyRepository;
+    private final TransactionService transactionService;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<String, CachedResponse> cache;
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong dbReplays = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+
+    @Value("${payment.idempotency.retention-days:7}")
+    private int retentionDays;
+
+    public PaymentIdempotencyService(PaymentIdempotencyRepository idempotencyRepository,
+                                     TransactionService transactionService,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${payment.idempotency.cache-max-entries:2000}") int maxEntries,
+                                     @Value("${payment.idempotency.cache-ttl-seconds:600}") long ttlSeconds) {
+        this.idempotencyRepository = idempotencyRepository;
+        this.transactionService = transactionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > PaymentIdempotencyService.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Creates the transaction unless its (merchant, STAN, channel) was seen before,
+     * and returns the response for it. {@code responseFactory} builds the response
+     * from the created or original transaction.
+     */
+    public <R> IdempotentResponse<R> createOnce(Channel channel, BankTransaction transaction,
+                                                Function<BankTransaction, R> responseFactory) {
+        String merchantId = transaction.getMerchantId();
+        String stan = transaction.getStan();
+        String cacheKey = cacheKey(channel, merchantId, stan);
+
+        CachedResponse cached = getCached(cacheKey);
+        if (cached != null) {
+            if (!matches(cached.amount(), cached.currency(), transaction)) {
+                conflicts.incrementAndGet();
+                return new IdempotentResponse<>(null, false, true);
+            }
+            cacheHits.incrementAndGet();
+            log.info("Replayed {} payment creation for STAN: {} from cache", channel, stan);
+            @SuppressWarnings("unchecked")
+            R response = (R) cached.response();
+            return new IdempotentResponse<>(response, true, false);
+        }
+
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (idempotencyRepository.claim(merchantId, stan, channel.name(),
+                    transaction.getAmount(), transaction.getCurrency(), now)) {
+                BankTransaction saved = transactionService.createTransaction(transaction);
+                idempotencyRepository.attachTransaction(merchantId, stan, channel.name(),
+                        saved.getId(), saved.getCreatedAt());
+                R response = responseFactory.apply(saved);
+                cacheAfterCommit(cacheKey, new CachedResponse(
+                        saved.getAmount(), saved.getCurrency(), response, System.nanoTime()));
+                return new IdempotentResponse<>(response, false, false);
+            }
+
+            IdempotencyKey key = idempotencyRepository.find(merchantId, stan, channel.name())
+                    .orElseThrow(() -> new RuntimeException("Idempotency key disappeared"));
+            if (!matches(key.amount(), key.currency(), transaction)) {
+                conflicts.incrementAndGet();
+                return new IdempotentResponse<>(null, false, true);
+            }
+
+            BankTransaction original = transactionService.findById(key.transactionId(), key.transactionCreatedAt())
+                    .orElseThrow(() -> new RuntimeException("Original transaction not found"));
+            dbReplays.incrementAndGet();
+            log.info("Replayed {} payment creation for STAN: {} (Payment ID: {})",
+                    channel, stan, original.getPaymentId());
+
+            R response = responseFactory.apply(original);
+            cacheAfterCommit(cacheKey, new CachedResponse(
+                    key.amount(), key.currency(), response, System.nanoTime()));
+            return new IdempotentResponse<>(response, true, false);
+        });
+    }
+
+    /**
+     * Batch variant of {@link #createOnce} for transactions of one merchant with
+     * distinct STANs. New transactions are inserted with one JDBC batch in a single
+     * DB transaction; the responses are returned in input order.
+     */
+    public <R> List<IdempotentResponse<R>> createAllOnce(Channel channel, String merchantId,
+                                                         List<BankTransaction> transactions,
+                                                         Function<BankTransaction, R> responseFactory) {
+        List<IdempotentResponse<R>> results = new ArrayList<>(Collections.nCopies(transactions.size(), null));
+        Map<String, Integer> pending = new LinkedHashMap<>();
+
+        for (int i = 0; i < transactions.size(); i++) {
+            BankTransaction transaction = transactions.get(i);
+            CachedResponse cached = getCached(cacheKey(channel, merchantId, transaction.getStan()));
+            if (cached == null) {
+                pending.put(transaction.getStan(), i);
+            } else if (!matches(cached.amount(), cached.currency(), transaction)) {
+                conflicts.incrementAndGet();
+                results.set(i, new IdempotentResponse<>(null, false, true));
+            } else {
+                cacheHits.incrementAndGet();
+                @SuppressWarnings("unchecked")
+                R response = (R) cached.response();
+                results.set(i, new IdempotentResponse<>(response, true, false));
+            }
+        }
+        if (pending.isEmpty()) {
+            return results;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<BankTransaction> candidates = pending.values().stream().map(transactions::get).toList();
+            Set<String> claimed = idempotencyRepository.claimAll(merchantId, channel.name(), candidates,
+                    LocalDateTime.now());
+
+            List<BankTransaction> created = candidates.stream()
+                    .filter(transaction -> claimed.contains(transaction.getStan()))
+                    .toList();
+            transactionService.createTransactions(created);
+            idempotencyRepository.attachTransactions(channel.name(), created);
+            for (BankTransaction saved : created) {
+                R response = responseFactory.apply(saved);
+                cacheAfterCommit(cacheKey(channel, merchantId, saved.getStan()), new CachedResponse(
+                        saved.getAmount(), saved.getCurrency(), response, System.nanoTime()));
+                results.set(pending.get(saved.getStan()), new IdempotentResponse<>(response, false, false));
+            }
+
+            if (created.size() == candidates.size()) {
+                return;
+            }
+            List<String> seen = candidates.stream()
+                    .map(BankTransaction::getStan)
+                    .filter(stan -> !claimed.contains(stan))
+                    .toList();
+            Map<String, IdempotencyKey> keys = idempotencyRepository.findAll(merchantId, channel.name(), seen);
+            for (String stan : seen) {
+                BankTransaction transaction = transactions.get(pending.get(stan));
+                IdempotencyKey key = keys.get(stan);
+                if (key == null) {
+                    throw new RuntimeException("Idempotency key disappeared");
+                }
+                if (!matches(key.amount(), key.currency(), transaction)) {
+                    conflicts.incrementAndGet();
+                    results.set(pending.get(stan), new IdempotentResponse<>(null, false, true));
+                    continue;
+                }
+
+                BankTransaction original = transactionService.findById(key.transactionId(), key.transactionCreatedAt())
+                        .orElseThrow(() -> new RuntimeException("Original transaction not found"));
+                dbReplays.incrementAndGet();
+                R response = responseFactory.apply(original);
+                cacheAfterCommit(cacheKey(channel, merchantId, stan), new CachedResponse(
+                        key.amount(), key.currency(), response, System.nanoTime()));
+                results.set(pending.get(stan), new IdempotentResponse<>(response, true, false));
+            }
+            log.info("Replayed {} of {} {} payment creations in batch", seen.size(), candidates.size(), channel);
+        });
+        return results;
+    }
+
+    @Scheduled(fixedDelayString = "${payment.idempotency.purge-interval-ms:3600000}",
+            initialDelayString = "${payment.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpiredKeys() {
+        try {
+            int deleted = idempotencyRepository.deleteOlderThan(LocalDateTime.now().minusDays(retentionDays));
+            if (deleted > 0) {
+                log.info("Purged {} payment idempotency keys older than {} days", deleted, retentionDays);
+            }
+        } catch (Exception e) {
+            log.error("Error purging payment idempotency keys", e);
+        }
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cachedResponses", cache.size());
+        stats.put("cacheReplays", cacheHits.get());
+        stats.put("dbReplays", dbReplays.get());
+        stats.put("conflicts", conflicts.get());
+        return stats;
+    }
+
+    private static boolean matches(BigDecimal amount, String currency, BankTransaction transaction) {
+        return amount.compareTo(transaction.getAmount()) == 0 && currency.equals(transaction.getCurrency());
+    }
+
+    private synchronized CachedResponse getCached(String cacheKey) {
+        CachedResponse cached = cache.get(cacheKey);
+        if (cached != null && System.nanoTime() - cached.cachedAt() > ttlNanos) {
+            cache.remove(cacheKey);
+            return null;
+        }
+        return cached;
+    }
+
+    private synchronized void putCached(String cacheKey, CachedResponse response) {
+        cache.put(cacheKey, response);
+    }
+
+    private void cacheAfterCommit(String cacheKey, CachedResponse response) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                putCached(cacheKey, response);
+            }
+        });
+    }
+
+    private static String cacheKey(Channel channel, String merchantId, String stan) {
+        return channel.name() + '|' + merchantId + '|' + stan;
+    }
+}
@@ -0,0 +1,212 @@
+package com.ftn.sep.bank.service;
+
+import com.ftn.sep.bank.model.NotificationState;
+import com.ftn.sep.bank.model.PspNotification;
+import com.ftn.sep.bank.repository.PspNotificationRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Delivers outbox notifications to the PSP off the request thread.
+ * Failed deliveries are retried with exponential backoff; concurrent
+ * deliveries are capped per destination.
+ */
+@Component
+@Slf4j
+public class PspNotificationDispatcher {
+
+    private static final int POLL_BATCH_SIZE = 100;
+    private static final long WAITER_TTL_MS = 60_000;
+
+    private final PspNotificationRepository notificationRepository;
+    private final PSPService pspService;
+
+    private final ExecutorService executor;
+    private final int maxConcurrencyPerDestination;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    private final Map<String, Semaphore> destinationLimits = new ConcurrentHashMap<>();
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final Map<Long, RedirectWaiter> redirectWaiters = new ConcurrentHashMap<>();
+
+    public PspNotificationDispatcher(PspNotificationRepository notificationRepository,
+                                     PSPService pspService,
+                                     @Value("${psp.outbox.threads:8}") int threads,
+                                     @Value("${psp.outbox.max-concurrency-per-destination:4}") int maxConcurrencyPerDestination,
+                                     @Value("${psp.outbox.max-attempts:10}") int maxAttempts,
+                                     @Value("${psp.outbox.initial-backoff-ms:2000}") long initialBackoffMs,
+                                     @Value("${psp.outbox.max-backoff-ms:300000}") long maxBackoffMs) {
+        this.notificationRepository = notificationRepository;
+        this.pspService = pspService;
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.maxConcurrencyPerDestination = maxConcurrencyPerDestination;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    public void registerWaiter(Long notificationId) {
+        redirectWaiters.putIfAbsent(notificationId,
+                new RedirectWaiter(new CompletableFuture<>(), System.currentTimeMillis()));
+    }
+
+    public void discardWaiter(Long notificationId) {
+        redirectWaiters.remove(notificationId);
+    }
+
+    /**
+     * Waits up to {@code timeoutMs} for the first delivery attempt and returns the
+     * redirect URL from the PSP, or null if it is not available in time.
+     */
+    public String awaitRedirectUrl(Long notificationId, long timeoutMs) {
+        RedirectWaiter waiter = redirectWaiters.get(notificationId);
+        if (waiter == null) {
+            return null;
+        }
+        try {
+            return waiter.future().get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("PSP notification {} not delivered within {} ms, continuing without redirect URL",
+                    notificationId, timeoutMs);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            return null;
+        } finally {
+            redirectWaiters.remove(notificationId);
+        }
+    }
+
+    public void dispatch(Long notificationId) {
+        if (!inFlight.add(notificationId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    deliver(notificationId);
+                } finally {
+                    inFlight.remove(notificationId);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(notificationId);
+            log.error("Could not schedule PSP notification {}", notificationId, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${psp.outbox.poll-interval-ms:5000}")
+    public void dispatchDueNotifications() {
+        // Waiters nobody awaited (e.g. notifications enqueued by the scheduler)
+        long cutoff = System.currentTimeMillis() - WAITER_TTL_MS;
+        redirectWaiters.values().removeIf(waiter -> waiter.createdAt() < cutoff);
+
+        notificationRepository.findByStateAndNextAttemptAtBeforeOrderByNextAttemptAt(
+                        NotificationState.PENDING, LocalDateTime.now(), PageRequest.of(0, POLL_BATCH_SIZE))
+                .forEach(notification -> dispatch(notification.getId()));
+    }
+
+    private void deliver(Long notificationId) {
+        PspNotification notification = notificationRepository.findById(notificationId).orElse(null);
+        if (notification == null || notification.getState() != NotificationState.PENDING) {
+            return;
+        }
+
+        Semaphore permits = destinationLimits.computeIfAbsent(
+                notification.getDestination(), d -> new Semaphore(maxConcurrencyPerDestination));
+        try {
+            if (!permits.tryAcquire(1, TimeUnit.SECONDS)) {
+                // Destination saturated; the poller will pick it up again
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        try {
+            String redirectUrl = pspService.sendPaymentResult(
+                    notification.getDestination(),
+                    notification.getStan(),
+                    notification.getGlobalTransactionId(),
+                    notification.getAcquirerTimestamp(),
+                    notification.getPaymentStatus()
+            );
+
+            notification.setAttempts(notification.getAttempts() + 1);
+            notification.setState(NotificationState.DELIVERED);
+            notification.setRedirectUrl(redirectUrl);
+            notification.setDeliveredAt(LocalDateTime.now());
+            notification.setLastError(null);
+            notificationRepository.save(notification);
+
+            completeWaiter(notificationId, redirectUrl);
+        } catch (Exception e) {
+            int attempts = notification.getAttempts() + 1;
+            notification.setAttempts(attempts);
+            notification.setLastError(truncate(e.getMessage()));
+
+            if (attempts >= maxAttempts) {
+                notification.setState(NotificationState.FAILED);
+                log.error("Giving up on PSP notification {} for STAN {} after {} attempts",
+                        notificationId, notification.getStan(), attempts, e);
+            } else {
+                long backoff = backoffMs(attempts);
+                notification.setNextAttemptAt(LocalDateTime.now().plusNanos(backoff * 1_000_000L));
+                log.warn("PSP notification {} for STAN {} failed (attempt {}), retrying in {} ms: {}",
+                        notificationId, notification.getStan(), attempts, backoff, e.getMessage());
+            }
+            notificationRepository.save(notification);
+
+            completeWaiter(notificationId, null);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private long backoffMs(int attempts) {
+        long backoff = initialBackoffMs << Math.min(attempts - 1, 30);
+        return Math.min(backoff, maxBackoffMs);
+    }
+
+    private void completeWaiter(Long notificationId, String redirectUrl) {
+        RedirectWaiter waiter = redirectWaiters.get(notificationId);
+        if (waiter != null) {
+            waiter.future().complete(redirectUrl);
+        }
+    }
+
+    private String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private record RedirectWaiter(CompletableFuture<String> future, long createdAt) {
+    }
+}
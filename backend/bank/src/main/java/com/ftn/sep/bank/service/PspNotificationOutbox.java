@@ -0,0 +1,104 @@
+package com.ftn.sep.bank.service;
+
+import com.ftn.sep.bank.model.BankTransaction;
+import com.ftn.sep.bank.model.PspNotification;
+import com.ftn.sep.bank.repository.PspNotificationRepository;
+import com.ftn.sep.bank.repository.TransactionRef;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Transactional outbox for payment result notifications to the PSP.
+ * Entries must be enqueued inside the transaction that changes the
+ * transaction status; delivery starts once that transaction commits.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PspNotificationOutbox {
+
+    private final PspNotificationRepository notificationRepository;
+    private final PspNotificationDispatcher dispatcher;
+    private final PSPService pspService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${psp.outbox.redirect-wait-ms:2000}")
+    private long redirectWaitMs;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Long enqueue(BankTransaction transaction, String paymentStatus) {
+        PspNotification notification = new PspNotification();
+        notification.setDestination(pspService.getCallbackUrl());
+        notification.setStan(transaction.getStan());
+        notification.setGlobalTransactionId(transaction.getGlobalTransactionId());
+        notification.setAcquirerTimestamp(transaction.getAcquirerTimestamp());
+        notification.setPaymentStatus(paymentStatus);
+
+        Long notificationId = notificationRepository.save(notification).getId();
+        dispatcher.registerWaiter(notificationId);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    dispatcher.dispatch(notificationId);
+                } else {
+                    dispatcher.discardWaiter(notificationId);
+                }
+            }
+        });
+
+        log.debug("Enqueued PSP notification {} for STAN {} ({})",
+                notificationId, transaction.getStan(), paymentStatus);
+        return notificationId;
+    }
+
+    /**
+     * Enqueues one notification per transaction with a single JDBC batch insert.
+     * Delivery is picked up by the dispatcher's poller after commit.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueBatch(List<TransactionRef> transactions, String paymentStatus) {
+        String destination = pspService.getCallbackUrl();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO psp_notifications (destination, stan, global_transaction_id,
+                            acquirer_timestamp, payment_status, state, attempts, next_attempt_at, created_at)
+                        VALUES (?, ?, ?, ?, ?, 'PENDING', 0, ?, ?)
+                        """,
+                transactions, transactions.size(), (ps, transaction) -> {
+                    ps.setString(1, destination);
+                    ps.setString(2, transaction.stan());
+                    ps.setString(3, transaction.globalTransactionId());
+                    ps.setTimestamp(4, Timestamp.valueOf(transaction.acquirerTimestamp()));
+                    ps.setString(5, paymentStatus);
+                    ps.setTimestamp(6, now);
+                    ps.setTimestamp(7, now);
+                });
+
+        log.debug("Enqueued {} PSP notifications ({})", transactions.size(), paymentStatus);
+    }
+
+    /**
+     * Returns the PSP redirect URL if the first delivery attempt finishes within the
+     * configured wait; otherwise returns null and delivery continues in the background.
+     */
+    public String awaitRedirectUrl(Long notificationId) {
+        if (notificationId == null) {
+            return null;
+        }
+        return dispatcher.awaitRedirectUrl(notificationId, redirectWaitMs);
+    }
+}
@@ -0,0 +1,243 @@
+package com.ftn.sep.bank.service;
+
+import com.ftn.sep.bank.model.BankAccount;
+import com.ftn.sep.bank.model.TransactionStatus;
+import com.ftn.sep.bank.repository.SettlementRepository;
+import com.ftn.sep.bank.repository.SettlementRepository.CapturedTransaction;
+import com.ftn.sep.bank.repository.SettlementRepository.RunStatus;
+import com.ftn.sep.bank.repository.SettlementRepository.SettlementRun;
+import com.ftn.sep.bank.util.Csv;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * End-of-day capture of RESERVED card transactions into the merchant account.
+ * <p>
+ * A run covers one merchant and business day. It walks the day's RESERVED
+ * transactions in (created_at, id) order, {@code batch-size} at a time; each
+ * batch flips its transactions to COMPLETED, credits the merchant with the
+ * batch's net amount as one ledger entry against the clearing account, and
+ * advances the run's cursor, all in one DB transaction. A restarted run resumes
+ * from the last committed cursor. Once every batch is captured the run writes a
+ * CSV report of its transactions and is marked COMPLETED.
+ * <p>
+ * A transaction of the day can become RESERVED after its run completed (e.g. an
+ * expiry that fired late). Settling the day again then reopens the run with its
+ * cursor cleared, since such rows may lie behind it; the run's totals and report
+ * include them once it completes again.
+ * <p>
+ * Merchants are mapped to settlement accounts by {@code settlement.merchant-accounts}
+ * ({@code merchantId:accountNumber,...}).
+ */
+@Service
+@Slf4j
+public class SettlementService {
+
+    private final SettlementRepository settlementRepository;
+    private final BankAccountService bankAccountService;
+    private final LedgerService ledgerService;
+    private final AuditService auditService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTemplate;
+    private final Map<String, String> merchantAccounts;
+
+    @Value("${settlement.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${settlement.report-dir:settlements}")
+    private Path reportDir;
+
+    public SettlementService(SettlementRepository settlementRepository,
+                             BankAccountService bankAccountService,
+                             LedgerService ledgerService,
+                             AuditService auditService,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${settlement.merchant-accounts:}") String merchantAccounts) {
+        this.settlementRepository = settlementRepository;
+        this.bankAccountService = bankAccountService;
+        this.ledgerService = ledgerService;
+        this.auditService = auditService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.merchantAccounts = parseMerchantAccounts(merchantAccounts);
+    }
+
+    /**
+     * Settles every merchant with RESERVED transactions created on the business day.
+     * A failing merchant does not stop the others; its run resumes on the next call.
+     */
+    public List<SettlementRun> settle(LocalDate businessDate) {
+        List<SettlementRun> runs = new ArrayList<>();
+        for (String merchantId : settlementRepository.findMerchantsWithReserved(
+                businessDate.atStartOfDay(), businessDate.plusDays(1).atStartOfDay())) {
+            try {
+                runs.add(settle(merchantId, businessDate));
+            } catch (Exception e) {
+                log.error("Error settling merchant {} for {}", merchantId, businessDate, e);
+            }
+        }
+        return runs;
+    }
+
+    public SettlementRun settle(String merchantId, LocalDate businessDate) {
+        String accountNumber = merchantAccounts.get(merchantId);
+        if (accountNumber == null) {
+            throw new RuntimeException("No settlement account configured for merchant " + merchantId);
+        }
+        BankAccount account = bankAccountService.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new RuntimeException("Settlement account not found for merchant " + merchantId));
+
+        SettlementRun run = settlementRepository.startRun(merchantId, businessDate, account.getId(),
+                LocalDateTime.now());
+        if (run.status() == RunStatus.COMPLETED && settlementRepository.hasReserved(merchantId,
+                businessDate.atStartOfDay(), businessDate.plusDays(1).atStartOfDay())) {
+            log.warn("RESERVED transactions of merchant {} for {} remain after run {} completed, reopening it",
+                    merchantId, businessDate, run.id());
+            settlementRepository.reopenRun(run.id(), LocalDateTime.now());
+            run = reload(run);
+        }
+        return resume(run);
+    }
+
+    /**
+     * Continues a run from its checkpoint until it is COMPLETED.
+     */
+    public SettlementRun resume(SettlementRun run) {
+        if (run.status() == RunStatus.RUNNING) {
+            log.info("Settling merchant {} for {} from cursor ({}, {})", run.merchantId(), run.businessDate(),
+                    run.lastCreatedAt(), run.lastTransactionId());
+            int captured;
+            do {
+                captured = transactionTemplate.execute(status -> captureBatch(reload(run)));
+            } while (captured == batchSize);
+            settlementRepository.updateStatus(run.id(), RunStatus.SETTLED, null, LocalDateTime.now());
+        }
+
+        SettlementRun settled = reload(run);
+        if (settled.status() == RunStatus.SETTLED) {
+            Path report = writeReport(settled);
+            settlementRepository.updateStatus(run.id(), RunStatus.COMPLETED, report.toString(), LocalDateTime.now());
+            settled = reload(run);
+            log.info("Settled {} transactions ({}) for merchant {} on {}, report: {}",
+                    settled.transactionCount(), settled.totalAmount(), settled.merchantId(),
+                    settled.businessDate(), settled.reportPath());
+        }
+        return settled;
+    }
+
+    public List<SettlementRun> findUnfinishedRuns() {
+        return settlementRepository.findUnfinishedRuns();
+    }
+
+    private int captureBatch(SettlementRun run) {
+        LocalDateTime from = run.businessDate().atStartOfDay();
+        LocalDateTime to = run.businessDate().plusDays(1).atStartOfDay();
+        LocalDateTime cursorCreatedAt = run.lastCreatedAt() != null ? run.lastCreatedAt() : from;
+        long cursorId = run.lastTransactionId() != null ? run.lastTransactionId() : 0;
+
+        List<CapturedTransaction> captured = settlementRepository.captureBatch(run, from, to,
+                cursorCreatedAt, cursorId, batchSize);
+        if (captured.isEmpty()) {
+            return 0;
+        }
+
+        BigDecimal net = BigDecimal.ZERO;
+        for (CapturedTransaction transaction : captured) {
+            net = net.add(transaction.amount());
+            auditService.logStatusChange(String.valueOf(transaction.id()),
+                    TransactionStatus.RESERVED.name(), TransactionStatus.COMPLETED.name(),
+                    "Settlement run " + run.id());
+        }
+
+        // One credit per batch: the merchant account is hot and would serialize per-transaction credits
+        ledgerService.transfer(null, null, run.accountId(), net, "Card settlement run " + run.id());
+
+        CapturedTransaction last = captured.stream()
+                .max(Comparator.comparing(CapturedTransaction::createdAt).thenComparing(CapturedTransaction::id))
+                .orElseThrow();
+        settlementRepository.saveCheckpoint(run.id(), last.createdAt(), last.id(),
+                captured.size(), net, LocalDateTime.now());
+
+        log.debug("Settlement run {}: captured {} transactions ({}) up to ({}, {})",
+                run.id(), captured.size(), net, last.createdAt(), last.id());
+        return captured.size();
+    }
+
+    /**
+     * Streams the run's transactions into a CSV file, written to a temporary file
+     * and moved into place so a report is never seen half-written.
+     */
+    private Path writeReport(SettlementRun run) {
+        LocalDateTime from = run.businessDate().atStartOfDay();
+        LocalDateTime to = run.businessDate().plusDays(1).atStartOfDay();
+        Path report = reportDir.resolve("settlement-" + run.merchantId() + "-" + run.businessDate() + ".csv");
+
+        try {
+            Files.createDirectories(reportDir);
+            Path temp = Files.createTempFile(reportDir, "settlement-", ".csv.tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write("transaction_id,global_transaction_id,stan,payment_id,amount,currency,created_at\n");
+                readOnlyTemplate.executeWithoutResult(status -> settlementRepository.streamCaptured(
+                        run.id(), from, to, rs -> {
+                            try {
+                                writer.write(rs.getLong("id") + ","
+                                        + Csv.escape(rs.getString("global_transaction_id")) + ","
+                                        + Csv.escape(rs.getString("stan")) + ","
+                                        + Csv.escape(rs.getString("payment_id")) + ","
+                                        + rs.getBigDecimal("amount").toPlainString() + ","
+                                        + Csv.escape(rs.getString("currency")) + ","
+                                        + rs.getTimestamp("created_at").toLocalDateTime() + "\n");
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }));
+                writer.write("TOTAL," + run.transactionCount() + ",,," + run.totalAmount().toPlainString() + ",,\n");
+            }
+            Files.move(temp, report, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write settlement report " + report, e);
+        }
+        return report;
+    }
+
+    private SettlementRun reload(SettlementRun run) {
+        return settlementRepository.findRun(run.id())
+                .orElseThrow(() -> new RuntimeException("Settlement run disappeared: " + run.id()));
+    }
+
+    private static Map<String, String> parseMerchantAccounts(String mappings) {
+        Map<String, String> accounts = new HashMap<>();
+        for (String mapping : mappings.split(",")) {
+            if (mapping.isBlank()) {
+                continue;
+            }
+            String[] parts = mapping.strip().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(
+                        "Invalid settlement account mapping '" + mapping + "', expected merchantId:accountNumber");
+            }
+            accounts.put(parts[0].strip(), parts[1].strip());
+        }
+        return Map.copyOf(accounts);
+    }
+}
@@ -0,0 +1,196 @@
+package com.ftn.sep.bank.service;
+
+import com.ftn.sep.bank.model.BankAccount;
+import com.ftn.sep.bank.repository.StatementRepository;
+import com.ftn.sep.bank.repository.StatementRepository.Cursor;
+import com.ftn.sep.bank.util.Csv;
+import com.ftn.sep.bank.util.NdjsonWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JsonGenerator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Account statements exported as CSV or NDJSON.
+ * <p>
+ * A statement lists the account's ledger postings in (posted_at, id) order with a
+ * running balance. Rows go from a forward-only JDBC cursor of {@code fetch-size}
+ * rows straight to the output stream, so memory use does not depend on the
+ * statement's length. Postings are never archived, unlike bank_transactions, so
+ * multi-year statements are complete. An interrupted export is resumed by
+ * passing the id of the last row received as the resume token.
+ */
+@Service
+@Slf4j
+public class StatementService {
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final StatementRepository statementRepository;
+    private final LedgerService ledgerService;
+    private final TransactionTemplate readOnlyTemplate;
+
+    @Value("${statement.fetch-size:1000}")
+    private int fetchSize;
+
+    public StatementService(StatementRepository statementRepository,
+                            LedgerService ledgerService,
+                            PlatformTransactionManager transactionManager) {
+        this.statementRepository = statementRepository;
+        this.ledgerService = ledgerService;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Resolves a resume token (the id of the last row received) for the account.
+     */
+    public Optional<Cursor> findResumeCursor(BankAccount account, long resumeToken) {
+        return statementRepository.findCursor(account.getId(), resumeToken);
+    }
+
+    /**
+     * Writes the account's postings in [from, to) after the cursor (null: from the
+     * start) to the stream. Returns the number of rows written.
+     */
+    public long export(BankAccount account, LocalDateTime from, LocalDateTime to, Cursor after,
+                       Format format, OutputStream out) {
+        Long accountId = account.getId();
+        long started = System.nanoTime();
+
+        Long rows = readOnlyTemplate.execute(status -> {
+            BigDecimal openingBalance = after == null || after.postedAt().isBefore(from)
+                    ? ledgerService.balanceAt(accountId, from)
+                    : ledgerService.balanceAt(accountId, after.postedAt())
+                            .add(statementRepository.sumAtCursor(accountId, after));
+
+            try (RowWriter writer = format == Format.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out)) {
+                BigDecimal[] balance = {openingBalance};
+                long[] count = {0};
+                statementRepository.streamPostings(accountId, from, to, after, fetchSize, rs -> {
+                    balance[0] = balance[0].add(rs.getBigDecimal("amount"));
+                    writer.write(rs, balance[0]);
+                    count[0]++;
+                });
+                return count[0];
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        log.info("Exported {} statement rows for account {} in {} ms", rows, account.getAccountNumber(),
+                (System.nanoTime() - started) / 1_000_000);
+        return rows;
+    }
+
+    private interface RowWriter extends AutoCloseable {
+
+        void write(ResultSet rs, BigDecimal balance) throws SQLException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        CsvRowWriter(OutputStream out) {
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+            append("id,posted_at,amount,balance,transaction_id,entry_id,description\n");
+        }
+
+        @Override
+        public void write(ResultSet rs, BigDecimal balance) throws SQLException {
+            long transactionId = rs.getLong("transaction_id");
+            boolean hasTransaction = !rs.wasNull();
+            append(rs.getLong("id") + ","
+                    + rs.getTimestamp("posted_at").toLocalDateTime() + ","
+                    + rs.getBigDecimal("amount").toPlainString() + ","
+                    + balance.toPlainString() + ","
+                    + (hasTransaction ? transactionId : "") + ","
+                    + rs.getString("entry_id") + ","
+                    + Csv.escape(rs.getString("description")) + "\n");
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+
+        private void append(String text) {
+            try {
+                writer.write(text);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static final class NdjsonRowWriter implements RowWriter {
+        private final NdjsonWriter writer;
+
+        NdjsonRowWriter(OutputStream out) {
+            writer = new NdjsonWriter(out);
+        }
+
+        @Override
+        public void write(ResultSet rs, BigDecimal balance) throws SQLException {
+            JsonGenerator generator = writer.generator();
+            generator.writeStartObject();
+            generator.writeNumberProperty("id", rs.getLong("id"));
+            generator.writeStringProperty("postedAt", rs.getTimestamp("posted_at").toLocalDateTime().toString());
+            generator.writeNumberProperty("amount", rs.getBigDecimal("amount"));
+            generator.writeNumberProperty("balance", balance);
+            long transactionId = rs.getLong("transaction_id");
+            if (rs.wasNull()) {
+                generator.writeNullProperty("transactionId");
+            } else {
+                generator.writeNumberProperty("transactionId", transactionId);
+            }
+            generator.writeStringProperty("entryId", rs.getString("entry_id"));
+            generator.writeStringProperty("description", rs.getString("description"));
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void close() {
+            writer.close();
+        }
+    }
+}
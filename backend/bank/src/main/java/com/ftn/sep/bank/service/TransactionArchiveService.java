@@ -0,0 +1,85 @@
+package com.ftn.sep.bank.service;
+
+import com.ftn.sep.bank.repository.MonthlyPartitionRepository.ArchiveResult;
+import com.ftn.sep.bank.repository.MonthlyPartitionRepository.Partition;
+import com.ftn.sep.bank.repository.TransactionPartitionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Moves finished monthly partitions of bank_transactions into the archive table.
+ * <p>
+ * A partition is archived once it is older than {@code archive-after-months} and
+ * holds no PENDING or RESERVED transactions. It is detached concurrently, copied
+ * into gzip-compressed NDJSON chunks of {@code archive-chunk-size} rows and
+ * dropped; copying and dropping happen in one DB transaction, so a crash leaves
+ * either the detached table or its archive, never both halves.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionArchiveService {
+
+    private final TransactionPartitionRepository partitionRepository;
+
+    @Value("${bank.transactions.partitions-ahead:3}")
+    private int partitionsAhead;
+
+    @Value("${bank.transactions.archive-after-months:6}")
+    private int archiveAfterMonths;
+
+    @Value("${bank.transactions.archive-chunk-size:10000}")
+    private int chunkSize;
+
+    public int ensurePartitions() {
+        return partitionRepository.ensurePartitions(partitionsAhead);
+    }
+
+    /**
+     * Attached partitions that are old enough to archive and have no unfinished transactions.
+     */
+    public List<Partition> findArchivablePartitions(YearMonth currentMonth) {
+        YearMonth newestArchivable = currentMonth.minusMonths(archiveAfterMonths);
+        return partitionRepository.findAttachedPartitions().stream()
+                .filter(partition -> partition.month() != null && !partition.month().isAfter(newestArchivable))
+                .filter(partition -> {
+                    if (partitionRepository.hasUnfinishedTransactions(partition)) {
+                        log.warn("Partition {} still has unfinished transactions, not archiving", partition.name());
+                        return false;
+                    }
+                    return true;
+                })
+                .toList();
+    }
+
+    public List<Partition> findDetachedPartitions() {
+        return partitionRepository.findDetachedPartitions();
+    }
+
+    /**
+     * Runs outside a transaction: DETACH ... CONCURRENTLY cannot run inside one.
+     */
+    public void detach(Partition partition) {
+        partitionRepository.detach(partition);
+        log.info("Detached partition {}", partition.name());
+    }
+
+    /**
+     * Copies a detached partition into the archive table and drops it. Returns the number of rows archived.
+     */
+    @Transactional
+    public long archive(Partition partition) {
+        ArchiveResult result = partitionRepository.copyToArchive(partition, chunkSize, LocalDateTime.now());
+        partitionRepository.drop(partition);
+        log.info("Archived partition {}: {} transactions, {} bytes compressed",
+                partition.name(), result.rowCount(), result.compressedBytes());
+        return result.rowCount();
+    }
+}
@@ -0,0 +1,76 @@
+package com.ftn.sep.bank.service;
+
+import com.ftn.sep.bank.util.TimingWheel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory expiry timers for PENDING transactions, keyed by transaction id.
+ * Timers are added when a transaction is created and cancelled when it leaves
+ * PENDING; both take effect only once the surrounding DB transaction commits.
+ */
+@Component
+public class TransactionExpiryWheel {
+
+    private final TimingWheel wheel;
+
+    public TransactionExpiryWheel(@Value("${bank.expiry-wheel.tick-ms:1000}") long tickMs,
+                                  @Value("${bank.expiry-wheel.wheel-size:64}") int wheelSize,
+                                  @Value("${bank.expiry-wheel.levels:4}") int levels) {
+        this.wheel = new TimingWheel(tickMs, wheelSize, levels, System.currentTimeMillis());
+    }
+
+    /**
+     * Returns false if the deadline has already passed.
+     */
+    public synchronized boolean schedule(Long transactionId, LocalDateTime expiresAt) {
+        return wheel.schedule(transactionId, toEpochMillis(expiresAt));
+    }
+
+    public void scheduleAfterCommit(Long transactionId, LocalDateTime expiresAt) {
+        afterCommit(() -> schedule(transactionId, expiresAt));
+    }
+
+    public void cancelAfterCommit(Long transactionId) {
+        afterCommit(() -> cancel(transactionId));
+    }
+
+    public synchronized boolean cancel(Long transactionId) {
+        return wheel.cancel(transactionId);
+    }
+
+    /**
+     * Advances to the current time and returns the ids of transactions due for expiry.
+     */
+    public synchronized List<Long> advance(long nowMs) {
+        return wheel.advanceTo(nowMs);
+    }
+
+    public synchronized Map<String, Object> stats() {
+        return Map.of("pendingTimers", wheel.size());
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -3,11 +3,16 @@ package com.ftn.sep.bank.service;
 import com.ftn.sep.bank.model.BankTransaction;
 import com.ftn.sep.bank.model.TransactionStatus;
 import com.ftn.sep.bank.repository.BankTransactionRepository;
+import com.ftn.sep.bank.repository.TransactionBatchRepository;
+import com.ftn.sep.bank.repository.TransactionRef;
+import com.ftn.sep.bank.repository.TransactionSweepRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -17,11 +22,19 @@ import java.util.UUID;
 public class TransactionService {
 
     private final BankTransactionRepository transactionRepository;
+    private final TransactionSweepRepository transactionSweepRepository;
+    private final TransactionBatchRepository transactionBatchRepository;
     private final AuditService auditService;
+    private final PspNotificationOutbox pspNotificationOutbox;
+    private final TransactionExpiryWheel expiryWheel;
 
     @org.springframework.beans.factory.annotation.Value("${bank.frontend.url:https://localhost:4201}")
     private String bankFrontendUrl;
 
+    // Payment sessions live for minutes; lookups only scan partitions in this window
+    @org.springframework.beans.factory.annotation.Value("${bank.transactions.hot-window-days:7}")
+    private int hotWindowDays;
+
     @Transactional
     public BankTransaction createTransaction(BankTransaction transaction) {
         transaction.setPaymentId(generatePaymentId());
@@ -29,26 +42,95 @@ public class TransactionService {
         transaction.setPaymentUrl(generatePaymentUrl(transaction.getPaymentId()));
 
         BankTransaction saved = transactionRepository.save(transaction);
+        expiryWheel.scheduleAfterCommit(saved.getId(), saved.getPaymentUrlExpiresAt());
         log.info("Created transaction with Payment ID: {}", saved.getPaymentId());
         return saved;
     }
 
+    /**
+     * Creates PENDING transactions with one JDBC batch insert. The entities get the
+     * same defaults as {@link BankTransaction#onCreate()} would give them.
+     */
+    @Transactional
+    public List<BankTransaction> createTransactions(List<BankTransaction> transactions) {
+        if (transactions.isEmpty()) {
+            return transactions;
+        }
+
+        List<Long> ids = transactionBatchRepository.nextIds(transactions.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < transactions.size(); i++) {
+            BankTransaction transaction = transactions.get(i);
+            transaction.setId(ids.get(i));
+            transaction.setPaymentId(generatePaymentId());
+            transaction.setGlobalTransactionId(generateGlobalTransactionId());
+            transaction.setPaymentUrl(generatePaymentUrl(transaction.getPaymentId()));
+            transaction.setStatus(TransactionStatus.PENDING);
+            transaction.setCreatedAt(now);
+            transaction.setAcquirerTimestamp(now);
+            transaction.setPaymentUrlExpiresAt(now.plusMinutes(10));
+        }
+
+        transactionBatchRepository.insertAll(transactions);
+        for (BankTransaction transaction : transactions) {
+            expiryWheel.scheduleAfterCommit(transaction.getId(), transaction.getPaymentUrlExpiresAt());
+        }
+        log.info("Created {} transactions in batch", transactions.size());
+        return transactions;
+    }
+
     public Optional<BankTransaction> findByPaymentId(String paymentId) {
-        return transactionRepository.findByPaymentId(paymentId);
+        return transactionRepository.findByPaymentIdAndCreatedAtGreaterThanEqual(paymentId, hotWindowStart());
     }
 
     public Optional<BankTransaction> findByStan(String stan) {
-        return transactionRepository.findByStan(stan);
+        return transactionRepository.findFirstByStanAndCreatedAtGreaterThanEqualOrderByCreatedAtDesc(
+                stan, hotWindowStart());
+    }
+
+    public LocalDateTime hotWindowStart() {
+        return LocalDateTime.now().minusDays(hotWindowDays);
+    }
+
+    /**
+     * Lookup by primary key when the creation time is not known; only the
+     * partitions of the hot window are scanned.
+     */
+    public Optional<BankTransaction> findRecentById(Long id) {
+        return transactionRepository.findByIdAndCreatedAtGreaterThanEqual(id, hotWindowStart());
+    }
+
+    /**
+     * Lookup by primary key; the creation time selects the partition.
+     */
+    public Optional<BankTransaction> findById(Long id, LocalDateTime createdAt) {
+        return transactionRepository.findByIdAndCreatedAt(id, createdAt);
     }
 
-    public Optional<BankTransaction> findById(Long id) {
-        return transactionRepository.findById(id);
+    @Transactional
+    public void updateTransactionStatus(BankTransaction transaction, TransactionStatus status,
+                                        String failureReason) {
+        applyStatus(transaction, status, failureReason);
     }
 
+    /**
+     * Changes the status and enqueues the PSP notification in the same DB transaction.
+     * Returns the outbox entry id.
+     */
     @Transactional
-    public void updateTransactionStatus(Long transactionId, TransactionStatus status,
+    public Long updateTransactionStatus(BankTransaction transaction, TransactionStatus status,
+                                        String failureReason, String pspStatus) {
+        BankTransaction updated = applyStatus(transaction, status, failureReason);
+        return pspNotificationOutbox.enqueue(updated, pspStatus);
+    }
+
+    /**
+     * Reloads the transaction by id and creation time, so only its partition is read.
+     */
+    private BankTransaction applyStatus(BankTransaction current, TransactionStatus status,
                                         String failureReason) {
-        BankTransaction transaction = transactionRepository.findById(transactionId)
+        Long transactionId = current.getId();
+        BankTransaction transaction = transactionRepository.findByIdAndCreatedAt(transactionId, current.getCreatedAt())
                 .orElseThrow(() -> new RuntimeException("Transaction not found"));
 
         String oldStatus = transaction.getStatus().name();
@@ -58,6 +140,9 @@ public class TransactionService {
         }
 
         transactionRepository.save(transaction);
+        if (status != TransactionStatus.PENDING) {
+            expiryWheel.cancelAfterCommit(transactionId);
+        }
         log.info("Updated transaction {} to status: {}", transactionId, status);
 
         auditService.logStatusChange(
@@ -66,6 +151,48 @@ public class TransactionService {
                 status.name(),
                 failureReason
         );
+        return transaction;
+    }
+
+    /**
+     * Expires one page of overdue PENDING transactions and queues the PSP
+     * notifications in the same DB transaction. Returns the number expired.
+     */
+    @Transactional
+    public int expireOverdueBatch(LocalDateTime now, int limit, String failureReason) {
+        List<TransactionRef> expired = transactionSweepRepository.expireOverdue(now, limit, failureReason);
+        onExpired(expired, failureReason);
+        return expired.size();
+    }
+
+    /**
+     * Expires the given transactions that are still PENDING and overdue, and
+     * queues the PSP notifications in the same DB transaction. Returns the number expired.
+     */
+    @Transactional
+    public int expireByIds(List<Long> transactionIds, LocalDateTime now, String failureReason) {
+        List<TransactionRef> expired = transactionSweepRepository.expireByIds(
+                transactionIds, now, now.minusDays(hotWindowDays), failureReason);
+        onExpired(expired, failureReason);
+        return expired.size();
+    }
+
+    private void onExpired(List<TransactionRef> expired, String failureReason) {
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        pspNotificationOutbox.enqueueBatch(expired, "FAILED");
+
+        for (TransactionRef transaction : expired) {
+            expiryWheel.cancelAfterCommit(transaction.id());
+            auditService.logStatusChange(
+                    String.valueOf(transaction.id()),
+                    TransactionStatus.PENDING.name(),
+                    TransactionStatus.EXPIRED.name(),
+                    failureReason
+            );
+        }
     }
 
     private String generatePaymentId() {
@@ -0,0 +1,201 @@
+package com.ftn.sep.bank.service;
+
+import com.ftn.sep.bank.security.EncryptionService;
+import com.ftn.sep.bank.util.SlidingWindowCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory velocity limits on payment attempts, keyed by PAN hash, account
+ * number and client IP.
+ * <p>
+ * Rules are configured as {@code DIMENSION:limit:windowSeconds}, e.g.
+ * {@code PAN:5:60} allows five attempts per PAN per minute. Every attempt is
+ * counted against every rule for which it has a key, including attempts that are
+ * rejected, so a sustained burst stays blocked until it slows down. Checks run
+ * before any DB access.
+ * <p>
+ * Each rule keeps at most {@code max-keys} counters; idle counters are evicted
+ * periodically, and when a rule is full new keys are not tracked until space is
+ * freed (fail open).
+ */
+@Service
+@Slf4j
+public class VelocityEngine {
+
+    public enum Dimension {
+        PAN, ACCOUNT, IP
+    }
+
+    public record Rule(Dimension dimension, int limit, long windowSeconds) {
+    }
+
+    private static final int BUCKETS_PER_WINDOW = 10;
+    private static final long FULL_EVICTION_INTERVAL_MS = 1000;
+
+    private final EncryptionService encryptionService;
+    private final List<RuleCounters> rules;
+    private final int maxKeys;
+    private final boolean enabled;
+
+    private final AtomicLong lastFullEvictionMs = new AtomicLong();
+    private final Map<Dimension, AtomicLong> rejections = new EnumMap<>(Dimension.class);
+    private final AtomicLong untracked = new AtomicLong();
+
+    private record RuleCounters(Rule rule, Map<String, SlidingWindowCounter> counters) {
+    }
+
+    public VelocityEngine(EncryptionService encryptionService,
+                          @Value("${velocity.enabled:true}") boolean enabled,
+                          @Value("${velocity.rules:PAN:5:60,PAN:20:3600,ACCOUNT:10:60,IP:30:60}") String rules,
+                          @Value("${velocity.max-keys:100000}") int maxKeys) {
+        this.encryptionService = encryptionService;
+        this.enabled = enabled;
+        this.maxKeys = maxKeys;
+        this.rules = parseRules(rules);
+        for (Dimension dimension : Dimension.values()) {
+            rejections.put(dimension, new AtomicLong());
+        }
+        log.info("Velocity rules: {}", this.rules.stream().map(RuleCounters::rule).toList());
+    }
+
+    /**
+     * Counts a card payment attempt; returns the first rule it exceeds, if any.
+     */
+    public Optional<Rule> checkCardAttempt(String pan, String clientIp) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        String panHash = pan != null && !pan.isEmpty() ? encryptionService.hash(pan) : null;
+        return check(panHash, null, clientIp, System.currentTimeMillis());
+    }
+
+    /**
+     * Counts an account (QR) payment attempt; returns the first rule it exceeds, if any.
+     */
+    public Optional<Rule> checkAccountAttempt(String accountNumber, String clientIp) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        String account = accountNumber != null && !accountNumber.isBlank() ? accountNumber.strip() : null;
+        return check(null, account, clientIp, System.currentTimeMillis());
+    }
+
+    /**
+     * Counts one attempt for the given keys (null keys are skipped) at the given time.
+     */
+    public Optional<Rule> check(String panHash, String accountNumber, String clientIp, long nowMs) {
+        Rule tripped = null;
+        for (RuleCounters ruleCounters : rules) {
+            Rule rule = ruleCounters.rule();
+            String key = switch (rule.dimension()) {
+                case PAN -> panHash;
+                case ACCOUNT -> accountNumber;
+                case IP -> clientIp;
+            };
+            if (key == null) {
+                continue;
+            }
+
+            SlidingWindowCounter counter = counterFor(ruleCounters, key, nowMs);
+            if (counter != null && counter.incrementAndSum(nowMs) > rule.limit() && tripped == null) {
+                tripped = rule;
+            }
+        }
+
+        if (tripped != null) {
+            rejections.get(tripped.dimension()).incrementAndGet();
+            return Optional.of(tripped);
+        }
+        return Optional.empty();
+    }
+
+    private SlidingWindowCounter counterFor(RuleCounters ruleCounters, String key, long nowMs) {
+        Map<String, SlidingWindowCounter> counters = ruleCounters.counters();
+        SlidingWindowCounter counter = counters.get(key);
+        if (counter != null) {
+            return counter;
+        }
+
+        if (counters.size() >= maxKeys) {
+            long last = lastFullEvictionMs.get();
+            if (nowMs - last >= FULL_EVICTION_INTERVAL_MS && lastFullEvictionMs.compareAndSet(last, nowMs)) {
+                evictIdle(ruleCounters, nowMs);
+            }
+            if (counters.size() >= maxKeys) {
+                untracked.incrementAndGet();
+                return null;
+            }
+        }
+
+        long windowMs = ruleCounters.rule().windowSeconds() * 1000;
+        return counters.computeIfAbsent(key, k -> new SlidingWindowCounter(windowMs, BUCKETS_PER_WINDOW));
+    }
+
+    @Scheduled(fixedDelayString = "${velocity.eviction-interval-ms:30000}")
+    public void evictIdle() {
+        long nowMs = System.currentTimeMillis();
+        int evicted = 0;
+        for (RuleCounters ruleCounters : rules) {
+            evicted += evictIdle(ruleCounters, nowMs);
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} idle velocity counters", evicted);
+        }
+    }
+
+    private int evictIdle(RuleCounters ruleCounters, long nowMs) {
+        int before = ruleCounters.counters().size();
+        ruleCounters.counters().values().removeIf(counter -> counter.isIdle(nowMs));
+        return before - ruleCounters.counters().size();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Map<String, Integer> keys = new LinkedHashMap<>();
+        for (RuleCounters ruleCounters : rules) {
+            Rule rule = ruleCounters.rule();
+            keys.put(rule.dimension() + ":" + rule.limit() + ":" + rule.windowSeconds(), ruleCounters.counters().size());
+        }
+        Map<String, Long> rejected = new LinkedHashMap<>();
+        rejections.forEach((dimension, count) -> rejected.put(dimension.name(), count.get()));
+
+        stats.put("enabled", enabled);
+        stats.put("keys", keys);
+        stats.put("rejections", rejected);
+        stats.put("untracked", untracked.get());
+        return stats;
+    }
+
+    private static List<RuleCounters> parseRules(String rules) {
+        List<RuleCounters> parsed = new ArrayList<>();
+        for (String rule : rules.split(",")) {
+            if (rule.isBlank()) {
+                continue;
+            }
+            String[] parts = rule.strip().split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException(
+                        "Invalid velocity rule '" + rule + "', expected DIMENSION:limit:windowSeconds");
+            }
+            Rule parsedRule = new Rule(Dimension.valueOf(parts[0].strip()),
+                    Integer.parseInt(parts[1].strip()), Long.parseLong(parts[2].strip()));
+            if (parsedRule.limit() < 1 || parsedRule.windowSeconds() < 1) {
+                throw new IllegalArgumentException("Invalid velocity rule '" + rule + "'");
+            }
+            parsed.add(new RuleCounters(parsedRule, new ConcurrentHashMap<>()));
+        }
+        return List.copyOf(parsed);
+    }
+}
@@ -0,0 +1,94 @@
+package com.ftn.sep.bank.util;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.ObjectWriteContext;
+import tools.jackson.core.json.JsonFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * One chunk of an archived partition: rows are written as NDJSON straight into a
+ * gzip stream. Rows must be added in id order and have an {@code id} column.
+ */
+public final class ArchiveChunk {
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .rootValueSeparator((String) null)
+            .build();
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+    private final GZIPOutputStream gzip;
+    private final JsonGenerator generator;
+    private long firstId;
+    private long lastId;
+    private int rowCount;
+
+    public ArchiveChunk() {
+        try {
+            gzip = new GZIPOutputStream(buffer, 64 * 1024);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        generator = JSON_FACTORY.createGenerator(ObjectWriteContext.empty(), gzip);
+    }
+
+    public void add(ResultSet rs) throws SQLException {
+        long id = rs.getLong("id");
+        if (rowCount == 0) {
+            firstId = id;
+        }
+        lastId = id;
+        rowCount++;
+
+        ResultSetMetaData meta = rs.getMetaData();
+        generator.writeStartObject();
+        for (int column = 1; column <= meta.getColumnCount(); column++) {
+            generator.writeName(meta.getColumnLabel(column));
+            Object value = rs.getObject(column);
+            if (value == null) {
+                generator.writeNull();
+            } else if (value instanceof Timestamp timestamp) {
+                generator.writeString(timestamp.toLocalDateTime().toString());
+            } else if (value instanceof BigDecimal decimal) {
+                generator.writeNumber(decimal);
+            } else if (value instanceof Number number) {
+                generator.writeNumber(number.longValue());
+            } else if (value instanceof Boolean bool) {
+                generator.writeBoolean(bool);
+            } else {
+                generator.writeString(value.toString());
+            }
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    public long firstId() {
+        return firstId;
+    }
+
+    public long lastId() {
+        return lastId;
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the compressed payload. Closing the generator closes the gzip stream
+     * and writes its trailer, so no rows can be added afterwards.
+     */
+    public byte[] finish() {
+        generator.close();
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,378 @@
+package com.ftn.sep.bank.util;
+
+import com.ftn.sep.bank.model.AuditLog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * One memory-mapped, fixed-size segment of the append-only audit store.
+ * <p>
+ * Layout: a 64-byte header (magic, version, segment id, first sequence number, the
+ * hash the chain continues from and, once sealed, the record count), then records of
+ * {@code [int length][body][32-byte hash]}, where the body holds the sequence
+ * number, the timestamp in epoch microseconds and the entry's strings
+ * (u16 length, 0xFFFF for null, then UTF-8), and the hash is
+ * SHA-256(previous hash || body). A zero length marks the end. The length is
+ * written last, so a torn append reads as the end of the segment; any other
+ * modified record breaks the chain from that record on, which shows up as a
+ * sealed segment with fewer valid records than its header says.
+ */
+public final class AuditSegmentFile implements Closeable {
+
+    public static final int HEADER_SIZE = 64;
+    public static final int HASH_SIZE = 32;
+
+    private static final int MAGIC = 0x41554453;
+    private static final short VERSION = 1;
+    private static final int SEALED_COUNT_OFFSET = 56;
+    private static final int SEALED_FLAG_OFFSET = 60;
+    private static final int NULL_STRING = 0xFFFF;
+    private static final int MAX_STRING_BYTES = 0xFFFE;
+    private static final int MAX_BODY_SIZE = 16 + 6 * (2 + MAX_STRING_BYTES);
+
+    /**
+     * A record read back from the segment. {@code offset} is where the record starts.
+     */
+    public record Record(long sequence, int offset, AuditLog entry) {
+    }
+
+    /**
+     * A record whose hash does not continue the chain.
+     */
+    public static final class BrokenChainException extends IllegalStateException {
+        public BrokenChainException(String message) {
+            super(message);
+        }
+    }
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long segmentId;
+    private final long firstSequence;
+    private final byte[] previousHash;
+    private final MessageDigest digest;
+
+    private byte[] lastHash;
+    private long nextSequence;
+    private int position;
+    private ByteBuffer scratch;
+
+    private AuditSegmentFile(Path path, FileChannel channel, MappedByteBuffer buffer, long segmentId,
+                             long firstSequence, byte[] previousHash) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.segmentId = segmentId;
+        this.firstSequence = firstSequence;
+        this.previousHash = previousHash;
+        this.digest = sha256();
+        this.lastHash = previousHash;
+        this.nextSequence = firstSequence;
+        this.position = HEADER_SIZE;
+    }
+
+    /**
+     * Creates and maps a new segment of {@code size} bytes whose chain continues from {@code previousHash}.
+     */
+    public static AuditSegmentFile create(Path path, long segmentId, long firstSequence, byte[] previousHash,
+                                          int size) throws IOException {
+        if (previousHash.length != HASH_SIZE) {
+            throw new IllegalArgumentException("Previous hash must be " + HASH_SIZE + " bytes");
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(0, MAGIC);
+            buffer.putShort(4, VERSION);
+            buffer.putLong(8, segmentId);
+            buffer.putLong(16, firstSequence);
+            buffer.put(24, previousHash);
+            buffer.force();
+            return new AuditSegmentFile(path, channel, buffer, segmentId, firstSequence, previousHash.clone());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps an existing segment and finds its end: the first empty or torn record, or
+     * the first record whose hash does not continue the chain.
+     */
+    public static AuditSegmentFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION) {
+                throw new IOException("Not an audit segment: " + path);
+            }
+            byte[] previousHash = new byte[HASH_SIZE];
+            buffer.get(24, previousHash);
+            AuditSegmentFile segment = new AuditSegmentFile(path, channel, buffer,
+                    buffer.getLong(8), buffer.getLong(16), previousHash);
+            segment.recover();
+            return segment;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends the entry; returns false without writing if the segment is full.
+     */
+    public boolean append(AuditLog entry) {
+        ByteBuffer body = encode(nextSequence, entry);
+        int length = body.remaining();
+        if ((long) position + 4 + length + HASH_SIZE > buffer.capacity()) {
+            return false;
+        }
+
+        digest.update(lastHash);
+        digest.update(body.duplicate());
+        byte[] hash = digest.digest();
+
+        buffer.put(position + 4, body, 0, length);
+        buffer.put(position + 4 + length, hash);
+        buffer.putInt(position, length);
+
+        position += 4 + length + HASH_SIZE;
+        lastHash = hash;
+        nextSequence++;
+        return true;
+    }
+
+    /**
+     * Reads records from {@code fromOffset} (a record start, or the header size) to
+     * the end, verifying the chain. Throws if the chain is broken, which for a
+     * sealed segment means it was modified.
+     */
+    public void forEach(int fromOffset, byte[] hashBefore, Consumer<Record> consumer) {
+        // Readers may run concurrently with each other, so they do not share the appender's digest
+        MessageDigest digest = sha256();
+        byte[] expected = hashBefore;
+        int offset = fromOffset;
+        while (offset < position) {
+            int length = buffer.getInt(offset);
+            ByteBuffer body = buffer.slice(offset + 4, length);
+            byte[] hash = new byte[HASH_SIZE];
+            buffer.get(offset + 4 + length, hash);
+
+            digest.update(expected);
+            digest.update(body.duplicate());
+            if (!MessageDigest.isEqual(digest.digest(), hash)) {
+                throw new BrokenChainException("Audit hash chain broken in " + path + " at offset " + offset);
+            }
+            consumer.accept(decode(body, offset));
+            expected = hash;
+            offset += 4 + length + HASH_SIZE;
+        }
+    }
+
+    /**
+     * Reads every record, verifying the chain from the segment's previous hash.
+     */
+    public void forEach(Consumer<Record> consumer) {
+        forEach(HEADER_SIZE, previousHash, consumer);
+    }
+
+    /**
+     * Hash of the record that ends just before {@code offset} (the previous hash for the header size).
+     */
+    public byte[] hashBefore(int offset) {
+        if (offset == HEADER_SIZE) {
+            return previousHash.clone();
+        }
+        byte[] hash = new byte[HASH_SIZE];
+        buffer.get(offset - HASH_SIZE, hash);
+        return hash;
+    }
+
+    /**
+     * Records the record count in the header and flushes the segment; no appends follow.
+     */
+    public void seal() {
+        buffer.putInt(SEALED_COUNT_OFFSET, recordCount());
+        buffer.put(SEALED_FLAG_OFFSET, (byte) 1);
+        buffer.force();
+    }
+
+    public boolean isSealed() {
+        return buffer.get(SEALED_FLAG_OFFSET) == 1;
+    }
+
+    /**
+     * False if the segment is sealed but its chain ends before the sealed record count.
+     */
+    public boolean isIntact() {
+        return !isSealed() || buffer.getInt(SEALED_COUNT_OFFSET) == recordCount();
+    }
+
+    public void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public long segmentId() {
+        return segmentId;
+    }
+
+    public long firstSequence() {
+        return firstSequence;
+    }
+
+    public byte[] previousHash() {
+        return previousHash.clone();
+    }
+
+    public byte[] lastHash() {
+        return lastHash.clone();
+    }
+
+    public long nextSequence() {
+        return nextSequence;
+    }
+
+    public int recordCount() {
+        return (int) (nextSequence - firstSequence);
+    }
+
+    /**
+     * Offset at which the next record will be written.
+     */
+    public int position() {
+        return position;
+    }
+
+    public static long toEpochMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + timestamp.getNano() / 1_000;
+    }
+
+    public static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    private void recover() {
+        byte[] expected = previousHash;
+        int offset = HEADER_SIZE;
+        long sequence = firstSequence;
+        while (offset + 4 <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || length > MAX_BODY_SIZE
+                    || (long) offset + 4 + length + HASH_SIZE > buffer.capacity()) {
+                break;
+            }
+            ByteBuffer body = buffer.slice(offset + 4, length);
+            byte[] hash = new byte[HASH_SIZE];
+            buffer.get(offset + 4 + length, hash);
+            digest.update(expected);
+            digest.update(body);
+            if (!MessageDigest.isEqual(digest.digest(), hash)) {
+                break;
+            }
+            expected = hash;
+            offset += 4 + length + HASH_SIZE;
+            sequence++;
+        }
+
+        // Clear a torn tail so later appends start from a clean end; sealed segments are left as evidence
+        if (!isSealed() && offset + 4 <= buffer.capacity()) {
+            buffer.putInt(offset, 0);
+        }
+        lastHash = expected;
+        nextSequence = sequence;
+        position = offset;
+    }
+
+    private ByteBuffer encode(long sequence, AuditLog entry) {
+        byte[][] strings = {
+                bytes(entry.getAction()), bytes(entry.getEntityType()), bytes(entry.getEntityId()),
+                bytes(entry.getDetails()), bytes(entry.getIpAddress()), bytes(entry.getResult())
+        };
+        int size = 16;
+        for (byte[] string : strings) {
+            size += 2 + (string != null ? string.length : 0);
+        }
+        if (scratch == null || scratch.capacity() < size) {
+            scratch = ByteBuffer.allocate(Math.max(size, 1024));
+        }
+
+        ByteBuffer body = scratch.clear();
+        body.putLong(sequence);
+        body.putLong(toEpochMicros(entry.getTimestamp() != null ? entry.getTimestamp() : LocalDateTime.now()));
+        for (byte[] string : strings) {
+            if (string == null) {
+                body.putShort((short) NULL_STRING);
+            } else {
+                body.putShort((short) string.length);
+                body.put(string);
+            }
+        }
+        return body.flip();
+    }
+
+    private static Record decode(ByteBuffer body, int offset) {
+        long sequence = body.getLong();
+        LocalDateTime timestamp = fromEpochMicros(body.getLong());
+        AuditLog entry = AuditLog.builder()
+                .timestamp(timestamp)
+                .action(string(body))
+                .entityType(string(body))
+                .entityId(string(body))
+                .details(string(body))
+                .ipAddress(string(body))
+                .result(string(body))
+                .build();
+        return new Record(sequence, offset, entry);
+    }
+
+    private static byte[] bytes(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return bytes.length <= MAX_STRING_BYTES ? bytes : Arrays.copyOf(bytes, MAX_STRING_BYTES);
+    }
+
+    private static String string(ByteBuffer body) {
+        int length = Short.toUnsignedInt(body.getShort());
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
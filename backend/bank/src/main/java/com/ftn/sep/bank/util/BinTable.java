@@ -0,0 +1,250 @@
+package com.ftn.sep.bank.util;
+
+import com.ftn.sep.bank.model.CardType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable BIN/IIN range index.
+ * <p>
+ * Each range of equal-length digit prefixes is split into the smallest set of
+ * prefixes that covers it (e.g. 2221-2720 becomes 2221..2229, 223..229, 23..26,
+ * 270, 271, 2720) and inserted into a digit trie stored in flat arrays. A lookup
+ * walks the PAN digits once and returns the entry of the longest matching prefix,
+ * so it is O(prefix length) and does not allocate.
+ * <p>
+ * Where ranges of different lengths overlap, the more specific one wins;
+ * overlapping ranges of the same length are rejected.
+ */
+public final class BinTable {
+
+    public record Entry(CardType brand, String issuer, String cardLevel) {
+    }
+
+    private static final int MAX_PREFIX_LENGTH = 11;
+
+    private final String version;
+    private final int rangeCount;
+    private final int maxDepth;
+    private final int nodeCount;
+    // children[node * 10 + digit] is the child node, 0 if none (the root is never a child)
+    private final int[] children;
+    // entryIndex[node] is the index into entries plus one, 0 if none
+    private final int[] entryIndex;
+    private final Entry[] entries;
+
+    private BinTable(Builder builder) {
+        this.version = builder.version;
+        this.rangeCount = builder.entries.size();
+        this.maxDepth = builder.maxDepth;
+        this.nodeCount = builder.nodeCount;
+        this.children = Arrays.copyOf(builder.children, builder.nodeCount * 10);
+        this.entryIndex = Arrays.copyOf(builder.entryIndex, builder.nodeCount);
+        this.entries = builder.entries.toArray(new Entry[0]);
+    }
+
+    /**
+     * Entry of the longest range prefix matching the PAN, or null if none matches.
+     */
+    public Entry lookup(CharSequence pan) {
+        if (pan == null) {
+            return null;
+        }
+
+        int node = 0;
+        int best = entryIndex[0];
+        int depth = Math.min(pan.length(), maxDepth);
+        for (int i = 0; i < depth; i++) {
+            int digit = pan.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            node = children[node * 10 + digit];
+            if (node == 0) {
+                break;
+            }
+            if (entryIndex[node] != 0) {
+                best = entryIndex[node];
+            }
+        }
+        return best != 0 ? entries[best - 1] : null;
+    }
+
+    public String version() {
+        return version;
+    }
+
+    public int rangeCount() {
+        return rangeCount;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Parses a BIN table file: a {@code version=...} line followed by
+     * {@code low,high,brand,issuer,level} lines. Blank lines and lines
+     * starting with '#' are ignored; issuer and level may be empty.
+     */
+    public static BinTable parse(Reader source) throws IOException {
+        BufferedReader reader = new BufferedReader(source);
+        Builder builder = null;
+        String line;
+        int lineNumber = 0;
+
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            if (builder == null) {
+                if (!line.startsWith("version=") || line.length() == "version=".length()) {
+                    throw new IllegalArgumentException("BIN table must start with a version line");
+                }
+                builder = new Builder(line.substring("version=".length()).strip());
+                continue;
+            }
+
+            String[] fields = line.split(",", -1);
+            if (fields.length != 5) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected low,high,brand,issuer,level");
+            }
+            try {
+                builder.addRange(fields[0].strip(), fields[1].strip(), new Entry(
+                        CardType.valueOf(fields[2].strip()),
+                        emptyToNull(fields[3].strip()),
+                        emptyToNull(fields[4].strip())));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+
+        if (builder == null) {
+            throw new IllegalArgumentException("BIN table is empty");
+        }
+        return builder.build();
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    public static Builder builder(String version) {
+        return new Builder(version);
+    }
+
+    public static final class Builder {
+        private final String version;
+        private final List<Entry> entries = new ArrayList<>();
+        // Declared ranges per prefix length (low -> high), to reject overlaps
+        private final Map<Integer, TreeMap<Long, Long>> declared = new TreeMap<>();
+        private int[] children = new int[1024 * 10];
+        private int[] entryIndex = new int[1024];
+        // Prefix length of the range that set entryIndex[node], for overlap resolution
+        private int[] entryPrefixLength = new int[1024];
+        private int nodeCount = 1;
+        private int maxDepth;
+
+        private Builder(String version) {
+            this.version = version;
+        }
+
+        public Builder addRange(String low, String high, Entry entry) {
+            int length = low.length();
+            if (length == 0 || length > MAX_PREFIX_LENGTH || high.length() != length
+                    || !isDigits(low) || !isDigits(high)) {
+                throw new IllegalArgumentException("Invalid BIN range " + low + "-" + high);
+            }
+            long from = Long.parseLong(low);
+            long to = Long.parseLong(high);
+            if (from > to) {
+                throw new IllegalArgumentException("Invalid BIN range " + low + "-" + high);
+            }
+
+            TreeMap<Long, Long> sameLength = declared.computeIfAbsent(length, key -> new TreeMap<>());
+            Map.Entry<Long, Long> previous = sameLength.floorEntry(to);
+            if (previous != null && previous.getValue() >= from) {
+                throw new IllegalArgumentException("BIN range " + low + "-" + high + " overlaps another range");
+            }
+            sameLength.put(from, to);
+
+            entries.add(entry);
+            int index = entries.size();
+            maxDepth = Math.max(maxDepth, length);
+
+            // Cover [from, to] with the fewest aligned prefixes
+            while (from <= to) {
+                int wildcardDigits = 0;
+                long block = 1;
+                while (wildcardDigits < length && from % (block * 10) == 0 && from + block * 10 - 1 <= to) {
+                    block *= 10;
+                    wildcardDigits++;
+                }
+                insert(from / block, length - wildcardDigits, length, index);
+                from += block;
+            }
+            return this;
+        }
+
+        private void insert(long prefix, int prefixLength, int rangeLength, int index) {
+            int node = 0;
+            long divisor = pow10(prefixLength - 1);
+            for (int i = 0; i < prefixLength; i++) {
+                int digit = (int) (prefix / divisor % 10);
+                divisor /= 10;
+                int slot = node * 10 + digit;
+                if (children[slot] == 0) {
+                    children[slot] = newNode();
+                }
+                node = children[slot];
+            }
+
+            if (entryIndex[node] == 0 || entryPrefixLength[node] < rangeLength) {
+                entryIndex[node] = index;
+                entryPrefixLength[node] = rangeLength;
+            }
+        }
+
+        private int newNode() {
+            if (nodeCount == entryIndex.length) {
+                int capacity = nodeCount * 2;
+                children = Arrays.copyOf(children, capacity * 10);
+                entryIndex = Arrays.copyOf(entryIndex, capacity);
+                entryPrefixLength = Arrays.copyOf(entryPrefixLength, capacity);
+            }
+            return nodeCount++;
+        }
+
+        public BinTable build() {
+            return new BinTable(this);
+        }
+
+        private static boolean isDigits(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < '0' || c > '9') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long pow10(int exponent) {
+            long result = 1;
+            for (int i = 0; i < exponent; i++) {
+                result *= 10;
+            }
+            return result;
+        }
+    }
+}
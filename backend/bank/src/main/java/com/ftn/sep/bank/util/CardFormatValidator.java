@@ -0,0 +1,127 @@
+package com.ftn.sep.bank.util;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+
+/**
+ * Allocation-free card format checks: PAN length and Luhn checksum, MM/yy expiry
+ * against the current month, and CVV. Each field is scanned once with no regex,
+ * formatter or exception on bad input.
+ * <p>
+ * The current month is cached and refreshed by a clock tick, so an expiry check
+ * is an int comparison; right after midnight on the 1st a card may be judged
+ * against the previous month for up to one tick.
+ */
+@Component
+public class CardFormatValidator {
+
+    public static final int VALID = 0;
+    public static final int PAN_FORMAT = 1;
+    public static final int PAN_CHECKSUM = 1 << 1;
+    public static final int EXPIRY_FORMAT = 1 << 2;
+    public static final int EXPIRED = 1 << 3;
+    public static final int CVV_FORMAT = 1 << 4;
+
+    private static final int MIN_PAN_LENGTH = 13;
+    private static final int MAX_PAN_LENGTH = 19;
+
+    private volatile int currentMonth = monthIndex(YearMonth.now());
+
+    @Scheduled(fixedRateString = "${card.validation.clock-tick-ms:60000}")
+    public void tick() {
+        currentMonth = monthIndex(YearMonth.now());
+    }
+
+    /**
+     * Returns {@link #VALID} or the bitwise OR of the failed checks.
+     */
+    public int validate(CharSequence pan, CharSequence expiryDate, CharSequence securityCode) {
+        return checkPan(pan) | checkExpiry(expiryDate) | checkSecurityCode(securityCode);
+    }
+
+    public boolean isValid(CharSequence pan, CharSequence expiryDate, CharSequence securityCode) {
+        return validate(pan, expiryDate, securityCode) == VALID;
+    }
+
+    /**
+     * 13-19 ASCII digits with a valid Luhn checksum.
+     */
+    public int checkPan(CharSequence pan) {
+        if (pan == null) {
+            return PAN_FORMAT;
+        }
+        int length = pan.length();
+        if (length < MIN_PAN_LENGTH || length > MAX_PAN_LENGTH) {
+            return PAN_FORMAT;
+        }
+
+        int sum = 0;
+        boolean alternate = false;
+        for (int i = length - 1; i >= 0; i--) {
+            int digit = pan.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return PAN_FORMAT;
+            }
+            if (alternate) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            alternate = !alternate;
+        }
+        return sum % 10 == 0 ? VALID : PAN_CHECKSUM;
+    }
+
+    /**
+     * MM/yy with month 01-12, not before the current month.
+     */
+    public int checkExpiry(CharSequence expiryDate) {
+        if (expiryDate == null || expiryDate.length() != 5 || expiryDate.charAt(2) != '/') {
+            return EXPIRY_FORMAT;
+        }
+
+        int m1 = expiryDate.charAt(0) - '0';
+        int m2 = expiryDate.charAt(1) - '0';
+        int y1 = expiryDate.charAt(3) - '0';
+        int y2 = expiryDate.charAt(4) - '0';
+        if ((m1 | m2 | y1 | y2) < 0 || m1 > 9 || m2 > 9 || y1 > 9 || y2 > 9) {
+            return EXPIRY_FORMAT;
+        }
+
+        int month = m1 * 10 + m2;
+        if (month < 1 || month > 12) {
+            return EXPIRY_FORMAT;
+        }
+
+        int year = 2000 + y1 * 10 + y2;
+        return year * 12 + month - 1 >= currentMonth ? VALID : EXPIRED;
+    }
+
+    /**
+     * 3 or 4 ASCII digits.
+     */
+    public int checkSecurityCode(CharSequence securityCode) {
+        if (securityCode == null) {
+            return CVV_FORMAT;
+        }
+        int length = securityCode.length();
+        if (length < 3 || length > 4) {
+            return CVV_FORMAT;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = securityCode.charAt(i);
+            if (c < '0' || c > '9') {
+                return CVV_FORMAT;
+            }
+        }
+        return VALID;
+    }
+
+    private static int monthIndex(YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+}
@@ -0,0 +1,25 @@
+package com.ftn.sep.bank.util;
+
+/**
+ * CSV field escaping (RFC 4180) for the report and statement exports.
+ */
+public final class Csv {
+
+    private Csv() {
+    }
+
+    /**
+     * Returns the value as a CSV field: null becomes empty, and values containing a
+     * comma, quote or line break are quoted with inner quotes doubled.
+     */
+    public static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,19 +1,22 @@
 package com.ftn.sep.bank.util;
 
 import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
 import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.math.BigDecimal;
-import java.util.Base64;
+import java.util.EnumMap;
+import java.util.Map;
 
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class IpsQrGenerator {
 
@@ -22,6 +25,18 @@ public class IpsQrGenerator {
     private static final String CHARSET = "1";
     private static final String PAYMENT_CODE = "289"; // bezgotovinski - gradjani
 
+    private final QrImageCache qrImageCache;
+
+    @Value("${qr.image.size:400}")
+    private int imageSize;
+
+    @Value("${qr.image.margin:4}")
+    private int margin;
+
+    // L, M, Q or H
+    @Value("${qr.image.error-correction:L}")
+    private String errorCorrection;
+
     public String generateQrCode(
             String recipientAccount,
             String recipientName,
@@ -39,30 +54,56 @@ public class IpsQrGenerator {
                 paymentPurpose
         );
 
+        return getOrRender(ipsPayload, QrImageFormat.PNG).base64();
+    }
+
+    /**
+     * Returns the rendered image for the payload, rendering it only on a cache miss.
+     */
+    public QrImage getOrRender(String ipsPayload, QrImageFormat format) {
+        String cacheKey = format.name() + '\n' + ipsPayload;
+
+        QrImage cached = qrImageCache.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
         log.info("Generated IPS payload: {}", ipsPayload);
 
+        QrImage rendered = QrImage.of(format, render(ipsPayload, format));
+        qrImageCache.put(cacheKey, rendered);
+        return rendered;
+    }
+
+    private byte[] render(String ipsPayload, QrImageFormat format) {
+        Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+        hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.valueOf(errorCorrection));
+        hints.put(EncodeHintType.MARGIN, margin);
+
         try {
             QRCodeWriter qrCodeWriter = new QRCodeWriter();
+            if (format == QrImageFormat.SVG) {
+                // Module-sized matrix; the SVG scales itself
+                BitMatrix modules = qrCodeWriter.encode(ipsPayload, BarcodeFormat.QR_CODE, 0, 0, hints);
+                return QrImageRenderer.toSvg(modules, imageSize);
+            }
+
             BitMatrix bitMatrix = qrCodeWriter.encode(
                     ipsPayload,
                     BarcodeFormat.QR_CODE,
-                    400,
-                    400
+                    imageSize,
+                    imageSize,
+                    hints
             );
+            return QrImageRenderer.toPng(bitMatrix);
 
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            MatrixToImageWriter.writeToStream(bitMatrix, "PNG", outputStream);
-
-            byte[] imageBytes = outputStream.toByteArray();
-            return Base64.getEncoder().encodeToString(imageBytes);
-
-        } catch (WriterException | IOException e) {
+        } catch (WriterException e) {
             log.error("Error generating QR code", e);
             throw new RuntimeException("Failed to generate QR code", e);
         }
     }
 
-    private String buildIpsPayload(
+    public String buildIpsPayload(
             String recipientAccount,
             String recipientName,
             BigDecimal amount,
@@ -0,0 +1,222 @@
+package com.ftn.sep.bank.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of validating an IPS QR payload.
+ * <p>
+ * Fields are kept as offsets into the original payload and errors as a bit set;
+ * error messages and the parsed field map are only materialized when requested
+ * (e.g. when the result is serialized to JSON). An instance can be passed back to
+ * {@link IpsQrValidator#validateQrPayload(CharSequence, IpsQrValidationResult)} and
+ * reused, so validating in a loop allocates nothing; it is not thread-safe.
+ */
+public final class IpsQrValidationResult {
+
+    public enum Tag {
+        K, V, C, R, N, I, SF, RO;
+
+        static Tag match(CharSequence source, int start, int end) {
+            int length = end - start;
+            if (length == 1) {
+                return switch (source.charAt(start)) {
+                    case 'K' -> K;
+                    case 'V' -> V;
+                    case 'C' -> C;
+                    case 'R' -> R;
+                    case 'N' -> N;
+                    case 'I' -> I;
+                    default -> null;
+                };
+            }
+            if (length == 2) {
+                char first = source.charAt(start);
+                char second = source.charAt(start + 1);
+                if (first == 'S' && second == 'F') {
+                    return SF;
+                }
+                if (first == 'R' && second == 'O') {
+                    return RO;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Validation errors in reporting order.
+     */
+    public enum Error {
+        K_MISSING(Tag.K),
+        K_INVALID(Tag.K),
+        V_MISSING(Tag.V),
+        V_INVALID(Tag.V),
+        C_MISSING(Tag.C),
+        C_INVALID(Tag.C),
+        R_MISSING(Tag.R),
+        R_FORMAT(Tag.R),
+        N_MISSING(Tag.N),
+        N_TOO_LONG(Tag.N),
+        N_TOO_MANY_LINES(Tag.N),
+        I_MISSING(Tag.I),
+        I_FORMAT(Tag.I),
+        I_LENGTH(Tag.I),
+        I_TOO_LARGE(Tag.I),
+        SF_MISSING(Tag.SF),
+        SF_FORMAT(Tag.SF),
+        SF_TYPE(Tag.SF),
+        RO_TOO_LONG(Tag.RO),
+        RO_TOO_SHORT(Tag.RO),
+        RO_MODEL(Tag.RO),
+        RO_CHECKSUM(Tag.RO);
+
+        private final Tag tag;
+
+        Error(Tag tag) {
+            this.tag = tag;
+        }
+
+        int bit() {
+            return 1 << ordinal();
+        }
+    }
+
+    private static final int[] TAG_ERROR_MASKS = new int[Tag.values().length];
+
+    static {
+        for (Error error : Error.values()) {
+            TAG_ERROR_MASKS[error.tag.ordinal()] |= error.bit();
+        }
+    }
+
+    private CharSequence source = "";
+
+    // Triples of (key start, colon index, value end) per parsed field
+    private int[] fields = new int[48];
+    private int fieldCount;
+
+    private final int[] tagFields = new int[Tag.values().length];
+    private int errors;
+
+    public IpsQrValidationResult() {
+        Arrays.fill(tagFields, -1);
+    }
+
+    void reset(CharSequence source) {
+        this.source = source;
+        fieldCount = 0;
+        errors = 0;
+        Arrays.fill(tagFields, -1);
+    }
+
+    public boolean isValid() {
+        return errors == 0;
+    }
+
+    public boolean hasError(Error error) {
+        return (errors & error.bit()) != 0;
+    }
+
+    public boolean has(Tag tag) {
+        return tagFields[tag.ordinal()] >= 0;
+    }
+
+    /**
+     * Returns the value of the last occurrence of the tag, or null if absent.
+     */
+    public CharSequence value(Tag tag) {
+        int field = tagFields[tag.ordinal()];
+        if (field < 0) {
+            return null;
+        }
+        return source.subSequence(fields[field * 3 + 1] + 1, fields[field * 3 + 2]);
+    }
+
+    public List<String> getErrors() {
+        if (errors == 0) {
+            return Collections.emptyList();
+        }
+
+        List<String> messages = new ArrayList<>(Integer.bitCount(errors));
+        for (Error error : Error.values()) {
+            if (hasError(error)) {
+                messages.add(message(error));
+            }
+        }
+        return messages;
+    }
+
+    public Map<String, String> getParsedData() {
+        Map<String, String> data = new LinkedHashMap<>();
+        for (int i = 0; i < fieldCount; i++) {
+            int base = i * 3;
+            data.put(source.subSequence(fields[base], fields[base + 1]).toString(),
+                    source.subSequence(fields[base + 1] + 1, fields[base + 2]).toString());
+        }
+        return data;
+    }
+
+    int addField(int keyStart, int colon, int end) {
+        if ((fieldCount + 1) * 3 > fields.length) {
+            fields = Arrays.copyOf(fields, fields.length * 2);
+        }
+        int base = fieldCount * 3;
+        fields[base] = keyStart;
+        fields[base + 1] = colon;
+        fields[base + 2] = end;
+        return fieldCount++;
+    }
+
+    /**
+     * Records the latest occurrence of a tag, discarding errors from an earlier one.
+     */
+    void bindTag(Tag tag, int field) {
+        tagFields[tag.ordinal()] = field;
+        errors &= ~TAG_ERROR_MASKS[tag.ordinal()];
+    }
+
+    void addError(Error error) {
+        errors |= error.bit();
+    }
+
+    private String message(Error error) {
+        return switch (error) {
+            case K_MISSING -> missing("K");
+            case K_INVALID -> invalid("K", IpsQrValidator.EXPECTED_K, Tag.K);
+            case V_MISSING -> missing("V");
+            case V_INVALID -> invalid("V", IpsQrValidator.EXPECTED_V, Tag.V);
+            case C_MISSING -> missing("C");
+            case C_INVALID -> invalid("C", IpsQrValidator.EXPECTED_C, Tag.C);
+            case R_MISSING -> "Account number (R) is mandatory";
+            case R_FORMAT -> "Account number must be exactly 18 digits without hyphens. Received: " + value(Tag.R);
+            case N_MISSING -> "Recipient name (N) is mandatory";
+            case N_TOO_LONG -> "Recipient name cannot be longer than 70 characters";
+            case N_TOO_MANY_LINES -> "Recipient name cannot have more than 3 lines";
+            case I_MISSING -> "Amount (I) is mandatory";
+            case I_FORMAT -> "Amount must be in format RSDamount,decimals (e.g. RSD5000,00)";
+            case I_LENGTH -> "Amount must have between 5 and 18 alphanumeric characters";
+            case I_TOO_LARGE -> "Amount cannot be greater than 999,999,999,999.99";
+            case SF_MISSING -> "Payment code (SF) is mandatory";
+            case SF_FORMAT -> "Payment code must be exactly 3 digits";
+            case SF_TYPE -> "Payment code must start with 1 (cash) or 2 (cashless)";
+            case RO_TOO_LONG -> "Reference number (RO) cannot be longer than 25 characters";
+            case RO_TOO_SHORT -> "Reference number (RO) must have at least 2 digits for the model";
+            case RO_MODEL -> "Model in reference number must be 2 digits";
+            case RO_CHECKSUM -> "Reference number for model 97 is invalid (checksum does not match)";
+        };
+    }
+
+    private String missing(String key) {
+        return "Mandatory field '" + key + "' is missing";
+    }
+
+    private String invalid(String key, String expected, Tag tag) {
+        return "Field '" + key + "' has an invalid value. Expected: " +
+                expected + ", received: " + value(tag);
+    }
+}
@@ -1,180 +1,291 @@
 package com.ftn.sep.bank.util;
 
+import com.ftn.sep.bank.util.IpsQrValidationResult.Error;
+import com.ftn.sep.bank.util.IpsQrValidationResult.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.regex.Pattern;
-
+/**
+ * Single-pass IPS QR payload validator.
+ * <p>
+ * Scans the payload once, splitting on '|' and ':' by index and validating each
+ * field as it is found - no regex, split, substring or map on the hot path.
+ * When a tag repeats, the last occurrence wins.
+ */
 @Component
 @Slf4j
 public class IpsQrValidator {
 
-    private static final Pattern ACCOUNT_PATTERN = Pattern.compile("^\\d{18}$");
-    private static final Pattern AMOUNT_PATTERN = Pattern.compile("^RSD\\d+,?\\d*$");
-    private static final Pattern PAYMENT_CODE_PATTERN = Pattern.compile("^\\d{3}$");
-
-    public Map<String, Object> validateQrPayload(String payload) {
-        List<String> errors = new ArrayList<>();
-        Map<String, String> parsedData = new HashMap<>();
-
-        log.info("Validating IPS QR payload: {}", payload);
+    static final String EXPECTED_K = "PR";
+    static final String EXPECTED_V = "01";
+    static final String EXPECTED_C = "1";
 
-        String[] fields = payload.split("\\|");
+    private static final int MAX_NAME_LENGTH = 70;
+    private static final int MAX_NAME_LINES = 3;
+    private static final int MAX_REFERENCE_LENGTH = 25;
+    private static final int MAX_AMOUNT_INTEGER_DIGITS = 12;
 
-        for (String field : fields) {
-            if (field.isEmpty()) continue;
+    public IpsQrValidationResult validateQrPayload(CharSequence payload) {
+        return validateQrPayload(payload, new IpsQrValidationResult());
+    }
 
-            String[] keyValue = field.split(":", 2);
-            if (keyValue.length == 2) {
-                parsedData.put(keyValue[0], keyValue[1]);
+    /**
+     * Validates into the given result, overwriting its previous contents.
+     */
+    public IpsQrValidationResult validateQrPayload(CharSequence payload, IpsQrValidationResult result) {
+        CharSequence source = payload != null ? payload : "";
+        log.debug("Validating IPS QR payload: {}", source);
+
+        result.reset(source);
+
+        int length = source.length();
+        int fieldStart = 0;
+        int colon = -1;
+
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? source.charAt(i) : '|';
+            if (c == ':' && colon < 0) {
+                colon = i;
+            } else if (c == '|') {
+                if (colon >= 0) {
+                    onField(source, result, fieldStart, colon, i);
+                }
+                fieldStart = i + 1;
+                colon = -1;
             }
         }
 
-        validateMandatoryField(parsedData, "K", "PR", errors);
-        validateMandatoryField(parsedData, "V", "01", errors);
-        validateMandatoryField(parsedData, "C", "1", errors);
-
-        validateAccount(parsedData.get("R"), errors);
-
-        validateRecipientName(parsedData.get("N"), errors);
+        if (!result.has(Tag.K)) result.addError(Error.K_MISSING);
+        if (!result.has(Tag.V)) result.addError(Error.V_MISSING);
+        if (!result.has(Tag.C)) result.addError(Error.C_MISSING);
+        if (!result.has(Tag.R)) result.addError(Error.R_MISSING);
+        if (!result.has(Tag.N)) result.addError(Error.N_MISSING);
+        if (!result.has(Tag.I)) result.addError(Error.I_MISSING);
+        if (!result.has(Tag.SF)) result.addError(Error.SF_MISSING);
 
-        validateAmount(parsedData.get("I"), errors);
+        return result;
+    }
 
-        validatePaymentCode(parsedData.get("SF"), errors);
+    private void onField(CharSequence s, IpsQrValidationResult result, int keyStart, int colon, int end) {
+        int field = result.addField(keyStart, colon, end);
 
-        if (parsedData.containsKey("RO")) {
-            validateReferenceNumber(parsedData.get("RO"), errors);
+        Tag tag = Tag.match(s, keyStart, colon);
+        if (tag == null) {
+            return;
         }
+        result.bindTag(tag, field);
 
-        Map<String, Object> result = new HashMap<>();
-        result.put("valid", errors.isEmpty());
-        result.put("errors", errors);
-        result.put("parsedData", parsedData);
-
-        return result;
+        int start = colon + 1;
+        switch (tag) {
+            case K -> {
+                if (!contentEquals(s, start, end, EXPECTED_K)) result.addError(Error.K_INVALID);
+            }
+            case V -> {
+                if (!contentEquals(s, start, end, EXPECTED_V)) result.addError(Error.V_INVALID);
+            }
+            case C -> {
+                if (!contentEquals(s, start, end, EXPECTED_C)) result.addError(Error.C_INVALID);
+            }
+            case R -> validateAccount(s, result, start, end);
+            case N -> validateRecipientName(s, result, start, end);
+            case I -> validateAmount(s, result, start, end);
+            case SF -> validatePaymentCode(s, result, start, end);
+            case RO -> validateReferenceNumber(s, result, start, end);
+        }
     }
 
-    private void validateMandatoryField(Map<String, String> data, String key,
-                                        String expectedValue, List<String> errors) {
-        if (!data.containsKey(key)) {
-            errors.add("Mandatory field '" + key + "' is missing");
-        } else if (!data.get(key).equals(expectedValue)) {
-            errors.add("Field '" + key + "' has an invalid value. Expected: " +
-                    expectedValue + ", received: " + data.get(key));
+    private void validateAccount(CharSequence s, IpsQrValidationResult result, int start, int end) {
+        if (start == end) {
+            result.addError(Error.R_MISSING);
+        } else if (end - start != 18 || !allDigits(s, start, end)) {
+            result.addError(Error.R_FORMAT);
         }
     }
 
-    private void validateAccount(String account, List<String> errors) {
-        if (account == null || account.isEmpty()) {
-            errors.add("Account number (R) is mandatory");
+    private void validateRecipientName(CharSequence s, IpsQrValidationResult result, int start, int end) {
+        if (start == end) {
+            result.addError(Error.N_MISSING);
             return;
         }
 
-        if (!ACCOUNT_PATTERN.matcher(account).matches()) {
-            errors.add("Account number must be exactly 18 digits without hyphens. Received: " + account);
+        if (end - start > MAX_NAME_LENGTH) {
+            result.addError(Error.N_TOO_LONG);
+        }
+
+        // Trailing line breaks do not start a new line
+        int last = end - 1;
+        while (last >= start && s.charAt(last) == '\n') {
+            last--;
+        }
+        int lines = last >= start ? 1 : 0;
+        for (int i = start; i < last; i++) {
+            if (s.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+        if (lines > MAX_NAME_LINES) {
+            result.addError(Error.N_TOO_MANY_LINES);
         }
     }
 
-    private void validateRecipientName(String name, List<String> errors) {
-        if (name == null || name.isEmpty()) {
-            errors.add("Recipient name (N) is mandatory");
+    /**
+     * Amount format: RSD, at least one integer digit, optional ',' and decimal digits.
+     */
+    private void validateAmount(CharSequence s, IpsQrValidationResult result, int start, int end) {
+        if (start == end) {
+            result.addError(Error.I_MISSING);
             return;
         }
 
-        if (name.length() > 70) {
-            errors.add("Recipient name cannot be longer than 70 characters");
+        int i = start;
+        if (end - start < 4 || s.charAt(i) != 'R' || s.charAt(i + 1) != 'S' || s.charAt(i + 2) != 'D') {
+            result.addError(Error.I_FORMAT);
+            return;
         }
+        i += 3;
 
-        String[] lines = name.split("\n");
-        if (lines.length > 3) {
-            errors.add("Recipient name cannot have more than 3 lines");
+        int integerStart = i;
+        while (i < end && isDigit(s.charAt(i))) {
+            i++;
         }
-    }
-
-    private void validateAmount(String amount, List<String> errors) {
-        if (amount == null || amount.isEmpty()) {
-            errors.add("Amount (I) is mandatory");
+        int integerEnd = i;
+        if (integerEnd == integerStart) {
+            result.addError(Error.I_FORMAT);
             return;
         }
 
-        if (!AMOUNT_PATTERN.matcher(amount).matches()) {
-            errors.add("Amount must be in format RSDamount,decimals (e.g. RSD5000,00)");
+        if (i < end && s.charAt(i) == ',') {
+            i++;
+        }
+        int fractionStart = i;
+        while (i < end && isDigit(s.charAt(i))) {
+            i++;
+        }
+        if (i != end) {
+            result.addError(Error.I_FORMAT);
             return;
         }
 
-        if (amount.length() < 5 || amount.length() > 18) {
-            errors.add("Amount must have between 5 and 18 alphanumeric characters");
+        int length = end - start;
+        if (length < 5 || length > 18) {
+            result.addError(Error.I_LENGTH);
+        }
+
+        if (exceedsMaxAmount(s, integerStart, integerEnd, fractionStart, end)) {
+            result.addError(Error.I_TOO_LARGE);
+        }
+    }
+
+    /**
+     * Compares against 999,999,999,999.99 digit by digit, without parsing.
+     */
+    private boolean exceedsMaxAmount(CharSequence s, int integerStart, int integerEnd,
+                                     int fractionStart, int fractionEnd) {
+        while (integerStart < integerEnd - 1 && s.charAt(integerStart) == '0') {
+            integerStart++;
         }
 
-        String amountStr = amount.replace("RSD", "").replace(",", ".");
-        try {
-            BigDecimal amountValue = new BigDecimal(amountStr);
-            if (amountValue.compareTo(BigDecimal.ZERO) < 0) {
-                errors.add("Amount cannot be negative");
+        int integerDigits = integerEnd - integerStart;
+        if (integerDigits != MAX_AMOUNT_INTEGER_DIGITS) {
+            return integerDigits > MAX_AMOUNT_INTEGER_DIGITS;
+        }
+        for (int i = integerStart; i < integerEnd; i++) {
+            if (s.charAt(i) != '9') {
+                return false;
             }
-            if (amountValue.compareTo(new BigDecimal("999999999999.99")) > 0) {
-                errors.add("Amount cannot be greater than 999,999,999,999.99");
+        }
+
+        // Integer part is exactly the maximum; fraction must not exceed .99
+        if (fractionEnd - fractionStart < 3
+                || s.charAt(fractionStart) != '9' || s.charAt(fractionStart + 1) != '9') {
+            return false;
+        }
+        for (int i = fractionStart + 2; i < fractionEnd; i++) {
+            if (s.charAt(i) != '0') {
+                return true;
             }
-        } catch (NumberFormatException e) {
-            errors.add("Invalid amount format");
         }
+        return false;
     }
 
-    private void validatePaymentCode(String code, List<String> errors) {
-        if (code == null || code.isEmpty()) {
-            errors.add("Payment code (SF) is mandatory");
+    private void validatePaymentCode(CharSequence s, IpsQrValidationResult result, int start, int end) {
+        if (start == end) {
+            result.addError(Error.SF_MISSING);
             return;
         }
 
-        if (!PAYMENT_CODE_PATTERN.matcher(code).matches()) {
-            errors.add("Payment code must be exactly 3 digits");
+        if (end - start != 3 || !allDigits(s, start, end)) {
+            result.addError(Error.SF_FORMAT);
             return;
         }
 
-        char firstDigit = code.charAt(0);
+        char firstDigit = s.charAt(start);
         if (firstDigit != '1' && firstDigit != '2') {
-            errors.add("Payment code must start with 1 (cash) or 2 (cashless)");
+            result.addError(Error.SF_TYPE);
         }
     }
 
-    private void validateReferenceNumber(String reference, List<String> errors) {
-        if (reference.length() > 25) {
-            errors.add("Reference number (RO) cannot be longer than 25 characters");
+    private void validateReferenceNumber(CharSequence s, IpsQrValidationResult result, int start, int end) {
+        int length = end - start;
+        if (length > MAX_REFERENCE_LENGTH) {
+            result.addError(Error.RO_TOO_LONG);
         }
 
-        if (reference.length() < 2) {
-            errors.add("Reference number (RO) must have at least 2 digits for the model");
+        if (length < 2) {
+            result.addError(Error.RO_TOO_SHORT);
             return;
         }
 
-        String model = reference.substring(0, 2);
-        if (!model.matches("\\d{2}")) {
-            errors.add("Model in reference number must be 2 digits");
+        char first = s.charAt(start);
+        char second = s.charAt(start + 1);
+        if (!isDigit(first) || !isDigit(second)) {
+            result.addError(Error.RO_MODEL);
         }
 
-        if ("97".equals(model) && reference.length() > 2) {
-            String refNumber = reference.substring(2);
-            if (!validateMod97(refNumber)) {
-                errors.add("Reference number for model 97 is invalid (checksum does not match)");
-            }
+        if (first == '9' && second == '7' && length > 2 && !validateMod97(s, start + 2, end)) {
+            result.addError(Error.RO_CHECKSUM);
         }
     }
 
-    private boolean validateMod97(String reference) {
-        reference = reference.replaceAll("[^0-9]", "");
-
-        if (reference.length() < 2) return false;
+    /**
+     * Computes the reference modulo 97 digit by digit (non-digits are ignored),
+     * so references of any length are handled without overflow.
+     */
+    private boolean validateMod97(CharSequence s, int start, int end) {
+        int remainder = 0;
+        int digits = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (isDigit(c)) {
+                remainder = (remainder * 10 + (c - '0')) % 97;
+                digits++;
+            }
+        }
+        return digits >= 2 && remainder == 0;
+    }
 
-        try {
-            long number = Long.parseLong(reference);
-            return (number % 97) == 0;
-        } catch (NumberFormatException e) {
+    private static boolean contentEquals(CharSequence s, int start, int end, String expected) {
+        if (end - start != expected.length()) {
             return false;
         }
+        for (int i = 0; i < expected.length(); i++) {
+            if (s.charAt(start + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean allDigits(CharSequence s, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isDigit(s.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
     }
 }
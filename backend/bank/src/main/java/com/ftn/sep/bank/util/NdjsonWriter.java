@@ -0,0 +1,43 @@
+package com.ftn.sep.bank.util;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.ObjectWriteContext;
+import tools.jackson.core.json.JsonFactory;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes newline-delimited JSON to a response stream through a 64 KiB buffer.
+ * Each root value written to {@link #generator()} becomes one line. Closing ends
+ * the last line and flushes, but leaves the underlying stream open.
+ */
+public final class NdjsonWriter implements AutoCloseable {
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .rootValueSeparator("\n")
+            .build();
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final JsonGenerator generator;
+
+    public NdjsonWriter(OutputStream out) {
+        generator = JSON_FACTORY.createGenerator(ObjectWriteContext.empty(),
+                new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE));
+    }
+
+    public JsonGenerator generator() {
+        return generator;
+    }
+
+    @Override
+    public void close() {
+        // The separator only goes between root values, so the last line is ended here
+        if (generator.streamWriteContext().getEntryCount() > 0) {
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+}
@@ -0,0 +1,25 @@
+package com.ftn.sep.bank.util;
+
+import java.util.Base64;
+import java.util.zip.CRC32;
+
+/**
+ * A rendered QR image. PNG images also carry the Base64 form used in JSON responses.
+ */
+public record QrImage(QrImageFormat format, byte[] bytes, String base64, String etag) {
+
+    public static QrImage of(QrImageFormat format, byte[] bytes) {
+        String base64 = format == QrImageFormat.PNG ? Base64.getEncoder().encodeToString(bytes) : null;
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        String etag = "\"" + format.name().toLowerCase() + "-" + bytes.length + "-"
+                + Long.toHexString(crc.getValue()) + "\"";
+
+        return new QrImage(format, bytes, base64, etag);
+    }
+
+    public long weight() {
+        return bytes.length + (base64 != null ? base64.length() : 0);
+    }
+}
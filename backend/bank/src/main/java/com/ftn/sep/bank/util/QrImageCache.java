@@ -0,0 +1,74 @@
+package com.ftn.sep.bank.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content-addressed LRU cache of rendered QR images keyed by the IPS payload.
+ * Bounded by entry count and by total image bytes.
+ */
+@Component
+public class QrImageCache {
+
+    private final int maxEntries;
+    private final long maxBytes;
+
+    private final LinkedHashMap<String, QrImage> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public QrImageCache(@Value("${qr.cache.max-entries:2000}") int maxEntries,
+                        @Value("${qr.cache.max-bytes:33554432}") long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized QrImage get(String ipsPayload) {
+        QrImage image = entries.get(ipsPayload);
+        if (image == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return image;
+    }
+
+    public synchronized void put(String ipsPayload, QrImage image) {
+        if (image.weight() > maxBytes) {
+            return;
+        }
+
+        QrImage previous = entries.put(ipsPayload, image);
+        if (previous != null) {
+            currentBytes -= previous.weight();
+        }
+        currentBytes += image.weight();
+
+        Iterator<Map.Entry<String, QrImage>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || currentBytes > maxBytes) && eldest.hasNext()) {
+            currentBytes -= eldest.next().getValue().weight();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    public synchronized Map<String, Object> stats() {
+        return Map.of(
+                "entries", entries.size(),
+                "maxEntries", maxEntries,
+                "bytes", currentBytes,
+                "maxBytes", maxBytes,
+                "hits", hits.get(),
+                "misses", misses.get(),
+                "evictions", evictions.get()
+        );
+    }
+}
@@ -0,0 +1,16 @@
+package com.ftn.sep.bank.util;
+
+public enum QrImageFormat {
+    PNG("image/png"),
+    SVG("image/svg+xml");
+
+    private final String contentType;
+
+    QrImageFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
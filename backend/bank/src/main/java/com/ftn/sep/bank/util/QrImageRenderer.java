@@ -0,0 +1,119 @@
+package com.ftn.sep.bank.util;
+
+import com.google.zxing.common.BitMatrix;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a QR {@link BitMatrix} straight to a 1-bit grayscale PNG or an SVG,
+ * without going through AWT/BufferedImage.
+ */
+public final class QrImageRenderer {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private QrImageRenderer() {
+    }
+
+    public static byte[] toPng(BitMatrix matrix) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        int rowBytes = (width + 7) / 8;
+
+        // One filter byte (0 = none) per scanline; bit 1 = white, 0 = black
+        byte[] scanlines = new byte[(rowBytes + 1) * height];
+        int offset = 0;
+        for (int y = 0; y < height; y++) {
+            offset++;
+            for (int x = 0; x < width; x++) {
+                if (!matrix.get(x, y)) {
+                    scanlines[offset + (x >> 3)] |= (byte) (0x80 >>> (x & 7));
+                }
+            }
+            offset += rowBytes;
+        }
+
+        try {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(scanlines.length / 8);
+            try (DeflaterOutputStream deflater = new DeflaterOutputStream(compressed)) {
+                deflater.write(scanlines);
+            }
+
+            ByteArrayOutputStream png = new ByteArrayOutputStream(compressed.size() + 64);
+            DataOutputStream out = new DataOutputStream(png);
+            out.write(PNG_SIGNATURE);
+
+            ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+            DataOutputStream ihdr = new DataOutputStream(header);
+            ihdr.writeInt(width);
+            ihdr.writeInt(height);
+            ihdr.writeByte(1);  // bit depth
+            ihdr.writeByte(0);  // color type: grayscale
+            ihdr.writeByte(0);  // compression
+            ihdr.writeByte(0);  // filter
+            ihdr.writeByte(0);  // interlace
+            writeChunk(out, "IHDR", header.toByteArray());
+            writeChunk(out, "IDAT", compressed.toByteArray());
+            writeChunk(out, "IEND", new byte[0]);
+
+            return png.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write PNG", e);
+        }
+    }
+
+    /**
+     * Renders the matrix as an SVG path of horizontal runs, one unit per module.
+     */
+    public static byte[] toSvg(BitMatrix matrix, int displaySize) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+
+        StringBuilder svg = new StringBuilder(width * height / 2);
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 ")
+                .append(width).append(' ').append(height)
+                .append("\" width=\"").append(displaySize)
+                .append("\" height=\"").append(displaySize)
+                .append("\" shape-rendering=\"crispEdges\">")
+                .append("<rect width=\"100%\" height=\"100%\" fill=\"#fff\"/>")
+                .append("<path fill=\"#000\" d=\"");
+
+        for (int y = 0; y < height; y++) {
+            int x = 0;
+            while (x < width) {
+                if (!matrix.get(x, y)) {
+                    x++;
+                    continue;
+                }
+                int start = x;
+                while (x < width && matrix.get(x, y)) {
+                    x++;
+                }
+                int run = x - start;
+                svg.append('M').append(start).append(',').append(y)
+                        .append('h').append(run).append("v1h-").append(run).append('z');
+            }
+        }
+
+        svg.append("\"/></svg>");
+        return svg.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writeChunk(DataOutputStream out, String type, byte[] data) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+
+        out.writeInt(data.length);
+        out.write(typeBytes);
+        out.write(data);
+        out.writeInt((int) crc.getValue());
+    }
+}
@@ -0,0 +1,83 @@
+package com.ftn.sep.bank.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free sliding-window event counter.
+ * <p>
+ * The window is split into a ring of buckets; each slot packs the bucket's epoch
+ * (time / bucket width) and its count into one long, so a stale slot is reset
+ * and incremented with a single CAS. The sum covers the buckets of the last
+ * {@code windowMs}, i.e. the window slides in steps of one bucket. Counts
+ * saturate at 2^24 - 1 per bucket.
+ */
+public final class SlidingWindowCounter {
+
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final long windowMs;
+    private final long bucketMs;
+    private final int bucketCount;
+    private final AtomicLongArray slots;
+
+    private volatile long lastEventMs;
+
+    public SlidingWindowCounter(long windowMs, int bucketCount) {
+        if (windowMs <= 0 || bucketCount < 1 || windowMs % bucketCount != 0) {
+            throw new IllegalArgumentException("Window must be a positive multiple of the bucket count");
+        }
+        this.windowMs = windowMs;
+        this.bucketMs = windowMs / bucketCount;
+        this.bucketCount = bucketCount;
+        this.slots = new AtomicLongArray(bucketCount);
+    }
+
+    /**
+     * Records one event and returns the number of events in the window, including it.
+     */
+    public long incrementAndSum(long nowMs) {
+        long epoch = nowMs / bucketMs;
+        int index = (int) (epoch % bucketCount);
+
+        long slot;
+        long updated;
+        do {
+            slot = slots.get(index);
+            if (slot >>> COUNT_BITS != epoch) {
+                updated = epoch << COUNT_BITS | 1;
+            } else if ((slot & COUNT_MASK) < COUNT_MASK) {
+                updated = slot + 1;
+            } else {
+                break;
+            }
+        } while (!slots.compareAndSet(index, slot, updated));
+
+        lastEventMs = nowMs;
+        return sumUpTo(epoch);
+    }
+
+    public long sum(long nowMs) {
+        return sumUpTo(nowMs / bucketMs);
+    }
+
+    /**
+     * True if no event was recorded within the last window, so the counter reads zero.
+     */
+    public boolean isIdle(long nowMs) {
+        return nowMs - lastEventMs >= windowMs;
+    }
+
+    private long sumUpTo(long epoch) {
+        long oldest = epoch - bucketCount;
+        long total = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            long slot = slots.get(i);
+            long slotEpoch = slot >>> COUNT_BITS;
+            if (slotEpoch > oldest && slotEpoch <= epoch) {
+                total += slot & COUNT_MASK;
+            }
+        }
+        return total;
+    }
+}
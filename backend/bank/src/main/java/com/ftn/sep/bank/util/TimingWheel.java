@@ -0,0 +1,188 @@
+package com.ftn.sep.bank.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel keyed by long ids.
+ * <p>
+ * Level 0 has {@code wheelSize} buckets of one tick each; every higher level
+ * covers {@code wheelSize} times the span of the one below. A timer is placed
+ * on the lowest level whose span covers its delay and is cascaded down a level
+ * each time the level below wraps around, so scheduling, cancelling and
+ * advancing one tick are O(1). Deadlines beyond the top level are parked in its
+ * farthest bucket and re-placed when it cascades.
+ * <p>
+ * Timers fire on the first tick at or after their deadline. Not thread-safe.
+ */
+public class TimingWheel {
+
+    private static final class Node {
+        final long id;
+        final long deadlineTick;
+        Node prev;
+        Node next;
+        Node[] bucketArray;
+        int bucketIndex;
+
+        Node(long id, long deadlineTick) {
+            this.id = id;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final int levels;
+    private final long[] spans;
+    private final Node[][] buckets;
+    private final Map<Long, Node> nodes = new HashMap<>();
+
+    private long currentTick;
+
+    public TimingWheel(long tickMs, int wheelSize, int levels, long startMs) {
+        if (tickMs <= 0 || wheelSize < 2 || levels < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel configuration");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.levels = levels;
+        this.spans = new long[levels + 1];
+        this.buckets = new Node[levels][wheelSize];
+        this.currentTick = startMs / tickMs;
+
+        spans[0] = 1;
+        for (int level = 1; level <= levels; level++) {
+            spans[level] = Math.multiplyExact(spans[level - 1], wheelSize);
+        }
+    }
+
+    /**
+     * Schedules (or reschedules) the timer for the id. Returns false if the
+     * deadline has already passed; the caller should handle it right away.
+     */
+    public boolean schedule(long id, long deadlineMs) {
+        cancel(id);
+
+        long deadlineTick = Math.ceilDiv(deadlineMs, tickMs);
+        if (deadlineTick <= currentTick) {
+            return false;
+        }
+
+        Node node = new Node(id, deadlineTick);
+        nodes.put(id, node);
+        place(node);
+        return true;
+    }
+
+    public boolean cancel(long id) {
+        Node node = nodes.remove(id);
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        return true;
+    }
+
+    public boolean contains(long id) {
+        return nodes.containsKey(id);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Advances the wheel up to the given time and returns the ids whose
+     * deadlines have been reached, removing them from the wheel.
+     */
+    public List<Long> advanceTo(long nowMs) {
+        long targetTick = nowMs / tickMs;
+        List<Long> expired = new ArrayList<>();
+
+        while (currentTick < targetTick) {
+            currentTick++;
+
+            // Cascade from the highest level that wrapped on this tick down to level 1
+            for (int level = levels - 1; level >= 1; level--) {
+                if (currentTick % spans[level] == 0) {
+                    cascade(level, expired);
+                }
+            }
+
+            Node[] level0 = buckets[0];
+            int index = (int) (currentTick % wheelSize);
+            Node node = level0[index];
+            level0[index] = null;
+            while (node != null) {
+                Node next = node.next;
+                detach(node);
+                nodes.remove(node.id);
+                expired.add(node.id);
+                node = next;
+            }
+        }
+        return expired;
+    }
+
+    private void cascade(int level, List<Long> expired) {
+        Node[] bucketArray = buckets[level];
+        int index = (int) ((currentTick / spans[level]) % wheelSize);
+        Node node = bucketArray[index];
+        bucketArray[index] = null;
+
+        while (node != null) {
+            Node next = node.next;
+            detach(node);
+            if (node.deadlineTick <= currentTick) {
+                nodes.remove(node.id);
+                expired.add(node.id);
+            } else {
+                place(node);
+            }
+            node = next;
+        }
+    }
+
+    private void place(Node node) {
+        long delta = node.deadlineTick - currentTick;
+
+        int level = 0;
+        while (level < levels - 1 && delta >= spans[level + 1]) {
+            level++;
+        }
+
+        long tick = delta < spans[levels] ? node.deadlineTick : currentTick + spans[levels] - 1;
+        int index = (int) ((tick / spans[level]) % wheelSize);
+
+        Node[] bucketArray = buckets[level];
+        node.bucketArray = bucketArray;
+        node.bucketIndex = index;
+        node.prev = null;
+        node.next = bucketArray[index];
+        if (node.next != null) {
+            node.next.prev = node;
+        }
+        bucketArray[index] = node;
+    }
+
+    private void unlink(Node node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else if (node.bucketArray != null) {
+            node.bucketArray[node.bucketIndex] = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        detach(node);
+    }
+
+    private void detach(Node node) {
+        node.prev = null;
+        node.next = null;
+        node.bucketArray = null;
+    }
+}
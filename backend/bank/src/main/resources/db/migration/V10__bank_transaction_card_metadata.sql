@@ -0,0 +1,5 @@
+-- Brand, issuer and card level of the card that authorized the transaction, from
+-- the BIN table at authorization time. Nullable, so adding them rewrites nothing.
+ALTER TABLE bank_transactions ADD COLUMN IF NOT EXISTS card_brand varchar(32);
+ALTER TABLE bank_transactions ADD COLUMN IF NOT EXISTS card_issuer varchar(255);
+ALTER TABLE bank_transactions ADD COLUMN IF NOT EXISTS card_level varchar(64);
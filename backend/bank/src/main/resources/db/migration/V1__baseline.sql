@@ -0,0 +1,93 @@
+-- Baseline schema, matching what ddl-auto=update created before migrations were
+-- introduced. Every statement is idempotent so existing databases are baselined as-is.
+-- bank_transactions is created (partitioned) in V2.
+
+CREATE TABLE IF NOT EXISTS bank_accounts (
+    id                  bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    account_number      varchar(255)   NOT NULL UNIQUE,
+    account_holder_name varchar(255)   NOT NULL,
+    balance             numeric(38, 2) NOT NULL,
+    currency            varchar(255)   NOT NULL,
+    active              boolean        NOT NULL,
+    created_at          timestamp(6)   NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS card_info (
+    id               bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    account_id       bigint       NOT NULL REFERENCES bank_accounts (id),
+    pan              varchar(500) NOT NULL,
+    pan_hash         varchar(64)  NOT NULL UNIQUE,
+    card_holder_name varchar(255) NOT NULL,
+    expiry_date      date         NOT NULL,
+    card_type        varchar(255) NOT NULL,
+    active           boolean      NOT NULL,
+    created_at       timestamp(6) NOT NULL
+);
+
+CREATE SEQUENCE IF NOT EXISTS audit_logs_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS audit_logs (
+    id          bigint PRIMARY KEY,
+    timestamp   timestamp(6)  NOT NULL,
+    action      varchar(50)   NOT NULL,
+    entity_type varchar(50)   NOT NULL,
+    entity_id   varchar(100),
+    details     varchar(1000),
+    ip_address  varchar(45),
+    result      varchar(20)   NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_audit_timestamp ON audit_logs (timestamp);
+CREATE INDEX IF NOT EXISTS idx_audit_action ON audit_logs (action);
+CREATE INDEX IF NOT EXISTS idx_audit_entity ON audit_logs (entity_type, entity_id);
+
+CREATE TABLE IF NOT EXISTS psp_notifications (
+    id                    bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    destination           varchar(500) NOT NULL,
+    stan                  varchar(255) NOT NULL,
+    global_transaction_id varchar(255) NOT NULL,
+    acquirer_timestamp    timestamp(6) NOT NULL,
+    payment_status        varchar(20)  NOT NULL,
+    state                 varchar(20)  NOT NULL,
+    attempts              integer      NOT NULL,
+    next_attempt_at       timestamp(6) NOT NULL,
+    last_error            varchar(500),
+    redirect_url          varchar(500),
+    created_at            timestamp(6) NOT NULL,
+    delivered_at          timestamp(6)
+);
+
+CREATE INDEX IF NOT EXISTS idx_psp_notification_due ON psp_notifications (state, next_attempt_at);
+
+CREATE TABLE IF NOT EXISTS account_balance_stripes (
+    id           bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    account_id   bigint         NOT NULL,
+    stripe_index integer        NOT NULL,
+    balance      numeric(38, 2) NOT NULL,
+    CONSTRAINT uk_account_stripe UNIQUE (account_id, stripe_index)
+);
+
+CREATE SEQUENCE IF NOT EXISTS ledger_postings_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS ledger_postings (
+    id             bigint PRIMARY KEY,
+    entry_id       uuid           NOT NULL,
+    account_id     bigint,
+    transaction_id bigint,
+    amount         numeric(19, 2) NOT NULL,
+    posted_at      timestamp(6)   NOT NULL,
+    description    varchar(100)   NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_posting_account_time ON ledger_postings (account_id, posted_at);
+CREATE INDEX IF NOT EXISTS idx_posting_transaction ON ledger_postings (transaction_id);
+CREATE INDEX IF NOT EXISTS idx_posting_entry ON ledger_postings (entry_id);
+
+CREATE TABLE IF NOT EXISTS ledger_snapshots (
+    id         bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    account_id bigint         NOT NULL,
+    cutoff_at  timestamp(6)   NOT NULL,
+    balance    numeric(19, 2) NOT NULL,
+    created_at timestamp(6)   NOT NULL,
+    CONSTRAINT uk_snapshot_account_cutoff UNIQUE (account_id, cutoff_at)
+);
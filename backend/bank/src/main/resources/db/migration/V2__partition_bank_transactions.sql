@@ -0,0 +1,109 @@
+-- Monthly range partitioning of bank_transactions on created_at.
+--
+-- The primary key and unique keys of a partitioned table must include the
+-- partition key, so (id, created_at) is the primary key and payment_id /
+-- global_transaction_id are unique per partition; both are random UUID-based
+-- values generated by the application.
+
+CREATE SEQUENCE IF NOT EXISTS bank_transaction_ids;
+
+CREATE OR REPLACE FUNCTION ensure_bank_transaction_partitions(from_month date, months_ahead integer)
+RETURNS integer AS $$
+DECLARE
+    month_start    date := date_trunc('month', from_month)::date;
+    last_month     date := (date_trunc('month', now()) + make_interval(months => months_ahead))::date;
+    partition_name text;
+    created        integer := 0;
+BEGIN
+    WHILE month_start <= last_month LOOP
+        partition_name := 'bank_transactions_p' || to_char(month_start, 'YYYYMM');
+        IF to_regclass(partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF bank_transactions FOR VALUES FROM (%L) TO (%L)',
+                           partition_name, month_start, (month_start + interval '1 month')::date);
+            created := created + 1;
+        END IF;
+        month_start := (month_start + interval '1 month')::date;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace
+               WHERE c.relname = 'bank_transactions' AND c.relkind = 'r' AND n.nspname = current_schema()) THEN
+        ALTER TABLE bank_transactions RENAME TO bank_transactions_unpartitioned;
+    END IF;
+END $$;
+
+CREATE TABLE IF NOT EXISTS bank_transactions (
+    id                     bigint         NOT NULL DEFAULT nextval('bank_transaction_ids'),
+    global_transaction_id  varchar(255)   NOT NULL,
+    merchant_id            varchar(255)   NOT NULL,
+    stan                   varchar(255)   NOT NULL,
+    psp_timestamp          timestamp(6)   NOT NULL,
+    payment_id             varchar(255)   NOT NULL,
+    payment_url            varchar(500)   NOT NULL,
+    payment_url_expires_at timestamp(6)   NOT NULL,
+    account_id             bigint REFERENCES bank_accounts (id),
+    amount                 numeric(38, 2) NOT NULL,
+    currency               varchar(255)   NOT NULL,
+    status                 varchar(255)   NOT NULL,
+    acquirer_timestamp     timestamp(6)   NOT NULL,
+    failure_reason         varchar(255),
+    created_at             timestamp(6)   NOT NULL,
+    payment_method         varchar(255),
+    version                bigint DEFAULT 0,
+    PRIMARY KEY (id, created_at),
+    CONSTRAINT uk_bank_transactions_payment_id UNIQUE (payment_id, created_at),
+    CONSTRAINT uk_bank_transactions_gtx UNIQUE (global_transaction_id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Hot-set indexes: the PENDING partial index stays small however much history is kept
+CREATE INDEX IF NOT EXISTS idx_bank_transactions_pending
+    ON bank_transactions (payment_url_expires_at) WHERE status = 'PENDING';
+CREATE INDEX IF NOT EXISTS idx_bank_transactions_stan ON bank_transactions (stan, created_at);
+
+DO $$
+DECLARE
+    first_month date := date_trunc('month', now())::date;
+BEGIN
+    IF to_regclass('bank_transactions_unpartitioned') IS NOT NULL THEN
+        EXECUTE 'SELECT COALESCE(date_trunc(''month'', min(created_at))::date, $1) FROM bank_transactions_unpartitioned'
+            INTO first_month USING first_month;
+    END IF;
+
+    PERFORM ensure_bank_transaction_partitions(first_month, 3);
+
+    IF to_regclass('bank_transactions_unpartitioned') IS NOT NULL THEN
+        INSERT INTO bank_transactions (id, global_transaction_id, merchant_id, stan, psp_timestamp, payment_id,
+                                       payment_url, payment_url_expires_at, account_id, amount, currency, status,
+                                       acquirer_timestamp, failure_reason, created_at, payment_method, version)
+        SELECT id, global_transaction_id, merchant_id, stan, psp_timestamp, payment_id,
+               payment_url, payment_url_expires_at, account_id, amount, currency, status,
+               acquirer_timestamp, failure_reason, created_at, payment_method, COALESCE(version, 0)
+        FROM bank_transactions_unpartitioned;
+
+        PERFORM setval('bank_transaction_ids', GREATEST((SELECT COALESCE(max(id), 0) FROM bank_transactions), 1));
+        DROP TABLE bank_transactions_unpartitioned;
+    END IF;
+END $$;
+
+-- Archive tier: finished partitions are detached and stored here as gzip-compressed
+-- NDJSON chunks, one row per chunk of transactions
+CREATE TABLE IF NOT EXISTS bank_transactions_archive (
+    id                   bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    partition_month      date         NOT NULL,
+    first_transaction_id bigint       NOT NULL,
+    last_transaction_id  bigint       NOT NULL,
+    row_count            integer      NOT NULL,
+    payload              bytea        NOT NULL,
+    archived_at          timestamp(6) NOT NULL
+);
+
+-- Payload is already compressed; store it out of line without recompressing
+ALTER TABLE bank_transactions_archive ALTER COLUMN payload SET STORAGE EXTERNAL;
+
+CREATE INDEX IF NOT EXISTS idx_archive_transaction_range
+    ON bank_transactions_archive (first_transaction_id, last_transaction_id);
+CREATE INDEX IF NOT EXISTS idx_archive_month ON bank_transactions_archive (partition_month);
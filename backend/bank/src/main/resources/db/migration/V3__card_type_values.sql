@@ -0,0 +1,3 @@
+-- card_type was created by ddl-auto with a check constraint listing the enum
+-- values known at the time; brands now come from the BIN table.
+ALTER TABLE card_info DROP CONSTRAINT IF EXISTS card_info_card_type_check;
@@ -0,0 +1,15 @@
+-- Idempotency keys for payment creation. bank_transactions is partitioned, so
+-- (merchant_id, stan) cannot be unique there; this table carries the constraint.
+CREATE TABLE IF NOT EXISTS payment_idempotency_keys (
+    merchant_id            varchar(255)   NOT NULL,
+    stan                   varchar(255)   NOT NULL,
+    channel                varchar(10)    NOT NULL,
+    amount                 numeric(38, 2) NOT NULL,
+    currency               varchar(255)   NOT NULL,
+    transaction_id         bigint,
+    transaction_created_at timestamp(6),
+    created_at             timestamp(6)   NOT NULL,
+    CONSTRAINT pk_payment_idempotency_keys PRIMARY KEY (merchant_id, stan, channel)
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_created_at ON payment_idempotency_keys (created_at);
@@ -0,0 +1,27 @@
+-- End-of-day settlement of RESERVED card transactions, one run per merchant and
+-- business day. The cursor (last_created_at, last_transaction_id) is the
+-- checkpoint of the last committed batch.
+CREATE TABLE IF NOT EXISTS settlement_runs (
+    id                  bigserial      PRIMARY KEY,
+    merchant_id         varchar(255)   NOT NULL,
+    business_date       date           NOT NULL,
+    account_id          bigint         NOT NULL,
+    status              varchar(20)    NOT NULL,
+    last_created_at     timestamp(6),
+    last_transaction_id bigint,
+    transaction_count   bigint         NOT NULL DEFAULT 0,
+    total_amount        numeric(38, 2) NOT NULL DEFAULT 0,
+    report_path         varchar(500),
+    started_at          timestamp(6)   NOT NULL,
+    updated_at          timestamp(6)   NOT NULL,
+    completed_at        timestamp(6),
+    CONSTRAINT uk_settlement_runs_merchant_day UNIQUE (merchant_id, business_date)
+);
+
+ALTER TABLE bank_transactions ADD COLUMN IF NOT EXISTS settlement_run_id bigint;
+
+-- Settlement cursor: RESERVED rows of a merchant in (created_at, id) order
+CREATE INDEX IF NOT EXISTS idx_bank_transactions_reserved
+    ON bank_transactions (merchant_id, created_at, id) WHERE status = 'RESERVED';
+CREATE INDEX IF NOT EXISTS idx_bank_transactions_settlement_run
+    ON bank_transactions (settlement_run_id, created_at) WHERE settlement_run_id IS NOT NULL;
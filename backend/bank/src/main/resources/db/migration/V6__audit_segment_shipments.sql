@@ -0,0 +1,10 @@
+-- Sealed audit segments loaded into audit_logs. Written in the same transaction
+-- as the segment's rows, so a segment is never loaded twice; last_hash lets the
+-- next segment's chain be checked against it.
+CREATE TABLE IF NOT EXISTS audit_segment_shipments (
+    segment_id     bigint       PRIMARY KEY,
+    first_sequence bigint       NOT NULL,
+    record_count   integer      NOT NULL,
+    last_hash      bytea        NOT NULL,
+    shipped_at     timestamp(6) NOT NULL
+);
@@ -0,0 +1,17 @@
+-- Keyset pagination on (timestamp, id): every supported filter has an index that
+-- ends in the sort key, so a page is one index range scan of exactly its rows.
+-- The other filter columns are included so combined filters are checked in the
+-- index without visiting the heap for rows that do not match.
+CREATE INDEX IF NOT EXISTS idx_audit_time_id
+    ON audit_logs (timestamp, id) INCLUDE (action, entity_type, result);
+CREATE INDEX IF NOT EXISTS idx_audit_action_time_id
+    ON audit_logs (action, timestamp, id) INCLUDE (entity_type, result);
+CREATE INDEX IF NOT EXISTS idx_audit_entity_time_id
+    ON audit_logs (entity_type, entity_id, timestamp, id) INCLUDE (action, result);
+CREATE INDEX IF NOT EXISTS idx_audit_result_time_id
+    ON audit_logs (result, timestamp, id) INCLUDE (action, entity_type);
+
+-- Superseded by the indexes above (each was a prefix of one of them)
+DROP INDEX IF EXISTS idx_audit_timestamp;
+DROP INDEX IF EXISTS idx_audit_action;
+DROP INDEX IF EXISTS idx_audit_entity;
@@ -0,0 +1,98 @@
+-- Monthly range partitioning of audit_logs on timestamp.
+--
+-- Inserts only touch the current month's (small) indexes, queries bounded by time
+-- are pruned to the partitions they cover, and retention detaches and drops or
+-- archives whole partitions instead of DELETEing rows. The primary key must include
+-- the partition key, so it becomes (id, timestamp); ids still come from audit_logs_seq.
+
+CREATE OR REPLACE FUNCTION ensure_audit_log_partitions(from_month date, months_ahead integer)
+RETURNS integer AS $$
+DECLARE
+    month_start    date := date_trunc('month', from_month)::date;
+    last_month     date := (date_trunc('month', now()) + make_interval(months => months_ahead))::date;
+    partition_name text;
+    created        integer := 0;
+BEGIN
+    WHILE month_start <= last_month LOOP
+        partition_name := 'audit_logs_p' || to_char(month_start, 'YYYYMM');
+        IF to_regclass(partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF audit_logs FOR VALUES FROM (%L) TO (%L)',
+                           partition_name, month_start, (month_start + interval '1 month')::date);
+            created := created + 1;
+        END IF;
+        month_start := (month_start + interval '1 month')::date;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace
+               WHERE c.relname = 'audit_logs' AND c.relkind = 'r' AND n.nspname = current_schema()) THEN
+        ALTER TABLE audit_logs RENAME TO audit_logs_unpartitioned;
+        -- Free the index names for the partitioned table; the old table is dropped below
+        DROP INDEX IF EXISTS idx_audit_time_id;
+        DROP INDEX IF EXISTS idx_audit_action_time_id;
+        DROP INDEX IF EXISTS idx_audit_entity_time_id;
+        DROP INDEX IF EXISTS idx_audit_result_time_id;
+    END IF;
+END $$;
+
+CREATE TABLE IF NOT EXISTS audit_logs (
+    id          bigint        NOT NULL,
+    timestamp   timestamp(6)  NOT NULL,
+    action      varchar(50)   NOT NULL,
+    entity_type varchar(50)   NOT NULL,
+    entity_id   varchar(100),
+    details     varchar(1000),
+    ip_address  varchar(45),
+    result      varchar(20)   NOT NULL,
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+-- Same keyset indexes as V7, created on every partition
+CREATE INDEX IF NOT EXISTS idx_audit_time_id
+    ON audit_logs (timestamp, id) INCLUDE (action, entity_type, result);
+CREATE INDEX IF NOT EXISTS idx_audit_action_time_id
+    ON audit_logs (action, timestamp, id) INCLUDE (entity_type, result);
+CREATE INDEX IF NOT EXISTS idx_audit_entity_time_id
+    ON audit_logs (entity_type, entity_id, timestamp, id) INCLUDE (action, result);
+CREATE INDEX IF NOT EXISTS idx_audit_result_time_id
+    ON audit_logs (result, timestamp, id) INCLUDE (action, entity_type);
+
+DO $$
+DECLARE
+    first_month date := date_trunc('month', now())::date;
+BEGIN
+    IF to_regclass('audit_logs_unpartitioned') IS NOT NULL THEN
+        EXECUTE 'SELECT COALESCE(date_trunc(''month'', min(timestamp))::date, $1) FROM audit_logs_unpartitioned'
+            INTO first_month USING first_month;
+    END IF;
+
+    PERFORM ensure_audit_log_partitions(first_month, 3);
+
+    IF to_regclass('audit_logs_unpartitioned') IS NOT NULL THEN
+        INSERT INTO audit_logs (id, timestamp, action, entity_type, entity_id, details, ip_address, result)
+        SELECT id, timestamp, action, entity_type, entity_id, details, ip_address, result
+        FROM audit_logs_unpartitioned;
+
+        DROP TABLE audit_logs_unpartitioned;
+    END IF;
+END $$;
+
+-- Archive tier for audit partitions past retention (audit.retention.mode=ARCHIVE):
+-- gzip-compressed NDJSON chunks, as for bank_transactions
+CREATE TABLE IF NOT EXISTS audit_logs_archive (
+    id              bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    partition_month date         NOT NULL,
+    first_entry_id  bigint       NOT NULL,
+    last_entry_id   bigint       NOT NULL,
+    row_count       integer      NOT NULL,
+    payload         bytea        NOT NULL,
+    archived_at     timestamp(6) NOT NULL
+);
+
+ALTER TABLE audit_logs_archive ALTER COLUMN payload SET STORAGE EXTERNAL;
+
+CREATE INDEX IF NOT EXISTS idx_audit_archive_month ON audit_logs_archive (partition_month);
@@ -0,0 +1,9 @@
+-- Segment ids are allocated per local segment directory, so with several bank
+-- instances the same segment id is shipped once per instance. Shipments are keyed
+-- by the directory's node id as well; rows shipped before this migration belong to
+-- the 'default' node, the id a directory that already holds segments is given.
+ALTER TABLE audit_segment_shipments ADD COLUMN IF NOT EXISTS node_id varchar(64) NOT NULL DEFAULT 'default';
+ALTER TABLE audit_segment_shipments ALTER COLUMN node_id DROP DEFAULT;
+
+ALTER TABLE audit_segment_shipments DROP CONSTRAINT IF EXISTS audit_segment_shipments_pkey;
+ALTER TABLE audit_segment_shipments ADD PRIMARY KEY (node_id, segment_id);
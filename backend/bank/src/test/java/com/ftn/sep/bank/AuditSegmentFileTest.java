@@ -0,0 +1,131 @@
+package com.ftn.sep.bank;
+
+import com.ftn.sep.bank.model.AuditLog;
+import com.ftn.sep.bank.util.AuditSegmentFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditSegmentFileTest {
+
+    private static final byte[] GENESIS = new byte[AuditSegmentFile.HASH_SIZE];
+
+    @TempDir
+    Path dir;
+
+    private static AuditLog entry(int i) {
+        return AuditLog.builder()
+                .timestamp(LocalDateTime.of(2025, 3, 1, 12, 0).plusNanos(i * 1_000L))
+                .action("STATUS_CHANGE")
+                .entityType("TRANSACTION")
+                .entityId(String.valueOf(i))
+                .details(i % 2 == 0 ? "PENDING -> RESERVED" : null)
+                .result("SUCCESS")
+                .build();
+    }
+
+    @Test
+    void recordsRoundTripAndReopenContinuesTheChain() throws IOException {
+        Path path = dir.resolve("a.seg");
+        byte[] lastHash;
+        try (AuditSegmentFile segment = AuditSegmentFile.create(path, 7, 100, GENESIS, 64 * 1024)) {
+            for (int i = 0; i < 50; i++) {
+                assertTrue(segment.append(entry(i)));
+            }
+            lastHash = segment.lastHash();
+        }
+
+        try (AuditSegmentFile segment = AuditSegmentFile.open(path)) {
+            assertEquals(7, segment.segmentId());
+            assertEquals(150, segment.nextSequence());
+            assertArrayEquals(lastHash, segment.lastHash());
+
+            List<AuditSegmentFile.Record> records = new ArrayList<>();
+            segment.forEach(records::add);
+            assertEquals(50, records.size());
+            assertEquals(100, records.get(0).sequence());
+            AuditLog read = records.get(10).entry();
+            assertEquals("10", read.getEntityId());
+            assertEquals(entry(10).getTimestamp(), read.getTimestamp());
+            assertEquals("PENDING -> RESERVED", read.getDetails());
+            assertNull(records.get(11).entry().getDetails());
+            assertNull(read.getIpAddress());
+
+            int offset = records.get(20).offset();
+            List<AuditSegmentFile.Record> tail = new ArrayList<>();
+            segment.forEach(offset, segment.hashBefore(offset), tail::add);
+            assertEquals(30, tail.size());
+        }
+    }
+
+    @Test
+    void fullSegmentRejectsAppend() throws IOException {
+        try (AuditSegmentFile segment = AuditSegmentFile.create(dir.resolve("b.seg"), 1, 0, GENESIS, 512)) {
+            int appended = 0;
+            while (segment.append(entry(appended))) {
+                appended++;
+            }
+            assertTrue(appended > 0);
+            assertEquals(appended, segment.recordCount());
+        }
+    }
+
+    @Test
+    void tornTailIsDroppedOnRecovery() throws IOException {
+        Path path = dir.resolve("c.seg");
+        int tornOffset;
+        try (AuditSegmentFile segment = AuditSegmentFile.create(path, 1, 0, GENESIS, 64 * 1024)) {
+            for (int i = 0; i < 5; i++) {
+                segment.append(entry(i));
+            }
+            tornOffset = segment.position();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            // Length written, body and hash missing
+            file.seek(tornOffset);
+            file.writeInt(40);
+        }
+
+        try (AuditSegmentFile segment = AuditSegmentFile.open(path)) {
+            assertEquals(5, segment.recordCount());
+            assertEquals(tornOffset, segment.position());
+            assertTrue(segment.append(entry(5)));
+        }
+    }
+
+    @Test
+    void modifiedRecordInSealedSegmentIsDetected() throws IOException {
+        Path path = dir.resolve("d.seg");
+        int offset;
+        try (AuditSegmentFile segment = AuditSegmentFile.create(path, 1, 0, GENESIS, 64 * 1024)) {
+            for (int i = 0; i < 10; i++) {
+                segment.append(entry(i));
+            }
+            List<AuditSegmentFile.Record> records = new ArrayList<>();
+            segment.forEach(records::add);
+            offset = records.get(3).offset();
+            segment.seal();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            // Flip a byte of the record's timestamp
+            file.seek(offset + 4 + 8);
+            int b = file.read();
+            file.seek(offset + 4 + 8);
+            file.write(b ^ 1);
+        }
+
+        try (AuditSegmentFile segment = AuditSegmentFile.open(path)) {
+            assertTrue(segment.isSealed());
+            assertEquals(3, segment.recordCount());
+            assertFalse(segment.isIntact());
+        }
+    }
+}
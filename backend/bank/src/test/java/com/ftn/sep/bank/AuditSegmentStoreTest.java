@@ -0,0 +1,109 @@
+package com.ftn.sep.bank;
+
+import com.ftn.sep.bank.model.AuditLog;
+import com.ftn.sep.bank.repository.AuditSegmentRepository;
+import com.ftn.sep.bank.service.AuditService;
+import com.ftn.sep.bank.service.AuditSegmentStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditSegmentStoreTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 12, 0);
+
+    @TempDir
+    Path dir;
+
+    private AuditSegmentStore store;
+
+    @AfterEach
+    void stop() {
+        if (store != null) {
+            store.stop();
+        }
+    }
+
+    private AuditSegmentStore start(int segmentSize) {
+        // No local segments and nothing shipped: the chain starts from genesis
+        AuditSegmentRepository repository = new AuditSegmentRepository(null) {
+            @Override
+            public Optional<Shipment> findLastShipment(String nodeId) {
+                return Optional.empty();
+            }
+        };
+        store = new AuditSegmentStore(repository, AuditService.Sink.SEGMENTS, dir, segmentSize, 512, 8192);
+        store.start();
+        assertTrue(store.isRunning());
+        return store;
+    }
+
+    private static AuditLog entry(int i) {
+        return AuditLog.builder()
+                .timestamp(START.plusSeconds(i))
+                .action("STATUS_CHANGE")
+                .entityType("TRANSACTION")
+                .entityId("TX-" + i)
+                .details("PENDING -> RESERVED")
+                .result("SUCCESS")
+                .build();
+    }
+
+    private long stat(String name) {
+        return ((Number) store.stats().get(name)).longValue();
+    }
+
+    @Test
+    void lookupSkipsSegmentsWhoseBloomFilterExcludesTheEntity() {
+        start(4096);
+        for (int i = 0; i < 200; i++) {
+            assertTrue(store.append(entry(i)));
+        }
+        long segments = stat("sealedSegments") + 1;
+        assertTrue(segments > 3);
+
+        assertTrue(store.lookup("TX-unknown", START, START.plusDays(1), 10).isEmpty());
+        assertEquals(segments, stat("lookupSegmentsSkipped"));
+        assertEquals(0, stat("lookupSegmentsScanned"));
+        assertEquals(0, stat("lookupRecordsRead"));
+
+        List<AuditLog> found = store.lookup("TX-42", START, START.plusDays(1), 10);
+        assertEquals(1, found.size());
+        assertEquals(START.plusSeconds(42), found.get(0).getTimestamp());
+        assertEquals(1, stat("lookupSegmentsScanned"));
+    }
+
+    @Test
+    void lookupStartsAtTheLastIndexPointBeforeTheRange() {
+        start(256 * 1024);
+        for (int i = 0; i < 300; i++) {
+            assertTrue(store.append(entry(i)));
+        }
+
+        List<AuditLog> found = store.lookup("TX-290", START.plusSeconds(290), START.plusSeconds(291), 10);
+        assertEquals(1, found.size());
+        long readForLateRange = stat("lookupRecordsRead");
+        // Reads from the index point before the range to the end, not the whole segment
+        assertTrue(readForLateRange > 0 && readForLateRange < 30, "read " + readForLateRange);
+
+        assertEquals(1, store.lookup("TX-5", START, START.plusSeconds(6), 10).size());
+        assertEquals(300, stat("lookupRecordsRead") - readForLateRange);
+    }
+
+    @Test
+    void nodeIdIsGeneratedOnceAndKeptAcrossRestarts() {
+        String nodeId = start(4096).nodeId();
+        assertNotNull(nodeId);
+        assertNotEquals("default", nodeId);
+        store.stop();
+
+        assertEquals(nodeId, start(4096).nodeId());
+    }
+}
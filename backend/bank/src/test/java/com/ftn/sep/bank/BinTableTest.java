@@ -0,0 +1,91 @@
+package com.ftn.sep.bank;
+
+import com.ftn.sep.bank.model.CardType;
+import com.ftn.sep.bank.util.BinTable;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinTableTest {
+
+    private static BinTable.Entry entry(CardType brand, String issuer) {
+        return new BinTable.Entry(brand, issuer, null);
+    }
+
+    @Test
+    void rangeBoundariesMatchNumericComparison() {
+        BinTable table = BinTable.builder("test")
+                .addRange("2221", "2720", entry(CardType.MASTERCARD, null))
+                .addRange("3528", "3589", entry(CardType.JCB, null))
+                .build();
+
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            int prefix = random.nextInt(10_000);
+            String pan = String.format("%04d", prefix) + "000000000000";
+
+            CardType expected = prefix >= 2221 && prefix <= 2720 ? CardType.MASTERCARD
+                    : prefix >= 3528 && prefix <= 3589 ? CardType.JCB
+                    : null;
+            BinTable.Entry actual = table.lookup(pan);
+            assertEquals(expected, actual != null ? actual.brand() : null, pan);
+        }
+    }
+
+    @Test
+    void mostSpecificRangeWins() {
+        BinTable.Entry scheme = entry(CardType.VISA, null);
+        BinTable.Entry issuer = entry(CardType.VISA, "Issuer A");
+        BinTable.Entry product = entry(CardType.VISA, "Issuer B");
+        BinTable table = BinTable.builder("test")
+                .addRange("45320150", "45320199", product)
+                .addRange("4", "4", scheme)
+                .addRange("453201", "453209", issuer)
+                .build();
+
+        assertSame(scheme, table.lookup("4111111111111111"));
+        assertSame(issuer, table.lookup("4532051112830366"));
+        assertSame(product, table.lookup("4532015112830366"));
+        assertSame(issuer, table.lookup("4532014912830366"));
+        assertSame(issuer, table.lookup("453201"));
+        assertNull(table.lookup("5425233430109903"));
+        assertNull(table.lookup("x4"));
+    }
+
+    @Test
+    void overlappingRangesOfSameLengthAreRejected() {
+        BinTable.Builder builder = BinTable.builder("test")
+                .addRange("510000", "519999", entry(CardType.MASTERCARD, null));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> builder.addRange("515000", "525000", entry(CardType.MAESTRO, null)));
+        assertThrows(IllegalArgumentException.class,
+                () -> builder.addRange("52", "51", entry(CardType.MAESTRO, null)));
+        assertThrows(IllegalArgumentException.class,
+                () -> builder.addRange("52", "530", entry(CardType.MAESTRO, null)));
+    }
+
+    @Test
+    void parsesVersionedFile() throws IOException {
+        BinTable table = BinTable.parse(new StringReader("""
+                version=7
+                # comment
+
+                4,4,VISA,,
+                453201,453201,VISA,SEP Bank,GOLD
+                """));
+
+        assertEquals("7", table.version());
+        assertEquals(2, table.rangeCount());
+        BinTable.Entry entry = table.lookup("4532015112830366");
+        assertEquals(new BinTable.Entry(CardType.VISA, "SEP Bank", "GOLD"), entry);
+
+        assertThrows(IllegalArgumentException.class, () -> BinTable.parse(new StringReader("4,4,VISA,,\n")));
+        assertThrows(IllegalArgumentException.class,
+                () -> BinTable.parse(new StringReader("version=1\n4,4,UNKNOWN,,\n")));
+    }
+}
@@ -0,0 +1,98 @@
+package com.ftn.sep.bank;
+
+import com.ftn.sep.bank.service.BulkQrValidationService;
+import com.ftn.sep.bank.util.IpsQrValidator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkQrValidationServiceTest {
+
+    private static final String VALID_PAYLOAD =
+            "K:PR|V:01|C:1|R:840000000095584510|N:Car Rental Agency|I:RSD1500,00|SF:289";
+
+    private final BulkQrValidationService service = new BulkQrValidationService(new IpsQrValidator(), 4, 100,
+            1500, 256 * 1024);
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void testStreamsResultsInInputOrder() throws Exception {
+        StringBuilder input = new StringBuilder();
+        for (int i = 1; i <= 1000; i++) {
+            if (i % 100 == 0) {
+                input.append("{not json\n");
+            } else if (i % 10 == 0) {
+                input.append("{\"id\":\"").append(i).append("\",\"payload\":\"K:QR\"}\n");
+            } else {
+                input.append("{\"id\":\"").append(i).append("\",\"payload\":\"").append(VALID_PAYLOAD).append("\"}\n");
+            }
+        }
+        input.append('\n').append('"').append(VALID_PAYLOAD).append('"');
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BulkQrValidationService.Summary summary = service.validate(
+                new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8)), output, false);
+
+        assertEquals(1001, summary.total());
+        assertEquals(901, summary.valid());
+        assertEquals(90, summary.invalid());
+        assertEquals(10, summary.malformed());
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(1002, lines.length);
+        for (int i = 1; i <= 1000; i++) {
+            assertTrue(lines[i - 1].startsWith("{\"line\":" + i + ","), lines[i - 1]);
+        }
+        assertEquals("{\"line\":1,\"id\":\"1\",\"valid\":true}", lines[0]);
+        assertTrue(lines[9].contains("\"valid\":false,\"errors\":["));
+        assertTrue(lines[99].contains("\"error\":\"Malformed JSON"));
+        assertEquals("{\"line\":1002,\"valid\":true}", lines[1000]);
+        assertTrue(lines[1001].startsWith("{\"summary\":{\"total\":1001,\"valid\":901,"));
+    }
+
+    @Test
+    void testStopsReadingAfterMaxLines() throws Exception {
+        String input = ("\"" + VALID_PAYLOAD + "\"\n").repeat(1600);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BulkQrValidationService.Summary summary = service.validate(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output, false);
+
+        assertEquals(1500, summary.total());
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("{\"error\":\"Request exceeds 1500 lines, remaining input ignored\"}", lines[1500]);
+        assertTrue(lines[1501].startsWith("{\"summary\":{\"total\":1500,"));
+    }
+
+    @Test
+    void testStopsReadingAfterMaxBytes() throws Exception {
+        String line = "{\"id\":\"" + "x".repeat(400) + "\",\"payload\":\"" + VALID_PAYLOAD + "\"}\n";
+        String input = line.repeat(2 * 256 * 1024 / line.length());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BulkQrValidationService.Summary summary = service.validate(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output, false);
+
+        assertTrue(summary.total() <= 256 * 1024 / line.length() + 1);
+        assertTrue(output.toString(StandardCharsets.UTF_8)
+                .contains("{\"error\":\"Request exceeds 262144 bytes, remaining input ignored\"}"));
+    }
+
+    @Test
+    void testEmptyInput() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BulkQrValidationService.Summary summary = service.validate(new ByteArrayInputStream(new byte[0]), output, true);
+
+        assertEquals(0, summary.total());
+        assertTrue(output.toString(StandardCharsets.UTF_8).startsWith("{\"summary\":{\"total\":0,"));
+    }
+}
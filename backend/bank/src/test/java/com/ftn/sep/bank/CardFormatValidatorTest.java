@@ -0,0 +1,95 @@
+package com.ftn.sep.bank;
+
+import com.ftn.sep.bank.benchmark.LegacyCardValidator;
+import com.ftn.sep.bank.util.CardFormatValidator;
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Differential test: the single-pass validator must agree with the previous
+ * regex/formatter implementation on random and mutated input.
+ */
+class CardFormatValidatorTest {
+
+    private static final String ALPHABET = "0123456789/ a-٣";
+
+    private final CardFormatValidator validator = new CardFormatValidator();
+    private final LegacyCardValidator legacy = new LegacyCardValidator();
+
+    @Test
+    void agreesWithLegacyImplementation() {
+        Random random = new Random(17);
+        for (int i = 0; i < 50_000; i++) {
+            String pan = random.nextInt(4) == 0 ? randomString(random, 21) : randomPan(random);
+            String expiry = random.nextInt(4) == 0 ? randomString(random, 6) : randomExpiry(random);
+            String cvv = random.nextInt(4) == 0 ? randomString(random, 5) : randomDigits(random, 2 + random.nextInt(4));
+
+            assertEquals(legacy.validatePanWithLuhn(pan), validator.checkPan(pan) == CardFormatValidator.VALID, pan);
+            assertEquals(legacy.validateExpiryDate(expiry),
+                    validator.checkExpiry(expiry) == CardFormatValidator.VALID, expiry);
+            assertEquals(legacy.validateSecurityCode(cvv),
+                    validator.checkSecurityCode(cvv) == CardFormatValidator.VALID, cvv);
+            assertEquals(legacy.validateCard(pan, expiry, cvv), validator.isValid(pan, expiry, cvv));
+        }
+    }
+
+    @Test
+    void reportsEachFailedCheck() {
+        YearMonth lastMonth = YearMonth.now().minusMonths(1);
+        String expired = String.format("%02d/%02d", lastMonth.getMonthValue(), lastMonth.getYear() % 100);
+
+        assertEquals(CardFormatValidator.VALID, validator.validate("4532015112830366", "12/30", "123"));
+        assertEquals(CardFormatValidator.PAN_CHECKSUM, validator.validate("4532015112830367", "12/30", "123"));
+        assertEquals(CardFormatValidator.PAN_FORMAT | CardFormatValidator.EXPIRED | CardFormatValidator.CVV_FORMAT,
+                validator.validate("45320151128", expired, "12a"));
+        assertEquals(CardFormatValidator.EXPIRY_FORMAT, validator.validate("4532015112830366", "13/30", "1234"));
+        assertEquals(CardFormatValidator.PAN_FORMAT | CardFormatValidator.EXPIRY_FORMAT | CardFormatValidator.CVV_FORMAT,
+                validator.validate(null, null, null));
+    }
+
+    private static String randomPan(Random random) {
+        StringBuilder pan = new StringBuilder(randomDigits(random, 12 + random.nextInt(9)));
+        // Append the Luhn check digit most of the time
+        if (random.nextInt(3) > 0) {
+            int sum = 0;
+            boolean alternate = true;
+            for (int i = pan.length() - 1; i >= 0; i--) {
+                int digit = pan.charAt(i) - '0';
+                if (alternate) {
+                    digit = digit * 2 > 9 ? digit * 2 - 9 : digit * 2;
+                }
+                sum += digit;
+                alternate = !alternate;
+            }
+            pan.append((10 - sum % 10) % 10);
+        }
+        return pan.toString();
+    }
+
+    private static String randomExpiry(Random random) {
+        YearMonth month = YearMonth.now().plusMonths(random.nextInt(48) - 24);
+        int monthValue = random.nextInt(10) == 0 ? random.nextInt(100) : month.getMonthValue();
+        return String.format("%02d/%02d", monthValue, month.getYear() % 100);
+    }
+
+    private static String randomDigits(Random random, int length) {
+        StringBuilder digits = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            digits.append((char) ('0' + random.nextInt(10)));
+        }
+        return digits.toString();
+    }
+
+    private static String randomString(Random random, int maxLength) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder value = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            value.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return value.toString();
+    }
+}
@@ -1,12 +1,18 @@
 package com.ftn.sep.bank;
 
+import com.ftn.sep.bank.model.CardType;
+import com.ftn.sep.bank.service.BinTableService;
 import com.ftn.sep.bank.service.CardValidationService;
+import com.ftn.sep.bank.util.CardFormatValidator;
 import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
 import static org.junit.jupiter.api.Assertions.*;
 
 class CardValidationServiceTest {
 
-    private final CardValidationService service = new CardValidationService();
+    private final CardValidationService service = new CardValidationService(
+            new BinTableService(new DefaultResourceLoader(), "classpath:bin/bin-ranges.csv"),
+            new CardFormatValidator());
 
     @Test
     void testLuhnValidation() {
@@ -27,4 +33,20 @@ class CardValidationServiceTest {
 
         assertFalse(service.validateExpiryDate("invalid"));
     }
+
+    @Test
+    void testDetectCardType() {
+        assertEquals(CardType.VISA, service.detectCardType("4532015112830366"));
+        assertEquals(CardType.MASTERCARD, service.detectCardType("5425233430109903"));
+        assertEquals(CardType.MASTERCARD, service.detectCardType("2221000000000009"));
+        assertEquals(CardType.MASTERCARD, service.detectCardType("2720990000000000"));
+        assertEquals(CardType.AMEX, service.detectCardType("378282246310005"));
+        assertEquals(CardType.DINNERS, service.detectCardType("36227206271667"));
+        assertEquals(CardType.DINACARD, service.detectCardType("9891123456789012"));
+
+        assertNull(service.detectCardType("2220990000000000"));
+        assertNull(service.detectCardType("2721000000000000"));
+        assertNull(service.detectCardType(""));
+        assertNull(service.detectCardType(null));
+    }
 }
@@ -0,0 +1,45 @@
+package com.ftn.sep.bank;
+
+import com.ftn.sep.bank.security.EncryptionService;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EncryptionServiceTest {
+
+    private final EncryptionService service =
+            new EncryptionService("MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=");
+
+    @Test
+    void testEncryptDecryptRoundTrip() {
+        String encrypted = service.encrypt("4532015112830366");
+
+        assertNotEquals(encrypted, service.encrypt("4532015112830366"));
+        assertEquals("4532015112830366", service.decrypt(encrypted));
+    }
+
+    @Test
+    void testByteBufferRoundTrip() {
+        byte[] pan = "5425233430109903".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer encrypted = ByteBuffer.allocate(64);
+        service.encrypt(ByteBuffer.wrap(pan), encrypted);
+        encrypted.flip();
+
+        ByteBuffer decrypted = ByteBuffer.allocate(64);
+        int length = service.decrypt(encrypted, decrypted);
+
+        assertEquals("5425233430109903", new String(decrypted.array(), 0, length, StandardCharsets.UTF_8));
+        assertArrayEquals(pan, service.decrypt(service.encrypt(pan)));
+    }
+
+    @Test
+    void testHashIsDeterministic() {
+        assertEquals(44, service.hash("4532015112830366").length());
+        assertEquals(service.hash("4532015112830366"), service.hash("4532015112830366"));
+        assertArrayEquals(service.hash("4532015112830366".getBytes(StandardCharsets.UTF_8)),
+                service.hash(ByteBuffer.wrap("4532015112830366".getBytes(StandardCharsets.UTF_8))));
+    }
+}
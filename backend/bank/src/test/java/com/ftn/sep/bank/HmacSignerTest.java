@@ -0,0 +1,42 @@
+package com.ftn.sep.bank;
+
+import com.ftn.sep.bank.security.HmacSigner;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HmacSignerTest {
+
+    private static final String SECRET = "mySharedSecretKeyBetweenPSPandBank123456";
+
+    private final HmacSigner signer = new HmacSigner(SECRET);
+
+    @Test
+    void testSignatureMatchesFormattedPayload() throws Exception {
+        String payload = String.format("%s|%s|%s|%s|%s",
+                "PSP-MERCHANT-001", "1500.00", "RSD", "123456", "2026-01-10T12:00");
+
+        Mac mac = Mac.getInstance(HmacSigner.HMAC_ALGORITHM);
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), HmacSigner.HMAC_ALGORITHM));
+        String expected = Base64.getEncoder().encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(expected, signer.signBase64(
+                "PSP-MERCHANT-001", "1500.00", "RSD", "123456", "2026-01-10T12:00"));
+        assertEquals(signer.signBase64("Marko Marković", null), signer.signBase64("Marko Marković|null"));
+    }
+
+    @Test
+    void testVerify() {
+        String signature = signer.signBase64("123456", "SUCCESS", "GTX-1", "2026-01-10T12:00");
+
+        assertTrue(signer.verify(signature, "123456", "SUCCESS", "GTX-1", "2026-01-10T12:00"));
+        assertFalse(signer.verify(signature, "123456", "FAILED", "GTX-1", "2026-01-10T12:00"));
+        assertFalse(signer.verify("not base64!", "123456"));
+        assertFalse(signer.verify(null, "123456"));
+    }
+}
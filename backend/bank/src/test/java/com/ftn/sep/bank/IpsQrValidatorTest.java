@@ -0,0 +1,139 @@
+package com.ftn.sep.bank;
+
+import com.ftn.sep.bank.benchmark.LegacyIpsQrValidator;
+import com.ftn.sep.bank.util.IpsQrValidationResult;
+import com.ftn.sep.bank.util.IpsQrValidator;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IpsQrValidatorTest {
+
+    private static final String VALID_PAYLOAD =
+            "K:PR|V:01|C:1|R:840000000095584510|N:Car Rental Agency|I:RSD1500,00|SF:289";
+
+    private static final String ALPHABET = "KVCRNISFO|:,0123456789PRSD\n -";
+
+    private final IpsQrValidator validator = new IpsQrValidator();
+    private final LegacyIpsQrValidator legacyValidator = new LegacyIpsQrValidator();
+
+    @Test
+    void testValidPayload() {
+        IpsQrValidationResult result = validator.validateQrPayload(VALID_PAYLOAD);
+
+        assertTrue(result.isValid());
+        assertTrue(result.getErrors().isEmpty());
+        assertEquals("840000000095584510", result.value(IpsQrValidationResult.Tag.R).toString());
+        assertEquals("Car Rental Agency", result.getParsedData().get("N"));
+    }
+
+    @Test
+    void testLongModel97ReferenceDoesNotOverflow() {
+        // 22 digits after the model, 97 * 12345678901234567890
+        String reference = "971197530853419753085330";
+
+        assertTrue(validator.validateQrPayload(VALID_PAYLOAD + "|RO:" + reference).isValid());
+        assertTrue(validator.validateQrPayload(VALID_PAYLOAD + "|RO:971197530853419753085331")
+                .hasError(IpsQrValidationResult.Error.RO_CHECKSUM));
+    }
+
+    @Test
+    void testMatchesLegacyValidatorOnFuzzedCorpus() throws Exception {
+        List<String> corpus = loadCorpus();
+        Random random = new Random(42);
+
+        for (String seed : corpus) {
+            assertMatchesLegacy(seed);
+            for (int i = 0; i < 200; i++) {
+                assertMatchesLegacy(mutate(seed, random));
+            }
+        }
+    }
+
+    @Test
+    void testReusedResultIsReset() {
+        IpsQrValidationResult result = new IpsQrValidationResult();
+
+        validator.validateQrPayload("K:QR|RO:1", result);
+        assertFalse(result.isValid());
+
+        validator.validateQrPayload(VALID_PAYLOAD, result);
+        assertTrue(result.isValid());
+        assertFalse(result.has(IpsQrValidationResult.Tag.RO));
+        assertEquals(7, result.getParsedData().size());
+    }
+
+    @Test
+    void testNullPayload() {
+        IpsQrValidationResult result = validator.validateQrPayload(null);
+
+        assertFalse(result.isValid());
+        assertTrue(result.hasError(IpsQrValidationResult.Error.K_MISSING));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void assertMatchesLegacy(String payload) {
+        IpsQrValidationResult result = validator.validateQrPayload(payload);
+
+        Map<String, Object> expected;
+        try {
+            expected = legacyValidator.validateQrPayload(payload);
+        } catch (RuntimeException e) {
+            return;
+        }
+
+        Map<String, String> expectedData = (Map<String, String>) expected.get("parsedData");
+        assertEquals(expectedData, result.getParsedData(), payload);
+
+        // The legacy mod-97 check overflows on references longer than a long
+        String reference = expectedData.get("RO");
+        if (reference != null && reference.startsWith("97")
+                && reference.substring(2).replaceAll("[^0-9]", "").length() > 18) {
+            return;
+        }
+
+        assertEquals(expected.get("errors"), result.getErrors(), payload);
+        assertEquals(expected.get("valid"), result.isValid(), payload);
+    }
+
+    private String mutate(String seed, Random random) {
+        StringBuilder sb = new StringBuilder(seed);
+        int edits = 1 + random.nextInt(4);
+        for (int i = 0; i < edits; i++) {
+            int position = sb.isEmpty() ? 0 : random.nextInt(sb.length() + 1);
+            char c = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            switch (random.nextInt(3)) {
+                case 0 -> sb.insert(position, c);
+                case 1 -> {
+                    if (position < sb.length()) sb.deleteCharAt(position);
+                }
+                default -> {
+                    if (position < sb.length()) sb.setCharAt(position, c);
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private List<String> loadCorpus() throws Exception {
+        List<String> corpus = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                getClass().getResourceAsStream("/ips-qr-corpus.txt"), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    corpus.add(line);
+                }
+            }
+        }
+        return corpus;
+    }
+}
@@ -0,0 +1,38 @@
+package com.ftn.sep.bank;
+
+import com.ftn.sep.bank.util.NdjsonWriter;
+import org.junit.jupiter.api.Test;
+import tools.jackson.core.JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NdjsonWriterTest {
+
+    @Test
+    void testEveryRecordEndsWithNewline() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (NdjsonWriter writer = new NdjsonWriter(out)) {
+            for (int i = 1; i <= 2; i++) {
+                JsonGenerator generator = writer.generator();
+                generator.writeStartObject();
+                generator.writeNumberProperty("id", i);
+                generator.writeStringProperty("name", "Marković");
+                generator.writeEndObject();
+            }
+        }
+
+        assertEquals("{\"id\":1,\"name\":\"Marković\"}\n{\"id\":2,\"name\":\"Marković\"}\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testEmptyOutputHasNoLines() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new NdjsonWriter(out).close();
+
+        assertEquals(0, out.size());
+    }
+}
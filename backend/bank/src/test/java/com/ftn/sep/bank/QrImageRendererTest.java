@@ -0,0 +1,48 @@
+package com.ftn.sep.bank;
+
+import com.ftn.sep.bank.util.QrImageRenderer;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QrImageRendererTest {
+
+    private static final String PAYLOAD =
+            "K:PR|V:01|C:1|R:840000000095584510|N:Car Rental Agency|I:RSD1500,00|SF:289";
+
+    @Test
+    void testPngMatchesMatrix() throws Exception {
+        BitMatrix matrix = new QRCodeWriter().encode(PAYLOAD, BarcodeFormat.QR_CODE, 200, 200);
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(QrImageRenderer.toPng(matrix)));
+
+        assertEquals(matrix.getWidth(), image.getWidth());
+        assertEquals(matrix.getHeight(), image.getHeight());
+        for (int y = 0; y < matrix.getHeight(); y++) {
+            for (int x = 0; x < matrix.getWidth(); x++) {
+                boolean black = (image.getRGB(x, y) & 0xFFFFFF) == 0;
+                assertEquals(matrix.get(x, y), black, "Pixel mismatch at " + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void testSvgContainsModulePath() throws Exception {
+        BitMatrix modules = new QRCodeWriter().encode(PAYLOAD, BarcodeFormat.QR_CODE, 0, 0);
+
+        String svg = new String(QrImageRenderer.toSvg(modules, 400), StandardCharsets.UTF_8);
+
+        assertTrue(svg.startsWith("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 "
+                + modules.getWidth() + " " + modules.getHeight() + "\""));
+        assertTrue(svg.contains("width=\"400\""));
+        assertTrue(svg.endsWith("\"/></svg>"));
+    }
+}
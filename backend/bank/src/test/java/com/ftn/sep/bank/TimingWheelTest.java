@@ -0,0 +1,89 @@
+package com.ftn.sep.bank;
+
+import com.ftn.sep.bank.util.TimingWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    @Test
+    void testFiresOnFirstTickAtOrAfterDeadline() {
+        TimingWheel wheel = new TimingWheel(100, 8, 3, 0);
+
+        assertTrue(wheel.schedule(1, 250));
+        assertTrue(wheel.advanceTo(299).isEmpty());
+        assertEquals(List.of(1L), wheel.advanceTo(300));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testPastDeadlineIsRejected() {
+        TimingWheel wheel = new TimingWheel(100, 8, 3, 1000);
+
+        assertFalse(wheel.schedule(1, 1000));
+        assertFalse(wheel.contains(1));
+    }
+
+    @Test
+    void testCancelAndReschedule() {
+        TimingWheel wheel = new TimingWheel(100, 8, 3, 0);
+        wheel.schedule(1, 500);
+        wheel.schedule(2, 500);
+
+        assertTrue(wheel.cancel(1));
+        assertFalse(wheel.cancel(1));
+        wheel.schedule(2, 5000);
+
+        assertTrue(wheel.advanceTo(1000).isEmpty());
+        assertEquals(List.of(2L), wheel.advanceTo(5000));
+    }
+
+    @Test
+    void testMatchesBruteForceAcrossLevelsAndBeyondTopLevel() {
+        // 8 * 8 * 8 ticks = 51.2 s range; deadlines go up to 100 s to exercise parking
+        TimingWheel wheel = new TimingWheel(100, 8, 3, 0);
+        Map<Long, Long> deadlines = new HashMap<>();
+        Random random = new Random(7);
+
+        long now = 0;
+        long nextId = 0;
+        while (now < 200_000) {
+            for (int i = 0; i < 5; i++) {
+                long id = nextId++;
+                long deadline = now + 1 + random.nextInt(100_000);
+                assertTrue(wheel.schedule(id, deadline));
+                deadlines.put(id, deadline);
+            }
+            if (!deadlines.isEmpty() && random.nextInt(4) == 0) {
+                Long victim = deadlines.keySet().iterator().next();
+                assertTrue(wheel.cancel(victim));
+                deadlines.remove(victim);
+            }
+
+            now += random.nextInt(700);
+            long tickTime = now - now % 100;
+
+            Set<Long> expected = new HashSet<>();
+            for (Map.Entry<Long, Long> entry : deadlines.entrySet()) {
+                if (entry.getValue() <= tickTime) {
+                    expected.add(entry.getKey());
+                }
+            }
+            List<Long> fired = new ArrayList<>(wheel.advanceTo(now));
+
+            assertEquals(expected, new HashSet<>(fired));
+            assertEquals(expected.size(), fired.size());
+            fired.forEach(deadlines::remove);
+            assertEquals(deadlines.size(), wheel.size());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.ftn.sep.bank;
+
+import com.ftn.sep.bank.service.VelocityEngine;
+import com.ftn.sep.bank.service.VelocityEngine.Dimension;
+import com.ftn.sep.bank.util.SlidingWindowCounter;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VelocityEngineTest {
+
+    @Test
+    void counterSlidesOutOldBuckets() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(60_000, 10);
+
+        for (int i = 0; i < 5; i++) {
+            counter.incrementAndSum(1_000);
+        }
+        assertEquals(6, counter.incrementAndSum(30_000));
+        assertEquals(6, counter.sum(59_999));
+        // The bucket at 0-6s has left the window, the one at 30-36s has not
+        assertEquals(1, counter.sum(61_000));
+        assertFalse(counter.isIdle(61_000));
+        assertEquals(0, counter.sum(90_000));
+        assertTrue(counter.isIdle(90_000));
+    }
+
+    @Test
+    void counterIsExactUnderContention() throws InterruptedException {
+        SlidingWindowCounter counter = new SlidingWindowCounter(60_000, 10);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int thread = 0; thread < 8; thread++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counter.incrementAndSum(5_000);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(80_000, counter.sum(5_000));
+    }
+
+    @Test
+    void tripsRuleAndRecoversAfterWindow() {
+        VelocityEngine engine = new VelocityEngine(null, true, "PAN:3:60,IP:5:60", 1000);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(engine.check("pan-a", null, "10.0.0.1", 1_000).isEmpty());
+        }
+        Optional<VelocityEngine.Rule> tripped = engine.check("pan-a", null, "10.0.0.1", 2_000);
+        assertEquals(Optional.of(new VelocityEngine.Rule(Dimension.PAN, 3, 60)), tripped);
+
+        // Card testing from one IP with fresh PANs trips the IP rule
+        assertTrue(engine.check("pan-b", null, "10.0.0.1", 2_000).isEmpty());
+        tripped = engine.check("pan-c", null, "10.0.0.1", 2_000);
+        assertEquals(Dimension.IP, tripped.orElseThrow().dimension());
+
+        assertTrue(engine.check("pan-a", null, "10.0.0.2", 70_000).isEmpty());
+    }
+
+    @Test
+    void evictsIdleKeysAndFailsOpenWhenFull() {
+        VelocityEngine engine = new VelocityEngine(null, true, "ACCOUNT:1:60", 2);
+
+        assertTrue(engine.check(null, "acc-1", null, 1_000).isEmpty());
+        assertTrue(engine.check(null, "acc-2", null, 1_000).isEmpty());
+        // Full: a new key is not tracked and never trips
+        assertTrue(engine.check(null, "acc-3", null, 1_500).isEmpty());
+        assertTrue(engine.check(null, "acc-3", null, 1_500).isEmpty());
+        assertEquals(2L, engine.stats().get("untracked"));
+
+        // Once the old keys are idle they are evicted to make room
+        assertTrue(engine.check(null, "acc-3", null, 62_000).isEmpty());
+        assertTrue(engine.check(null, "acc-3", null, 62_000).isPresent());
+        assertEquals(Map.of("ACCOUNT:1:60", 1), engine.stats().get("keys"));
+    }
+
+    @Test
+    void rejectsInvalidRules() {
+        assertThrows(IllegalArgumentException.class, () -> new VelocityEngine(null, true, "PAN:5", 10));
+        assertThrows(IllegalArgumentException.class, () -> new VelocityEngine(null, true, "CARD:5:60", 10));
+        assertThrows(IllegalArgumentException.class, () -> new VelocityEngine(null, true, "IP:0:60", 10));
+    }
+}
@@ -0,0 +1,54 @@
+package com.ftn.sep.bank.benchmark;
+
+import com.ftn.sep.bank.util.CardFormatValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the single-pass CardFormatValidator with the previous regex/formatter
+ * checks, on a valid card and on typical carding-flood rejects.
+ * Run with -prof gc to compare allocation rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class CardValidationBenchmark {
+
+    @Param({
+            "4532015112830366|12/30|123",
+            "4532015112830367|12/30|123",
+            "5425233430109903|13/30|123",
+            "5425233430109903|12/30|12a"
+    })
+    public String card;
+
+    private String pan;
+    private String expiryDate;
+    private String securityCode;
+
+    private CardFormatValidator validator;
+    private LegacyCardValidator legacyValidator;
+
+    @Setup
+    public void setUp() {
+        String[] fields = card.split("\\|");
+        pan = fields[0];
+        expiryDate = fields[1];
+        securityCode = fields[2];
+        validator = new CardFormatValidator();
+        legacyValidator = new LegacyCardValidator();
+    }
+
+    @Benchmark
+    public boolean validateLegacy() {
+        return legacyValidator.validatePanWithLuhn(pan)
+                & legacyValidator.validateExpiryDate(expiryDate)
+                & legacyValidator.validateSecurityCode(securityCode);
+    }
+
+    @Benchmark
+    public int validate() {
+        return validator.validate(pan, expiryDate, securityCode);
+    }
+}
@@ -0,0 +1,97 @@
+package com.ftn.sep.bank.benchmark;
+
+import com.ftn.sep.bank.security.EncryptionService;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares EncryptionService with the previous per-call implementation
+ * (key decode, getInstance and new SecureRandom on every call).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class EncryptionBenchmark {
+
+    private static final String KEY = "MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=";
+    private static final String PAN = "4532015112830366";
+
+    private EncryptionService encryptionService;
+    private String encryptedPan;
+    private byte[] panBytes;
+
+    @Setup
+    public void setUp() {
+        encryptionService = new EncryptionService(KEY);
+        encryptedPan = encryptionService.encrypt(PAN);
+        panBytes = PAN.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String hashLegacy() throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        return Base64.getEncoder().encodeToString(digest.digest(PAN.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Benchmark
+    public String hash() {
+        return encryptionService.hash(PAN);
+    }
+
+    @Benchmark
+    public byte[] hashBytes() {
+        return encryptionService.hash(panBytes);
+    }
+
+    @Benchmark
+    public String encryptLegacy() throws Exception {
+        byte[] key = Base64.getDecoder().decode(KEY);
+        SecretKeySpec keySpec = new SecretKeySpec(key, "AES");
+        byte[] iv = new byte[12];
+        new SecureRandom().nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, keySpec, new GCMParameterSpec(128, iv));
+        byte[] ciphertext = cipher.doFinal(PAN.getBytes(StandardCharsets.UTF_8));
+        byte[] combined = new byte[iv.length + ciphertext.length];
+        System.arraycopy(iv, 0, combined, 0, iv.length);
+        System.arraycopy(ciphertext, 0, combined, iv.length, ciphertext.length);
+        return Base64.getEncoder().encodeToString(combined);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return encryptionService.encrypt(PAN);
+    }
+
+    @Benchmark
+    public byte[] encryptBytes() {
+        return encryptionService.encrypt(panBytes);
+    }
+
+    @Benchmark
+    public String decryptLegacy() throws Exception {
+        byte[] key = Base64.getDecoder().decode(KEY);
+        SecretKeySpec keySpec = new SecretKeySpec(key, "AES");
+        byte[] combined = Base64.getDecoder().decode(encryptedPan);
+        byte[] iv = new byte[12];
+        System.arraycopy(combined, 0, iv, 0, 12);
+        byte[] ciphertext = new byte[combined.length - 12];
+        System.arraycopy(combined, 12, ciphertext, 0, ciphertext.length);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, keySpec, new GCMParameterSpec(128, iv));
+        return new String(cipher.doFinal(ciphertext), StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return encryptionService.decrypt(encryptedPan);
+    }
+}
@@ -0,0 +1,58 @@
+package com.ftn.sep.bank.benchmark;
+
+import com.ftn.sep.bank.util.IpsQrValidationResult;
+import com.ftn.sep.bank.util.IpsQrValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the single-pass IpsQrValidator with the previous split/regex implementation.
+ * Run with -prof gc to compare allocation rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class IpsQrValidatorBenchmark {
+
+    @Param({
+            "K:PR|V:01|C:1|R:840000000095584510|N:Car Rental Agency|I:RSD1500,00|SF:289|S:Car rental payment - 123456|RO:00123456",
+            "K:PR|V:01|C:1|R:840-0000000955845-10|N:Car Rental Agency|I:EUR1500|SF:389|RO:971234567890123456789012"
+    })
+    public String payload;
+
+    private IpsQrValidator validator;
+    private LegacyIpsQrValidator legacyValidator;
+    private IpsQrValidationResult reusableResult;
+
+    @Setup
+    public void setUp() {
+        validator = new IpsQrValidator();
+        legacyValidator = new LegacyIpsQrValidator();
+        reusableResult = new IpsQrValidationResult();
+    }
+
+    @Benchmark
+    public Map<String, Object> validateLegacy() {
+        return legacyValidator.validateQrPayload(payload);
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return validator.validateQrPayload(payload).isValid();
+    }
+
+    @Benchmark
+    public boolean validateReusingResult() {
+        return validator.validateQrPayload(payload, reusableResult).isValid();
+    }
+
+    @Benchmark
+    public IpsQrValidationResult validateAndReport() {
+        IpsQrValidationResult result = validator.validateQrPayload(payload);
+        result.getErrors();
+        result.getParsedData();
+        return result;
+    }
+}
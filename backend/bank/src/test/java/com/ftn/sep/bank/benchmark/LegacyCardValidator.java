@@ -0,0 +1,61 @@
+package com.ftn.sep.bank.benchmark;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Previous regex/formatter based card checks from CardValidationService, kept as a
+ * baseline for the benchmark and as the reference implementation for the fuzz test.
+ */
+public class LegacyCardValidator {
+
+    public boolean validatePanWithLuhn(String pan) {
+        if (pan == null || !pan.matches("\\d{13,19}")) {
+            return false;
+        }
+
+        int sum = 0;
+        boolean alternate = false;
+
+        for (int i = pan.length() - 1; i >= 0; i--) {
+            int digit = Character.getNumericValue(pan.charAt(i));
+
+            if (alternate) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+
+            sum += digit;
+            alternate = !alternate;
+        }
+
+        return sum % 10 == 0;
+    }
+
+    public boolean validateExpiryDate(String expiryDate) {
+        if (expiryDate == null || !expiryDate.matches("\\d{2}/\\d{2}")) {
+            return false;
+        }
+
+        try {
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/yy");
+            YearMonth cardExpiry = YearMonth.parse(expiryDate, formatter);
+            YearMonth currentMonth = YearMonth.now();
+            return !cardExpiry.isBefore(currentMonth);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    public boolean validateSecurityCode(String securityCode) {
+        return securityCode != null && securityCode.matches("\\d{3,4}");
+    }
+
+    public boolean validateCard(String pan, String expiryDate, String securityCode) {
+        return validatePanWithLuhn(pan)
+                && validateExpiryDate(expiryDate)
+                && validateSecurityCode(securityCode);
+    }
+}
@@ -138,14 +138,15 @@ public class PaymentController {
                     .body(Map.of("error", "Missing authentication signature"));
         }
 
-        String payload = String.format("%s|%s|%s|%s",
+        boolean signatureValid = hmacUtil.validateSignature(
+                signature,
                 request.getStan(),
                 request.getStatus(),
                 request.getGlobalTransactionId(),
                 request.getAcquirerTimestamp().toString()
         );
 
-        if (!hmacUtil.validateSignature(payload, signature)) {
+        if (!signatureValid) {
             log.warn("Invalid HMAC signature for Bank callback - STAN: {}", request.getStan());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", "Invalid authentication signature"));
@@ -239,12 +240,11 @@ public class PaymentController {
             callbackData.put("timestamp", bankCallback.getAcquirerTimestamp());
 
             // Sign callback with HMAC for webshop verification
-            String signaturePayload = String.format("%s|%s|%s|%s",
+            String signature = hmacUtil.generateMerchantSignature(
                     session.getMerchantOrderId(),
                     bankCallback.getStatus(),
                     amountStr,
                     session.getCurrency());
-            String signature = hmacUtil.generateMerchantSignature(signaturePayload);
 
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
@@ -4,84 +4,43 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
-import java.util.Base64;
-
 @Component
 @Slf4j
 public class HmacUtil {
 
-    @Value("${bank.hmac.secret}")
-    private String hmacSecret;
-
-    @Value("${merchant.hmac.secret}")
-    private String merchantHmacSecret;
-
-    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private final HmacSigner bankSigner;
+    private final HmacSigner merchantSigner;
 
-    public String generateSignature(String payload) {
-        try {
-            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
-            SecretKeySpec secretKeySpec = new SecretKeySpec(
-                    hmacSecret.getBytes(StandardCharsets.UTF_8),
-                    HMAC_ALGORITHM
-            );
-            mac.init(secretKeySpec);
-            byte[] hmacBytes = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(hmacBytes);
-        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-            log.error("Error generating HMAC signature", e);
-            throw new RuntimeException("Failed to generate HMAC signature", e);
-        }
+    public HmacUtil(@Value("${bank.hmac.secret}") String hmacSecret,
+                    @Value("${merchant.hmac.secret}") String merchantHmacSecret) {
+        this.bankSigner = new HmacSigner(hmacSecret);
+        this.merchantSigner = new HmacSigner(merchantHmacSecret);
     }
 
-    public boolean validateSignature(String payload, String receivedSignature) {
-        try {
-            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
-            SecretKeySpec secretKeySpec = new SecretKeySpec(
-                    hmacSecret.getBytes(StandardCharsets.UTF_8),
-                    HMAC_ALGORITHM
-            );
-            mac.init(secretKeySpec);
-            byte[] hmacBytes = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
-            String calculatedSignature = Base64.getEncoder().encodeToString(hmacBytes);
-
-            boolean isValid = calculatedSignature.equals(receivedSignature);
-
-            if (!isValid) {
-                log.warn("HMAC validation failed. Expected: {}, Received: {}",
-                        calculatedSignature, receivedSignature);
-            }
+    /**
+     * Signs the payload fields joined with '|' with the bank shared secret.
+     */
+    public String generateSignature(String... payloadFields) {
+        return bankSigner.signBase64(payloadFields);
+    }
 
-            return isValid;
+    /**
+     * Validates a bank signature over the payload fields joined with '|'.
+     */
+    public boolean validateSignature(String receivedSignature, String... payloadFields) {
+        boolean isValid = bankSigner.verify(receivedSignature, payloadFields);
 
-        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-            log.error("Error validating HMAC signature", e);
-            return false;
+        if (!isValid) {
+            log.warn("HMAC validation failed. Received: {}", receivedSignature);
         }
-    }
 
-    public String createPayload(String merchantId, String amount, String currency, String stan, String timestamp) {
-        return String.format("%s|%s|%s|%s|%s", merchantId, amount, currency, stan, timestamp);
+        return isValid;
     }
 
-    public String generateMerchantSignature(String payload) {
-        try {
-            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
-            SecretKeySpec secretKeySpec = new SecretKeySpec(
-                    merchantHmacSecret.getBytes(StandardCharsets.UTF_8),
-                    HMAC_ALGORITHM
-            );
-            mac.init(secretKeySpec);
-            byte[] hmacBytes = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(hmacBytes);
-        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-            log.error("Error generating merchant HMAC signature", e);
-            throw new RuntimeException("Failed to generate merchant HMAC signature", e);
-        }
+    /**
+     * Signs the payload fields joined with '|' with the merchant shared secret.
+     */
+    public String generateMerchantSignature(String... payloadFields) {
+        return merchantSigner.signBase64(payloadFields);
     }
 }
@@ -76,14 +76,13 @@ public class CardPaymentProvider implements PaymentProvider {
         request.setStan(stan);
         request.setPspTimestamp(timestamp);
 
-        String payload = hmacUtil.createPayload(
+        String signature = hmacUtil.generateSignature(
                 pspBankMerchantId,
                 amount.toString(),
                 currency,
                 stan,
                 timestamp.toString()
         );
-        String signature = hmacUtil.generateSignature(payload);
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
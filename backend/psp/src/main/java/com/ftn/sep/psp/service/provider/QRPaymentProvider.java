@@ -70,14 +70,13 @@ public class QRPaymentProvider implements PaymentProvider {
         request.put("stan", stan);
         request.put("pspTimestamp", timestamp);
 
-        String payload = hmacUtil.createPayload(
+        String signature = hmacUtil.generateSignature(
                 pspBankMerchantId,
                 amount.toString(),
                 currency,
                 stan,
                 timestamp.toString()
         );
-        String signature = hmacUtil.generateSignature(payload);
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
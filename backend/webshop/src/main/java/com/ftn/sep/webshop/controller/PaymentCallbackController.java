@@ -149,10 +149,8 @@ public class PaymentCallbackController {
         String amountStr = callbackData.get("amount").toString();
         String currency = (String) callbackData.get("currency");
 
-        String payload = String.format("%s|%s|%s|%s",
+        boolean valid = hmacUtil.validateSignature(signature,
                 merchantOrderId, status, amountStr, currency);
-
-        boolean valid = hmacUtil.validateSignature(payload, signature);
         if (valid) {
             log.info("HMAC signature verified for callback - Order: {}", merchantOrderId);
         } else {
@@ -0,0 +1,111 @@
+package com.ftn.sep.webshop.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * HMAC-SHA256 signer bound to a single key.
+ * <p>
+ * The key is initialized once into a prototype {@link Mac}; each thread works on its
+ * own clone. Payload fields are fed to the Mac through a per-thread scratch buffer,
+ * joined with '|', so no intermediate payload string is built.
+ */
+public class HmacSigner {
+
+    public static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private static final byte FIELD_SEPARATOR = '|';
+    private static final int SCRATCH_SIZE = 256;
+
+    private final SecretKeySpec keySpec;
+    private final Mac prototype;
+    private final ThreadLocal<Mac> macs;
+    private final ThreadLocal<byte[]> scratch = ThreadLocal.withInitial(() -> new byte[SCRATCH_SIZE]);
+
+    public HmacSigner(String secret) {
+        this.keySpec = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        try {
+            this.prototype = Mac.getInstance(HMAC_ALGORITHM);
+            this.prototype.init(keySpec);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to initialize HMAC key", e);
+        }
+        this.macs = ThreadLocal.withInitial(this::cloneMac);
+    }
+
+    /**
+     * Returns the raw digest of the fields joined with '|'.
+     * Null fields are signed as "null", matching String.format("%s").
+     */
+    public byte[] sign(String... fields) {
+        Mac mac = macs.get();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                mac.update(FIELD_SEPARATOR);
+            }
+            update(mac, String.valueOf(fields[i]));
+        }
+        return mac.doFinal();
+    }
+
+    public String signBase64(String... fields) {
+        return Base64.getEncoder().encodeToString(sign(fields));
+    }
+
+    /**
+     * Verifies a Base64 signature against the fields, comparing raw digests in constant time.
+     */
+    public boolean verify(String receivedSignature, String... fields) {
+        if (receivedSignature == null) {
+            return false;
+        }
+
+        byte[] received;
+        try {
+            received = Base64.getDecoder().decode(receivedSignature);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return MessageDigest.isEqual(sign(fields), received);
+    }
+
+    private void update(Mac mac, String value) {
+        byte[] buffer = scratch.get();
+        int length = value.length();
+        int pos = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                mac.update(buffer, 0, pos);
+                mac.update(value.substring(i).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            if (pos == buffer.length) {
+                mac.update(buffer, 0, pos);
+                pos = 0;
+            }
+            buffer[pos++] = (byte) c;
+        }
+        mac.update(buffer, 0, pos);
+    }
+
+    private Mac cloneMac() {
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            // Provider without clone support: initialize a fresh instance for this thread
+            try {
+                Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(keySpec);
+                return mac;
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("Failed to create HMAC instance", ex);
+            }
+        }
+    }
+}
@@ -9,7 +9,8 @@ interface QrPaymentData {
   amount: number;
   currency: string;
   recipientName: string;
-  qrCodeBase64: string;
+  qrImageUrl: string;
+  qrCodeBase64?: string;
   expiresAt: string;
   stan: string;
   status?: string;
@@ -64,7 +65,7 @@ export class QrPaymentComponent implements OnInit, OnDestroy {
   }
 
   loadQrPaymentData(paymentId: string): void {
-    this.http.get<QrPaymentData>(`https://localhost:8445/api/qr/${paymentId}`)
+    this.http.get<QrPaymentData>(`https://localhost:8445/api/qr/${paymentId}?inlineImage=false`)
       .subscribe({
         next: (data) => {
           this.paymentData = data;
@@ -103,7 +104,7 @@ export class QrPaymentComponent implements OnInit, OnDestroy {
 
   get qrCodeImage(): string {
     if (!this.paymentData) return '';
-    return `data:image/png;base64,${this.paymentData.qrCodeBase64}`;
+    return `https://localhost:8445${this.paymentData.qrImageUrl}`;
   }
 
   get amount(): number {